@@ -32,6 +32,10 @@ android {
     buildFeatures {
         viewBinding = true
     }
+    testOptions {
+        // android.util.Log and friends return defaults in JVM unit tests
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 dependencies {
@@ -0,0 +1,367 @@
+package com.example.mail_app;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteStatement;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.mail_app.data.dao.MailDao;
+import com.example.mail_app.data.dao.MailboxCounterDao;
+import com.example.mail_app.data.db.MailboxCounters;
+import com.example.mail_app.data.entity.Mail;
+import com.example.mail_app.data.entity.MailLabelCrossRef;
+import com.example.mail_app.data.entity.MailboxCounter;
+import com.example.mail_app.data.entity.MailSummary;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for LocalDatabase migrations.
+ * Builds a version-1 database by hand (the schema every existing install has),
+ * opens it through LocalDatabase.build and checks that Room migrates it without
+ * losing cached mails, and that category queries switch from table scans to indexes.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LocalDatabaseMigrationTest {
+
+    private static final String TAG = "LocalDatabaseMigration";
+    private static final String TEST_DB = "migration-test.db";
+    private static final int BENCHMARK_MAIL_COUNT = 50_000;
+    private static final int BENCHMARK_RUNS = 5;
+    private static final int PAGE_SIZE = 50;
+    private static final String LONG_BODY = repeat("Lorem ipsum dolor sit amet. ", 40);
+
+    // Schema generated by Room for LocalDatabase version 1
+    private static final String[] V1_SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS `mail` (`id` TEXT NOT NULL, `from` TEXT, `subject` TEXT, " +
+                    "`body` TEXT, `sentAt` INTEGER, `type` TEXT, `isDraft` INTEGER NOT NULL, " +
+                    "`isSpam` INTEGER NOT NULL, `isStar` INTEGER NOT NULL, `isRead` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`id`))",
+            "CREATE TABLE IF NOT EXISTS `logged_in_user` (`userId` TEXT NOT NULL, `name` TEXT, " +
+                    "`gender` TEXT, `birthDate` INTEGER, `profileImage` TEXT, " +
+                    "`hasCustomImage` INTEGER NOT NULL, PRIMARY KEY(`userId`))",
+            "CREATE TABLE IF NOT EXISTS `public_users` (`userId` TEXT NOT NULL, `name` TEXT, " +
+                    "`profileImage` TEXT, PRIMARY KEY(`userId`))",
+            "CREATE TABLE IF NOT EXISTS `label` (`id` TEXT NOT NULL, `userId` TEXT, `name` TEXT, " +
+                    "`color` TEXT, PRIMARY KEY(`id`))",
+            "CREATE TABLE IF NOT EXISTS `mail_label_cross_ref` (`mailId` TEXT NOT NULL, " +
+                    "`labelId` TEXT NOT NULL, PRIMARY KEY(`mailId`, `labelId`))",
+            "CREATE TABLE IF NOT EXISTS `mail_recipient_cross_ref` (`mailId` TEXT NOT NULL, " +
+                    "`userId` TEXT NOT NULL, PRIMARY KEY(`mailId`, `userId`))"
+    };
+
+    // Label list ordered by the label reference's copy of sentAt, and its version-1 equivalent
+    // (mail_label_cross_ref.sentAt does not exist yet)
+    private static final String LABEL_QUERY = "SELECT mail.* FROM mail INNER JOIN mail_label_cross_ref " +
+            "ON mail.id = mail_label_cross_ref.mailId WHERE mail_label_cross_ref.labelId = 'label-1' " +
+            "ORDER BY mail_label_cross_ref.sentAt DESC, mail_label_cross_ref.mailId DESC LIMIT 50";
+    private static final String LABEL_QUERY_V1 = "SELECT mail.* FROM mail INNER JOIN mail_label_cross_ref " +
+            "ON mail.id = mail_label_cross_ref.mailId WHERE mail_label_cross_ref.labelId = 'label-1' " +
+            "ORDER BY mail.sentAt DESC, mail.id DESC LIMIT 50";
+
+    // First page of each list screen, and the index it is expected to use after migrating
+    private static final Map<String, String> CATEGORY_QUERIES = new LinkedHashMap<>();
+    static {
+        CATEGORY_QUERIES.put("SELECT * FROM mail WHERE type = 'received' AND isSpam = 0 " +
+                "ORDER BY sentAt DESC LIMIT 50", "index_mail_type_isSpam_sentAt");
+        CATEGORY_QUERIES.put("SELECT * FROM mail WHERE type = 'sent' AND isDraft = 0 " +
+                "ORDER BY sentAt DESC LIMIT 50", "index_mail_type_isDraft_sentAt");
+        CATEGORY_QUERIES.put("SELECT * FROM mail WHERE isDraft = 1 " +
+                "ORDER BY sentAt DESC LIMIT 50", "index_mail_isDraft_sentAt");
+        CATEGORY_QUERIES.put("SELECT * FROM mail WHERE isSpam = 1 " +
+                "ORDER BY sentAt DESC LIMIT 50", "index_mail_isSpam_sentAt");
+        CATEGORY_QUERIES.put("SELECT * FROM mail WHERE isStar = 1 " +
+                "ORDER BY sentAt DESC LIMIT 50", "index_mail_isStar_sentAt");
+        CATEGORY_QUERIES.put(LABEL_QUERY, "index_mail_label_cross_ref_labelId_sentAt_mailId");
+    }
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void migrateFromVersion1_keepsCachedMails() {
+        SupportSQLiteDatabase v1 = openVersion1();
+        v1.execSQL("INSERT INTO mail VALUES ('m1', 'alice', 'Quarterly report', 'Numbers attached', " +
+                "1000, 'received', 0, 0, 1, 0)");
+        v1.execSQL("INSERT INTO mail VALUES ('m2', 'bob', 'Lunch', 'Tomorrow?', 2000, 'sent', 0, 0, 0, 1)");
+        v1.execSQL("INSERT INTO mail VALUES ('m3', 'carol', 'Offer', '" + LONG_BODY + "', " +
+                "3000, 'received', 0, 1, 0, 0)");
+        v1.execSQL("INSERT INTO public_users VALUES ('alice', 'Alice Cohen', NULL)");
+        v1.execSQL("INSERT INTO public_users VALUES ('bob', 'Bob Levi', NULL)");
+        v1.execSQL("INSERT INTO mail_recipient_cross_ref VALUES ('m1', 'bob')");
+        v1.execSQL("INSERT INTO mail_recipient_cross_ref VALUES ('m2', 'alice')");
+        v1.execSQL("INSERT INTO label VALUES ('label-1', 'bob', 'Work', '#FF0000')");
+        v1.execSQL("INSERT INTO mail_label_cross_ref VALUES ('m1', 'label-1')");
+        v1.close();
+
+        LocalDatabase db = LocalDatabase.build(context, TEST_DB);
+        try {
+            MailDao dao = db.mailDao();
+
+            long first = Long.MAX_VALUE;
+            long last = Long.MIN_VALUE;
+            List<MailSummary> inbox = dao.getInboxPage(first, "", last, "", PAGE_SIZE);
+            assertEquals(1, inbox.size());
+            assertEquals("m1", inbox.get(0).getId());
+            assertEquals("Alice Cohen", inbox.get(0).getSenderName());
+            assertEquals(1, inbox.get(0).getLabels().size());
+            assertEquals("Work", inbox.get(0).getLabels().get(0).getName());
+            assertEquals("Numbers attached", inbox.get(0).getSnippet());
+
+            assertEquals(1, dao.getSentPage(first, "", last, "", PAGE_SIZE).size());
+            assertEquals(1, dao.getStarredPage(first, "", last, "", PAGE_SIZE).size());
+            assertEquals(1, dao.getMailsByLabelPage("label-1", first, "", last, "", PAGE_SIZE).size());
+
+            // The search index is built from the existing cache
+            assertEquals(1, dao.searchMails("quart", 0, PAGE_SIZE).size());
+            assertEquals(2, dao.searchMails("alice", 0, PAGE_SIZE).size());
+            assertEquals(2, dao.searchMails("bob", 0, PAGE_SIZE).size());
+            assertEquals(1, dao.searchMails("lorem", 0, PAGE_SIZE).size());
+            assertEquals(1, dao.getSpamPage(first, "", last, "", PAGE_SIZE).size());
+
+            // Bodies moved to mail_body (the long one compressed) and still read back intact
+            assertEquals("Numbers attached", dao.getMailById("m1").getBody());
+            assertEquals(LONG_BODY, dao.getMailById("m3").getBody());
+
+            // The body index keeps no plain-text copy of the bodies
+            SupportSQLiteDatabase migrated = db.getOpenHelper().getWritableDatabase();
+            assertTrue(tableExists(migrated, "mail_body_fts"));
+            assertFalse(tableExists(migrated, "mail_body_fts_content"));
+
+            // Counters are computed once by the migration, then maintained by triggers
+            MailboxCounterDao counters = db.mailboxCounterDao();
+            assertCounter(counters, MailboxCounters.INBOX, 1, 1);
+            assertCounter(counters, MailboxCounters.SENT, 1, 0);
+            assertCounter(counters, MailboxCounters.SPAM, 1, 1);
+            assertCounter(counters, MailboxCounters.ALL, 2, 1);
+            assertCounter(counters, MailboxCounters.labelKey("label-1"), 1, 1);
+
+            dao.markAsRead("m1");
+            dao.setSpam("m3");
+            assertCounter(counters, MailboxCounters.INBOX, 2, 1);
+            assertCounter(counters, MailboxCounters.SPAM, 0, 0);
+            assertCounter(counters, MailboxCounters.labelKey("label-1"), 1, 0);
+
+            dao.deleteMailById("m1");
+            assertCounter(counters, MailboxCounters.STARRED, 0, 0);
+            assertCounter(counters, MailboxCounters.labelKey("label-1"), 0, 0);
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test
+    public void counters_sentMailsAreNeverUnread() {
+        // The server keeps isRead = 0 on the sender's own mails
+        SupportSQLiteDatabase v1 = openVersion1();
+        v1.execSQL("INSERT INTO mail VALUES ('m1', 'alice', 'Hi', 'Hello', 1000, 'received', 0, 0, 1, 0)");
+        v1.execSQL("INSERT INTO mail VALUES ('m2', 'bob', 'Re: Hi', 'Hello back', 2000, 'sent', 0, 0, 1, 0)");
+        v1.execSQL("INSERT INTO label VALUES ('label-1', 'bob', 'Work', '#FF0000')");
+        v1.execSQL("INSERT INTO mail_label_cross_ref VALUES ('m2', 'label-1')");
+        v1.close();
+
+        LocalDatabase db = LocalDatabase.build(context, TEST_DB);
+        try {
+            MailboxCounterDao counters = db.mailboxCounterDao();
+            assertCounter(counters, MailboxCounters.SENT, 1, 0);
+            assertCounter(counters, MailboxCounters.STARRED, 2, 1);
+            assertCounter(counters, MailboxCounters.ALL, 2, 1);
+            assertCounter(counters, MailboxCounters.labelKey("label-1"), 1, 0);
+
+            // Kept current by the triggers: a newly sent mail and a draft add no unread count
+            MailDao dao = db.mailDao();
+            dao.insertMails(Arrays.asList(
+                    new Mail("m3", "bob", "Update", "Done", new Date(3000), "sent", false, false, false, false),
+                    new Mail("m4", "bob", "Draft", "Later", new Date(4000), "sent", true, false, false, false)));
+            dao.insertLabelRefs(Collections.singletonList(new MailLabelCrossRef("m3", "label-1")));
+            assertCounter(counters, MailboxCounters.SENT, 2, 0);
+            assertCounter(counters, MailboxCounters.DRAFTS, 1, 0);
+            assertCounter(counters, MailboxCounters.ALL, 4, 1);
+            assertCounter(counters, MailboxCounters.labelKey("label-1"), 2, 0);
+
+            dao.toggleStar("m3");
+            dao.deleteMailById("m2");
+            assertCounter(counters, MailboxCounters.STARRED, 2, 1);
+            assertCounter(counters, MailboxCounters.labelKey("label-1"), 1, 0);
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test
+    public void migrateFromVersion1_categoryQueriesUseIndexes() {
+        SupportSQLiteDatabase v1 = openVersion1();
+        seedMails(v1, BENCHMARK_MAIL_COUNT);
+
+        Map<String, String> plansBefore = new LinkedHashMap<>();
+        Map<String, Long> timesBefore = new LinkedHashMap<>();
+        for (String sql : CATEGORY_QUERIES.keySet()) {
+            String v1Sql = sql.equals(LABEL_QUERY) ? LABEL_QUERY_V1 : sql;
+            plansBefore.put(sql, queryPlan(v1, v1Sql));
+            timesBefore.put(sql, bestRunMicros(v1, v1Sql));
+        }
+        v1.close();
+
+        LocalDatabase db = LocalDatabase.build(context, TEST_DB);
+        try {
+            SupportSQLiteDatabase migrated = db.getOpenHelper().getWritableDatabase();
+            for (Map.Entry<String, String> query : CATEGORY_QUERIES.entrySet()) {
+                String sql = query.getKey();
+                String planAfter = queryPlan(migrated, sql);
+                long timeAfter = bestRunMicros(migrated, sql);
+
+                Log.i(TAG, sql + "\n  v1: " + plansBefore.get(sql) + " (" + timesBefore.get(sql) + " µs)" +
+                        "\n  v" + migrated.getVersion() + ": " + planAfter + " (" + timeAfter + " µs)");
+
+                assertFalse(plansBefore.get(sql).contains(query.getValue()));
+                assertTrue(planAfter, planAfter.contains(query.getValue()));
+                assertFalse(planAfter, planAfter.contains("TEMP B-TREE FOR ORDER BY"));
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * Creates (or opens) TEST_DB with the version-1 schema and no Room metadata.
+     */
+    private SupportSQLiteDatabase openVersion1() {
+        SupportSQLiteOpenHelper.Configuration config = SupportSQLiteOpenHelper.Configuration
+                .builder(context)
+                .name(TEST_DB)
+                .callback(new SupportSQLiteOpenHelper.Callback(1) {
+                    @Override
+                    public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                        for (String sql : V1_SCHEMA) {
+                            db.execSQL(sql);
+                        }
+                    }
+
+                    @Override
+                    public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+                        // Only version 1 is created here
+                    }
+                })
+                .build();
+        return new FrameworkSQLiteOpenHelperFactory().create(config).getWritableDatabase();
+    }
+
+    /**
+     * Inserts a realistic mix of received, sent, draft, spam, starred and labeled mails.
+     */
+    private void seedMails(SupportSQLiteDatabase db, int count) {
+        db.beginTransaction();
+        try {
+            SupportSQLiteStatement insertMail = db.compileStatement(
+                    "INSERT INTO mail VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            SupportSQLiteStatement insertLabel = db.compileStatement(
+                    "INSERT INTO mail_label_cross_ref VALUES (?, ?)");
+
+            for (int i = 0; i < count; i++) {
+                boolean sent = i % 5 == 0;
+                insertMail.bindString(1, "mail-" + i);
+                insertMail.bindString(2, sent ? "me" : "user-" + (i % 200));
+                insertMail.bindString(3, "Subject " + i);
+                insertMail.bindString(4, "Body of mail number " + i);
+                insertMail.bindLong(5, 1_700_000_000_000L + i * 60_000L);
+                insertMail.bindString(6, sent ? "sent" : "received");
+                insertMail.bindLong(7, sent && i % 4 == 0 ? 1 : 0);  // drafts
+                insertMail.bindLong(8, !sent && i % 10 == 1 ? 1 : 0); // spam
+                insertMail.bindLong(9, i % 10 == 3 ? 1 : 0);          // starred
+                insertMail.bindLong(10, i % 3 == 0 ? 1 : 0);          // read
+                insertMail.executeInsert();
+
+                if (i % 10 == 7) {
+                    insertLabel.bindString(1, "mail-" + i);
+                    insertLabel.bindString(2, "label-" + (i % 4));
+                    insertLabel.executeInsert();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static void assertCounter(MailboxCounterDao dao, String mailbox, int total, int unread) {
+        MailboxCounter counter = dao.getByMailbox(mailbox);
+        assertNotNull(mailbox, counter);
+        assertEquals(mailbox + " total", total, counter.getTotal());
+        assertEquals(mailbox + " unread", unread, counter.getUnread());
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sb.append(text);
+        }
+        return sb.toString();
+    }
+
+    private static boolean tableExists(SupportSQLiteDatabase db, String name) {
+        try (Cursor cursor = db.query("SELECT 1 FROM sqlite_master WHERE name = ?", new Object[]{name})) {
+            return cursor.moveToFirst();
+        }
+    }
+
+    /**
+     * Returns the EXPLAIN QUERY PLAN details of a query joined into one line.
+     */
+    private String queryPlan(SupportSQLiteDatabase db, String sql) {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = db.query("EXPLAIN QUERY PLAN " + sql)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                if (plan.length() > 0) plan.append(" | ");
+                plan.append(cursor.getString(detail));
+            }
+        }
+        return plan.toString();
+    }
+
+    /**
+     * Runs a query to completion several times and returns the fastest run in microseconds.
+     */
+    private long bestRunMicros(SupportSQLiteDatabase db, String sql) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < BENCHMARK_RUNS; run++) {
+            long start = System.nanoTime();
+            try (Cursor cursor = db.query(sql)) {
+                while (cursor.moveToNext()) {
+                    // Drain the cursor so every row is actually read
+                }
+            }
+            best = Math.min(best, (System.nanoTime() - start) / 1_000);
+        }
+        return best;
+    }
+}
@@ -1,21 +1,41 @@
 package com.example.mail_app;
 
+import android.content.Context;
+
+import androidx.annotation.NonNull;
 import androidx.room.Database;
+import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.example.mail_app.data.dao.LabelDao;
 import com.example.mail_app.data.dao.LoggedInUserDao;
+import com.example.mail_app.data.dao.MailCacheDao;
 import com.example.mail_app.data.dao.MailDao;
+import com.example.mail_app.data.dao.MailboxCounterDao;
+import com.example.mail_app.data.dao.OutboxDao;
 import com.example.mail_app.data.dao.PublicUserDao;
+import com.example.mail_app.data.db.MailBodyStore;
+import com.example.mail_app.data.db.MailLabelRefs;
+import com.example.mail_app.data.db.MailSearchIndex;
+import com.example.mail_app.data.db.MailboxCounters;
+import com.example.mail_app.data.db.Migrations;
 import com.example.mail_app.data.entity.Label;
 import com.example.mail_app.data.entity.LoggedInUser;
 import com.example.mail_app.data.entity.Mail;
+import com.example.mail_app.data.entity.MailAccess;
+import com.example.mail_app.data.entity.MailBody;
+import com.example.mail_app.data.entity.MailFts;
 import com.example.mail_app.data.entity.MailLabelCrossRef;
 import com.example.mail_app.data.entity.MailRecipientCrossRef;
+import com.example.mail_app.data.entity.MailboxCounter;
+import com.example.mail_app.data.entity.OutboxOperation;
 import com.example.mail_app.data.entity.PublicUser;
 import com.example.mail_app.data.entity.utils.Converters;
 
+import java.util.concurrent.Executor;
+
 /**
  * Room database configuration.
  * Define entities and DAOs here.
@@ -27,9 +47,14 @@ import com.example.mail_app.data.entity.utils.Converters;
                 PublicUser.class,
                 Label.class,
                 MailLabelCrossRef.class,
-                MailRecipientCrossRef.class
+                MailRecipientCrossRef.class,
+                MailFts.class,
+                MailBody.class,
+                MailboxCounter.class,
+                MailAccess.class,
+                OutboxOperation.class
         },
-        version = 1
+        version = 12
 )
 @TypeConverters(Converters.class)
 public abstract class LocalDatabase extends RoomDatabase {
@@ -38,4 +63,40 @@ public abstract class LocalDatabase extends RoomDatabase {
     public abstract LabelDao labelDao();
     public abstract PublicUserDao publicUserDao();
     public abstract LoggedInUserDao userDao();
+    public abstract MailboxCounterDao mailboxCounterDao();
+    public abstract MailCacheDao mailCacheDao();
+    public abstract OutboxDao outboxDao();
+
+    /**
+     * Builds the database with all schema migrations and the SQL triggers that are not
+     * part of the entity schema.
+     */
+    public static LocalDatabase build(Context context, String name) {
+        return build(context, name, null);
+    }
+
+    /**
+     * Builds the database, running Room's own queries (observed LiveData) on the given
+     * executor, or on Room's default one if null.
+     */
+    public static LocalDatabase build(Context context, String name, Executor queryExecutor) {
+        Builder<LocalDatabase> builder = Room.databaseBuilder(context, LocalDatabase.class, name);
+        if (queryExecutor != null) builder.setQueryExecutor(queryExecutor);
+
+        return builder
+                .addMigrations(Migrations.ALL)
+                .addCallback(new Callback() {
+                    @Override
+                    public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                        // Migrated databases get their triggers from the migrations
+                        MailSearchIndex.createTriggers(db);
+                        MailSearchIndex.createBodyIndex(db);
+                        MailBodyStore.createTriggers(db);
+                        MailLabelRefs.createTriggers(db);
+                        MailboxCounters.rebuild(db); // creates the empty category rows
+                        MailboxCounters.createTriggers(db);
+                    }
+                })
+                .build();
+    }
 }
@@ -1,28 +1,52 @@
 package com.example.mail_app;
 
 import android.app.Application;
+import android.content.pm.ApplicationInfo;
 
-import androidx.room.Room;
+import com.example.mail_app.app.api.MailFetchBatcher;
+import com.example.mail_app.app.api.MailOutbox;
+import com.example.mail_app.app.network.ConnectivityMonitor;
+import com.example.mail_app.data.db.DbDispatcher;
+import com.example.mail_app.data.db.MailCacheCompactor;
+import com.example.mail_app.utils.AppConstants;
 
 /**
  * Application class used to initialize global app components.
- * In this case: initializes the Room database when the app starts.
+ * In this case: initializes the Room database and its background executor when the app starts
+ * (logging the executor's metrics in debug builds), trims the local mail cache to its budget
+ * and resumes sending queued mail changes.
  */
 public class MyApp extends Application {
 
+    private static final String DATABASE_NAME = "mail_app_db";
+
     private static MyApp instance;
     private LocalDatabase database;
+    private DbDispatcher dbDispatcher;
+    private MailCacheCompactor cacheCompactor;
+    private MailOutbox mailOutbox;
+    private MailFetchBatcher mailFetcher;
+    private ConnectivityMonitor connectivityMonitor;
 
     @Override
     public void onCreate() {
         super.onCreate();
         instance = this;
 
-        database = Room.databaseBuilder(
-                getApplicationContext(),
-                LocalDatabase.class,
-                "mail_app_db"
-        ).build();
+        connectivityMonitor = new ConnectivityMonitor();
+        connectivityMonitor.start(this);
+
+        dbDispatcher = new DbDispatcher();
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            dbDispatcher.logMetricsEvery(AppConstants.DB_METRICS_LOG_INTERVAL_MS);
+        }
+        database = LocalDatabase.build(getApplicationContext(), DATABASE_NAME, dbDispatcher.getQueryExecutor());
+        cacheCompactor = new MailCacheCompactor(database, dbDispatcher,
+                AppConstants.MAIL_CACHE_MAX_MAILS, AppConstants.MAIL_CACHE_MAX_BODY_BYTES);
+        cacheCompactor.requestCompaction();
+        mailOutbox = new MailOutbox(database, dbDispatcher);
+        mailOutbox.start(connectivityMonitor);
+        mailFetcher = new MailFetchBatcher();
     }
 
     public static MyApp getInstance() {
@@ -32,4 +56,24 @@ public class MyApp extends Application {
     public LocalDatabase getDatabase() {
         return database;
     }
+
+    public DbDispatcher getDbDispatcher() {
+        return dbDispatcher;
+    }
+
+    public MailCacheCompactor getCacheCompactor() {
+        return cacheCompactor;
+    }
+
+    public MailOutbox getMailOutbox() {
+        return mailOutbox;
+    }
+
+    public MailFetchBatcher getMailFetcher() {
+        return mailFetcher;
+    }
+
+    public ConnectivityMonitor getConnectivityMonitor() {
+        return connectivityMonitor;
+    }
 }
@@ -5,9 +5,10 @@ import androidx.lifecycle.MutableLiveData;
 import com.example.mail_app.LocalDatabase;
 import com.example.mail_app.MyApp;
 import com.example.mail_app.app.network.AuthWebService;
-import com.example.mail_app.app.network.PublicWebService;
 import com.example.mail_app.auth.AuthManager;
 import com.example.mail_app.data.dao.LoggedInUserDao;
+import com.example.mail_app.data.db.DbDispatcher;
+import com.example.mail_app.data.db.SyncTokenStore;
 import com.example.mail_app.data.dto.ImageUploadRequest;
 import com.example.mail_app.data.dto.LoginRequest;
 import com.example.mail_app.data.dto.LoginResponse;
@@ -21,7 +22,6 @@ import org.json.JSONObject;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
-import retrofit2.Retrofit;
 
 /**
  * API class responsible for managing all operations related to the logged-in user.
@@ -29,18 +29,17 @@ import retrofit2.Retrofit;
  */
 public class LoggedInUserAPI {
     private final LoggedInUserDao dao;
-    private LoggedInUserWebService api;
+    private final DbDispatcher dispatcher;
+    private final LoggedInUserWebService api;
     private MutableLiveData<LoggedInUser> userLiveData;
 
     public LoggedInUserAPI(LoggedInUserDao dao, MutableLiveData<LoggedInUser> userLiveData) {
         this.dao = dao;
+        this.dispatcher = MyApp.getInstance().getDbDispatcher();
         this.userLiveData = userLiveData;
 
-        String token = AuthManager.getToken(MyApp.getInstance());
-        Retrofit retrofit = (token == null || token.isEmpty())
-                ? PublicWebService.getInstance()
-                : AuthWebService.getInstance(token);
-        api = retrofit.create(LoggedInUserWebService.class);
+        // The shared client sends the current token, if any, so no re-creation is needed after login
+        api = AuthWebService.create(LoggedInUserWebService.class);
     }
 
     /**
@@ -75,11 +74,11 @@ public class LoggedInUserAPI {
             public void onResponse(Call<LoggedInUser> call, Response<LoggedInUser> response) {
                 LoggedInUser user = response.body();
                 if (user != null) {
-                    new Thread(() -> {
+                    dispatcher.write(() -> {
                         dao.clear();
                         dao.insert(user);
                         userLiveData.postValue(user);
-                    }).start();
+                    });
                 }
                 if (callback != null) {
                     callback.onResponse(call, response);
@@ -209,9 +208,6 @@ public class LoggedInUserAPI {
                     AuthManager.saveToken(MyApp.getInstance(), loginResponse.getToken());
                     AuthManager.saveUserId(MyApp.getInstance(), loginResponse.getUser().getUserId());
 
-                    Retrofit retrofit = AuthWebService.getInstance(loginResponse.getToken());
-                    api = retrofit.create(LoggedInUserWebService.class);
-
                     get(new Callback<LoggedInUser>() {
                         @Override
                         public void onResponse(Call<LoggedInUser> call2, Response<LoggedInUser> response2) {
@@ -256,13 +252,16 @@ public class LoggedInUserAPI {
             @Override
             public void onResponse(Call<Void> call, Response<Void> response) {
                 AuthManager.clearAll(MyApp.getInstance());
-                new Thread(() -> {
+                SyncTokenStore.clear(MyApp.getInstance());
+                dispatcher.write(() -> {
                     LocalDatabase db = MyApp.getInstance().getDatabase();
                     db.userDao().clear();
                     db.mailDao().clearAllMails();
+                    db.outboxDao().clear();
                     db.publicUserDao().clearAllUsers();
                     db.labelDao().clear();
-                }).start();
+                    AuthWebService.clearCache();
+                });
                 callback.onResponse(call, response);
             }
 
@@ -5,21 +5,23 @@ import android.os.Looper;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
 import com.example.mail_app.MyApp;
 import com.example.mail_app.app.network.AuthWebService;
-import com.example.mail_app.auth.AuthManager;
+import com.example.mail_app.app.network.SingleFlight;
 import com.example.mail_app.data.dao.MailDao;
 import com.example.mail_app.data.dao.PublicUserDao;
+import com.example.mail_app.data.db.DbDispatcher;
+import com.example.mail_app.data.db.SyncTokenStore;
 import com.example.mail_app.data.dto.MailFromServer;
-import com.example.mail_app.data.dto.MailListResponse;
+import com.example.mail_app.data.dto.MailSyncResponse;
 import com.example.mail_app.data.entity.FullMail;
-import com.example.mail_app.data.entity.MailLabelCrossRef;
-import com.example.mail_app.data.entity.PublicUser;
+import com.example.mail_app.data.entity.OutboxOperation;
+import com.example.mail_app.data.remote.MailStreamWebService;
 import com.example.mail_app.data.remote.MailWebService;
 
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -27,13 +29,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
-import java.util.function.Supplier;
 
 import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
-import retrofit2.Retrofit;
 
 // Main API class responsible for mail operations between server (via Retrofit) and local Room database
 public class MailAPI {
@@ -41,24 +41,33 @@ public class MailAPI {
     private final MailDao mailDao;
     private final PublicUserDao publicUserDao;
 
-    // LiveData to expose current mail list to the UI
-    private final MutableLiveData<List<FullMail>> mailListData;
+    // Background executor for all Room writes (single writer keeps them in order)
+    private final DbDispatcher dispatcher;
 
-    // Retrofit interface to perform HTTP calls
+    // Queue of local changes waiting to be sent to the server
+    private final MailOutbox outbox;
+
+    // Fetches full mails by ID, many per request
+    private final MailFetchBatcher fetcher;
+
+    // Retrofit interfaces to perform HTTP calls (mail lists are read as streams)
     private final MailWebService api;
+    private final MailStreamWebService streamApi;
 
     private static final int INITIAL_MAIL_LIMIT = 100; // for initial sync
-    private static final int CATEGORY_MAIL_LIMIT = 20; // for category-specific pagination
+    private static final int SYNC_PAGE_LIMIT = 200; // changed mails per delta sync call
+    private static final int INGEST_CHUNK_SIZE = 25; // streamed mails written per Room transaction
 
-    // Constructor sets up DAOs and Retrofit instance with auth token
-    public MailAPI(MutableLiveData<List<FullMail>> mailListData, MailDao mailDao, PublicUserDao publicUserDao) {
+    // Constructor sets up DAOs and the shared mail web service.
+    // Mail lists are observed from Room, so every method here only writes to Room.
+    public MailAPI(MailDao mailDao, PublicUserDao publicUserDao) {
         this.mailDao = mailDao;
         this.publicUserDao = publicUserDao;
-        this.mailListData = mailListData;
-
-        String token = AuthManager.getToken(MyApp.getInstance());
-        Retrofit retrofit = AuthWebService.getInstance(token);
-        this.api = retrofit.create(MailWebService.class);
+        this.dispatcher = MyApp.getInstance().getDbDispatcher();
+        this.outbox = MyApp.getInstance().getMailOutbox();
+        this.fetcher = MyApp.getInstance().getMailFetcher();
+        this.api = AuthWebService.create(MailWebService.class);
+        this.streamApi = AuthWebService.createStreaming(MailStreamWebService.class);
     }
 
     // Utility to run code on the UI thread
@@ -66,306 +75,199 @@ public class MailAPI {
         new Handler(Looper.getMainLooper()).post(action);
     }
 
-    // Loads the initial mails from the server and replaces Room database
+    // Brings the local cache up to date on launch: applies only the changes since the stored
+    // sync token, or reloads from scratch if there is none (or the server asks for a reset)
     public void loadInitialMails() {
-        api.getAllMails(INITIAL_MAIL_LIMIT, 0).enqueue(new Callback<MailListResponse>() {
-            @Override
-            public void onResponse(Call<MailListResponse> call, Response<MailListResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    new Thread(() -> {
-                        List<MailFromServer> serverMails = response.body().getMails();
-                        List<FullMail> mails = new ArrayList<>();
-                        for (MailFromServer mail : serverMails) {
-                            mails.add(mail.toFullMail());
-                        }
+        outbox.requestFlush();
+        syncMails(SyncTokenStore.getToken(MyApp.getInstance()));
+    }
 
-                        // Clear local database
-                        mailDao.clearAllMails();
-                        publicUserDao.clearAllUsers();
-
-                        // Save users and mails
-                        publicUserDao.insertAll(extractPublicUsers(mails));
-                        for (FullMail mail : mails) {
-                            mailDao.insertMail(mail.getMail());
-                            mailDao.insertRecipients(mail.getRecipientRefs());
-                            for (MailLabelCrossRef ref : mail.getLabelRefs()) {
-                                mailDao.insertLabelToMail(ref);
-                            }
-                        }
+    // Fetches and applies one page of changes since the given token, then continues if more are pending
+    // (concurrent launches of the same sync share one request)
+    private void syncMails(String since) {
+        Call<MailSyncResponse> request = api.syncMails(since, SYNC_PAGE_LIMIT);
+        SingleFlight.join(request, null, done -> request.enqueue(completing(new Callback<MailSyncResponse>() {
+            @Override
+            public void onResponse(Call<MailSyncResponse> call, Response<MailSyncResponse> response) {
+                if (!response.isSuccessful() || response.body() == null) {
+                    Log.e("MailAPI", "syncMails failed: HTTP " + response.code());
+                    return;
+                }
 
-                    }).start();
-                } else {
-                    postToMain(() -> mailListData.setValue(Collections.emptyList()));
+                MailSyncResponse changes = response.body();
+                if (changes.isReset()) {
+                    reloadAllMails(changes.getToken());
+                    return;
                 }
+
+                dispatcher.write(() -> {
+                    List<FullMail> changed = new ArrayList<>();
+                    if (changes.getMails() != null) {
+                        for (MailFromServer mail : changes.getMails()) {
+                            changed.add(mail.toFullMail());
+                        }
+                    }
+                    mailDao.applyChanges(changed, changes.getDeleted());
+                    SyncTokenStore.saveToken(MyApp.getInstance(), changes.getToken());
+
+                    // Stop if the token did not move, so a misbehaving server cannot make this loop forever
+                    if (changes.hasMore() && !changes.getToken().equals(since)) {
+                        syncMails(changes.getToken());
+                    } else {
+                        MyApp.getInstance().getCacheCompactor().requestCompaction();
+                    }
+                });
             }
 
             @Override
-            public void onFailure(Call<MailListResponse> call, Throwable t) {
-                Log.e("MailAPI", "loadInitialMails failed: " + t.getMessage());
+            public void onFailure(Call<MailSyncResponse> call, Throwable t) {
+                Log.e("MailAPI", "syncMails failed: " + t.getMessage());
             }
-        });
+        }, done)));
     }
 
-    // Loads mails from Room first, then refreshes from the server and updates LiveData
-    private void loadFromRoomThenServer(
-            Supplier<List<FullMail>> roomFetcher,
-            Call<MailListResponse> apiCall,
-            String logTag) {
-
-        // Fetch and post local results immediately
-        new Thread(() -> {
-            List<FullMail> local = roomFetcher.get();
-            postToMain(() -> mailListData.setValue(local));
-        }).start();
-
-        // Then try to fetch fresh data from API and overwrite Room + UI
-        apiCall.enqueue(new Callback<MailListResponse>() {
+    // Replaces the local cache with the newest mails from the server, then stores the sync token
+    // issued before the reload (so changes made meanwhile are picked up by the next sync).
+    // The page is streamed into Room chunk by chunk; mails it did not contain are removed at the end.
+    private void reloadAllMails(String token) {
+        streamApi.getAllMails(INITIAL_MAIL_LIMIT, 0).enqueue(new Callback<ResponseBody>() {
             @Override
-            public void onResponse(Call<MailListResponse> call, Response<MailListResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    new Thread(() -> {
-                        List<MailFromServer> serverMails = response.body().getMails();
-                        List<FullMail> mails = new ArrayList<>();
-                        for (MailFromServer mail : serverMails) {
-                            mails.add(mail.toFullMail());
-                        }
+            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                if (!response.isSuccessful() || response.body() == null) {
+                    Log.w("MailAPI", "reloadAllMails failed: HTTP " + response.code());
+                    return;
+                }
 
-                        for (FullMail mail : mails) {
-                            mailDao.insertMail(mail.getMail());
-                            mailDao.insertRecipients(mail.getRecipientRefs());
-                            for (MailLabelCrossRef ref : mail.getLabelRefs()) {
-                                mailDao.insertLabelToMail(ref);
-                            }
-                            publicUserDao.insert(mail.getFromUser());
+                Set<String> received = new HashSet<>();
+                try {
+                    MailListStreamReader.read(response.body(), INGEST_CHUNK_SIZE, chunk -> {
+                        for (FullMail mail : chunk) {
+                            received.add(mail.getMail().getId());
                         }
-
-                        postToMain(() -> mailListData.setValue(mails));
-                    }).start();
-                } else {
-                    Log.w("MailAPI", logTag + " | empty or failed response");
-                    // Falls back to local results on failure
-                    new Thread(() -> {
-                        List<FullMail> fallback = roomFetcher.get();
-                        postToMain(() -> mailListData.setValue(fallback));
-                    }).start();
+                        dispatcher.writeAndWait(() -> mailDao.upsertPage(chunk));
+                    });
+                } catch (IOException | RuntimeException e) {
+                    Log.e("MailAPI", "reloadAllMails failed while reading: " + e.getMessage());
+                    return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
                 }
+
+                dispatcher.write(() -> {
+                    mailDao.retainMails(received);
+                    SyncTokenStore.saveToken(MyApp.getInstance(), token);
+                    MyApp.getInstance().getCacheCompactor().requestCompaction();
+                });
             }
 
             @Override
-            public void onFailure(Call<MailListResponse> call, Throwable t) {
-                Log.e("MailAPI", logTag + " failed: " + t.getMessage());
-                // Falls back to local results on failure
-                new Thread(() -> {
-                    List<FullMail> fallback = roomFetcher.get();
-                    postToMain(() -> mailListData.setValue(fallback));
-                }).start();
+            public void onFailure(Call<ResponseBody> call, Throwable t) {
+                Log.e("MailAPI", "reloadAllMails failed: " + t.getMessage());
             }
         });
     }
 
-
-    // Loads inbox mails from Room then from server
-    public void loadInboxMailsFromRoomThenServer() {
-        loadFromRoomThenServer(
-                () -> mailDao.getInboxMails(),
-                api.getInboxMails(CATEGORY_MAIL_LIMIT, 0),
-                "Inbox"
-        );
-    }
-
-    // Loads all mails from Room then from server
-    public void loadAllMailsFromRoomThenServer() {
-        loadFromRoomThenServer(
-                () -> mailDao.getAllMails(),
-                api.getAllMails(CATEGORY_MAIL_LIMIT, 0),
-                "AllMails"
-        );
-    }
-
-    // Loads sent mails from Room then from server
-    public void loadSentMailsFromRoomThenServer() {
-        loadFromRoomThenServer(
-                () -> mailDao.getSentMails(),
-                api.getSentMails(CATEGORY_MAIL_LIMIT, 0),
-                "Sent"
-        );
-    }
-
-    // Loads draft mails from Room then from server
-    public void loadDraftMailsFromRoomThenServer() {
-        loadFromRoomThenServer(
-                () -> mailDao.getDraftMails(),
-                api.getDraftMails(CATEGORY_MAIL_LIMIT, 0),
-                "Drafts"
-        );
-    }
-
-    // Loads spam mails from Room then from server
-    public void loadSpamMailsFromRoomThenServer() {
-        loadFromRoomThenServer(
-                () -> mailDao.getSpamMails(),
-                api.getSpamMails(CATEGORY_MAIL_LIMIT, 0),
-                "Spam"
-        );
-    }
-
-    // Loads starred mails from Room then from server
-    public void loadStarredMailsFromRoomThenServer() {
-        loadFromRoomThenServer(
-                () -> mailDao.getStarredMails(),
-                api.getStarredMails(CATEGORY_MAIL_LIMIT, 0),
-                "Starred"
-        );
-    }
-
-    // Loads mails by label ID from Room first, then fetches from server without saving permanently
-    public void loadMailsByLabelWithoutSaving(String labelId, int limit, int offset) {
-        new Thread(() -> {
-            List<FullMail> localResults = mailDao.getMailsByLabel(labelId);
-            postToMain(() -> mailListData.setValue(localResults));
-        }).start();
-
-        api.getMailsByLabel(labelId, limit, offset).enqueue(new Callback<MailListResponse>() {
+    // Streams a server page of mails into Room, then runs onDone on the UI thread (also on failure
+    // or cancellation). List screens observe Room, so they update from the save itself.
+    // On a 304 the page was already saved before, so chunks whose mails are all cached are skipped.
+    // Identical loads in flight share one request (see SingleFlight). The returned ticket lets
+    // a superseded load stop waiting; once nobody waits, the call is cancelled and writes nothing more.
+    private SingleFlight.Ticket fetchMailList(Call<ResponseBody> apiCall, String logTag, Runnable onDone) {
+        return SingleFlight.join(apiCall, onDone, done -> apiCall.enqueue(new Callback<ResponseBody>() {
             @Override
-            public void onResponse(Call<MailListResponse> call, Response<MailListResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    List<MailFromServer> mails = response.body().getMails();
-                    new Thread(() -> {
-                        saveMailsFromResponse(mails);
-                        List<FullMail> updatedResults = mailDao.getMailsByLabel(labelId);
-                        postToMain(() -> mailListData.setValue(updatedResults));
-                    }).start();
-                } else {
-                    new Thread(() -> {
-                        List<FullMail> fallback = mailDao.getMailsByLabel(labelId);
-                        postToMain(() -> mailListData.setValue(fallback));
-                    }).start();
+            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                if (!response.isSuccessful() || response.body() == null) {
+                    Log.w("MailAPI", logTag + " | empty or failed response");
+                    postToMain(done);
+                    return;
                 }
-            }
-
-            @Override
-            public void onFailure(Call<MailListResponse> call, Throwable t) {
-                Log.e("MailAPI", "loadMailsByLabelWithoutSaving failed: " + t.getMessage());
-                new Thread(() -> {
-                    List<FullMail> fallback = mailDao.getMailsByLabel(labelId);
-                    postToMain(() -> mailListData.setValue(fallback));
-                }).start();
-            }
-        });
-    }
 
-
-    // Searches mails in Room first, then fetches from server without saving permanently
-    public void searchMailsWithoutSaving(String query, int limit, int offset) {
-        new Thread(() -> {
-            List<FullMail> localResults = mailDao.searchMails(query);
-            postToMain(() -> mailListData.setValue(localResults));
-        }).start();
-
-        api.searchMails(query, limit, offset).enqueue(new Callback<MailListResponse>() {
-            @Override
-            public void onResponse(Call<MailListResponse> call, Response<MailListResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    List<MailFromServer> mails = response.body().getMails();
-                    new Thread(() -> {
-                        saveMailsFromResponse(mails);
-                        List<FullMail> updatedResults = mailDao.searchMails(query);
-                        postToMain(() -> mailListData.setValue(updatedResults));
-                    }).start();
-                } else {
-                    new Thread(() -> {
-                        List<FullMail> fallback = mailDao.searchMails(query);
-                        postToMain(() -> mailListData.setValue(fallback));
-                    }).start();
+                boolean notModified = AuthWebService.isNotModified(response);
+                try {
+                    MailListStreamReader.read(response.body(), INGEST_CHUNK_SIZE, chunk ->
+                            dispatcher.writeAndWait(() -> {
+                                if (call.isCanceled()) return;
+                                if (!notModified || !isCached(chunk)) {
+                                    mailDao.upsertPage(chunk);
+                                }
+                            }));
+                    MyApp.getInstance().getCacheCompactor().requestCompaction();
+                } catch (IOException | RuntimeException e) {
+                    if (!call.isCanceled()) Log.e("MailAPI", logTag + " failed while reading: " + e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
+                postToMain(done);
             }
 
             @Override
-            public void onFailure(Call<MailListResponse> call, Throwable t) {
-                Log.e("MailAPI", "searchMailsWithoutSaving failed: " + t.getMessage());
-                new Thread(() -> {
-                    List<FullMail> fallback = mailDao.searchMails(query);
-                    postToMain(() -> mailListData.setValue(fallback));
-                }).start();
+            public void onFailure(Call<ResponseBody> call, Throwable t) {
+                if (!call.isCanceled()) Log.e("MailAPI", logTag + " failed: " + t.getMessage());
+                postToMain(done);
             }
-        });
+        }));
     }
 
-    // Extracts a unique list of senders from the given mails
-    private List<PublicUser> extractPublicUsers(List<FullMail> mails) {
-        Set<PublicUser> users = new HashSet<>();
-        for (FullMail mail : mails) {
-            users.add(mail.getFromUser());
-        }
-        return new ArrayList<>(users);
+    // Fetches a page of inbox mails from the server into Room
+    public SingleFlight.Ticket fetchInboxMails(int limit, int offset, Runnable onDone) {
+        return fetchMailList(streamApi.getInboxMails(limit, offset), "Inbox", onDone);
     }
 
-    // Saves a single mail (converted from server format) to Room
-    private void saveMailFromServer(MailFromServer mail) {
-        FullMail fullMail = mail.toFullMail();
-        String mailId = fullMail.getMail().getId();
-
-        mailDao.insertMail(fullMail.getMail());
-
-        if (!fullMail.getMail().isDraft()) {
-            mailDao.deleteRecipientsByMailId(mailId);
-            mailDao.insertRecipients(fullMail.getRecipientRefs());
-        }
-
-        mailDao.deleteLabelsByMailId(mailId);
-        for (MailLabelCrossRef ref : fullMail.getLabelRefs()) {
-            mailDao.insertLabelToMail(ref);
-        }
-
-        publicUserDao.insert(fullMail.getFromUser());
+    // Fetches a page of all mails from the server into Room
+    public SingleFlight.Ticket fetchAllMails(int limit, int offset, Runnable onDone) {
+        return fetchMailList(streamApi.getAllMails(limit, offset), "AllMails", onDone);
     }
 
-
-    // Saves a list of mails (converted from server format) to Room
-    private void saveMailsFromResponse(List<MailFromServer> mails) {
-        for (MailFromServer mail : mails) {
-            saveMailFromServer(mail);
-        }
+    // Fetches a page of sent mails from the server into Room
+    public SingleFlight.Ticket fetchSentMails(int limit, int offset, Runnable onDone) {
+        return fetchMailList(streamApi.getSentMails(limit, offset), "Sent", onDone);
     }
 
-    // Loads inbox mails from the server with offset and limit
-    public void loadInboxMails(int offset, int limit) {
-        api.getInboxMails(limit, offset).enqueue(loadMailListCallback(() -> mailDao.getInboxMails()));
+    // Fetches a page of draft mails from the server into Room
+    public SingleFlight.Ticket fetchDraftMails(int limit, int offset, Runnable onDone) {
+        return fetchMailList(streamApi.getDraftMails(limit, offset), "Drafts", onDone);
     }
 
-    // Loads sent mails from the server with offset and limit
-    public void loadSentMails(int offset, int limit) {
-        api.getSentMails(limit, offset).enqueue(loadMailListCallback(() -> mailDao.getSentMails()));
+    // Fetches a page of spam mails from the server into Room
+    public SingleFlight.Ticket fetchSpamMails(int limit, int offset, Runnable onDone) {
+        return fetchMailList(streamApi.getSpamMails(limit, offset), "Spam", onDone);
     }
 
-    // Loads draft mails from the server with offset and limit
-    public void loadDraftMails(int offset, int limit) {
-        api.getDraftMails(limit, offset).enqueue(loadMailListCallback(() -> mailDao.getDraftMails()));
+    // Fetches a page of starred mails from the server into Room
+    public SingleFlight.Ticket fetchStarredMails(int limit, int offset, Runnable onDone) {
+        return fetchMailList(streamApi.getStarredMails(limit, offset), "Starred", onDone);
     }
 
-    // Loads spam mails from the server with offset and limit
-    public void loadSpamMails(int offset, int limit) {
-        api.getSpamMails(limit, offset).enqueue(loadMailListCallback(() -> mailDao.getSpamMails()));
+    // Fetches a page of mails with a label from the server into Room
+    public SingleFlight.Ticket fetchMailsByLabel(String labelId, int limit, int offset, Runnable onDone) {
+        return fetchMailList(streamApi.getMailsByLabel(labelId, limit, offset), "Label", onDone);
     }
 
-    // Loads starred mails from the server with offset and limit
-    public void loadStarredMails(int offset, int limit) {
-        api.getStarredMails(limit, offset).enqueue(loadMailListCallback(() -> mailDao.getStarredMails()));
+    // Fetches a page of server search results into Room, where the local index ranks them
+    public SingleFlight.Ticket fetchSearchResults(String query, int limit, int offset, Runnable onDone) {
+        return fetchMailList(streamApi.searchMails(query, limit, offset), "Search", onDone);
     }
 
-    // Loads all mails from the server with offset and limit
-    public void loadAllMails(int offset, int limit) {
-        api.getAllMails(limit, offset).enqueue(loadMailListCallback(() -> mailDao.getAllMails()));
+    // Returns true if every mail of a chunk is still in Room
+    private boolean isCached(List<FullMail> mails) {
+        List<String> ids = new ArrayList<>(mails.size());
+        for (FullMail mail : mails) {
+            ids.add(mail.getMail().getId());
+        }
+        return mailDao.countCachedMails(ids) == ids.size();
     }
 
-    // Loads mails by label from the server with offset and limit
-    public void loadMailsByLabel(String labelId, int offset, int limit) {
-        api.getMailsByLabel(labelId, limit, offset).enqueue(loadMailListCallback(() -> mailDao.getMailsByLabel(labelId)));
+    // True if the cached copy of the mail (with its body) is the version the server sent
+    private boolean isUpToDate(MailFromServer mail) {
+        return mail.getUpdatedAt() != null
+                && mail.getUpdatedAt().equals(mailDao.getUpdatedAt(mail.getId()))
+                && mailDao.hasBody(mail.getId());
     }
 
-    // Searches mails from the server with offset and limit
-    public void searchMails(String query, int offset, int limit) {
-        api.searchMails(query, limit, offset).enqueue(loadMailListCallback(() -> mailDao.searchMails(query)));
+    // Saves a single mail (converted from server format) to Room
+    private void saveMailFromServer(MailFromServer mail) {
+        mailDao.upsertPage(Collections.singletonList(mail.toFullMail()));
     }
 
     // Returns a LiveData object for observing a specific mail by ID
@@ -373,326 +275,131 @@ public class MailAPI {
         return mailDao.getLiveMailById(mailId);
     }
 
-    // Reusable callback for list-based responses (updates Room + LiveData)
-    private Callback<MailListResponse> loadMailListCallback(Supplier<List<FullMail>> roomFetcher) {
-        return new Callback<MailListResponse>() {
-            @Override
-            public void onResponse(Call<MailListResponse> call, Response<MailListResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    List<MailFromServer> mails = response.body().getMails();
-                    new Thread(() -> {
-                        saveMailsFromResponse(mails);
-                        List<FullMail> updatedMails = roomFetcher.get();
-                        postToMain(() -> mailListData.setValue(updatedMails));
-                    }).start();
-                } else {
-                    new Thread(() -> {
-                        List<FullMail> fallback = roomFetcher.get();
-                        postToMain(() -> mailListData.setValue(fallback));
-                    }).start();
-                }
-            }
-
-            @Override
-            public void onFailure(Call<MailListResponse> call, Throwable t) {
-                Log.e("MailAPI", "loadMailListCallback failed: " + t.getMessage());
-                new Thread(() -> {
-                    List<FullMail> fallback = roomFetcher.get();
-                    postToMain(() -> mailListData.setValue(fallback));
-                }).start();
-            }
-        };
-    }
-
-
-    // Sends a request to create a new mail
+    // Sends a request to create a new mail and saves the mail the server returns
     public void createMail(Map<String, Object> body, Consumer<String> onError) {
-        api.createMail(body).enqueue(new Callback<ResponseBody>() {
-            @Override
-            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    try {
-                        String responseStr = response.body().string();
-
-                        JSONObject json = new JSONObject(responseStr);
-                        if (json.has("id")) {
-                            String mailId = json.getString("id");
-                            fetchAndSaveMailById(mailId);
-                            postToMain(() -> onError.accept(null));
-                        } else {
-                            postToMain(() -> onError.accept("Mail created, but missing ID"));
-                        }
-                    } catch (Exception e) {
-                        postToMain(() -> onError.accept("Failed to parse server response"));
-                    }
-
-                } else {
-                    try {
-                        String errorStr = response.errorBody() != null ? response.errorBody().string() : "";
-                        if (!errorStr.isEmpty()) {
-                            JSONObject json = new JSONObject(errorStr);
-                            if (json.has("error")) {
-                                String errorMsg = json.getString("error");
-                                postToMain(() -> onError.accept(errorMsg));
-                                return;
-                            }
-                        }
-                        postToMain(() -> onError.accept("Failed to create mail – unknown error"));
-
-                    } catch (Exception e) {
-                        postToMain(() -> onError.accept("Failed to create mail – error parsing response"));
-                    }
-                }
-            }
-
-            @Override
-            public void onFailure(Call<ResponseBody> call, Throwable t) {
-                postToMain(() -> onError.accept("Failed to create mail – check your internet connection."));
-            }
-        });
+        api.createMail(body).enqueue(savingMail(onError, "Failed to create mail"));
     }
 
-    // Sends a request to send a saved draft mail
+    // Sends a request to send a saved draft mail and saves the sent mail
     public void sendDraft(String mailId, Map<String, Object> body, Consumer<String> onError) {
-        api.sendDraft(mailId, body).enqueue(new Callback<ResponseBody>() {
-            @Override
-            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
-                if (response.isSuccessful()) {
-                    fetchAndSaveMailById(mailId);
-                    postToMain(() -> onError.accept(null));
-                } else {
-                    postToMain(() -> onError.accept(extractErrorMessage(response, "Failed to send draft")));
-                }
-            }
-
-            @Override
-            public void onFailure(Call<ResponseBody> call, Throwable t) {
-                postToMain(() -> onError.accept("Failed to send draft – check your internet connection."));
-            }
-        });
+        api.sendDraft(mailId, body).enqueue(savingMail(onError, "Failed to send draft"));
     }
 
-    // Sends a request to update an existing draft
+    // Sends a request to update an existing draft and saves the updated draft
     public void updateMail(String mailId, Map<String, Object> body, Consumer<String> onError) {
-        api.updateMail(mailId, body).enqueue(new Callback<ResponseBody>() {
-            @Override
-            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
-                if (response.isSuccessful()) {
-                    fetchAndSaveMailById(mailId);
-                    postToMain(() -> onError.accept(null));
-                } else {
-                    postToMain(() -> onError.accept(extractErrorMessage(response, "Failed to update draft")));
-                }
-            }
-
-            @Override
-            public void onFailure(Call<ResponseBody> call, Throwable t) {
-                postToMain(() -> onError.accept("Failed to update draft – check your internet connection."));
-            }
-        });
+        api.updateMail(mailId, body).enqueue(savingMail(onError, "Failed to update draft"));
     }
 
-
-
-    // Sends a request to delete a mail and removes it from Room and LiveData
-    public void deleteMail(String mailId, Consumer<String> onError) {
-        api.deleteMail(mailId).enqueue(new Callback<Void>() {
+    // Saves the mail returned by a create/send/update request to Room (no follow-up GET needed)
+    // and reports the outcome on the main thread (null = success)
+    private Callback<MailFromServer> savingMail(Consumer<String> onError, String failureMessage) {
+        return new Callback<MailFromServer>() {
             @Override
-            public void onResponse(Call<Void> call, Response<Void> response) {
-                if (!response.isSuccessful()) {
-                    postToMain(() -> onError.accept("Server failed to delete mail"));
-                    return;
+            public void onResponse(Call<MailFromServer> call, Response<MailFromServer> response) {
+                MailFromServer mail = response.body();
+                if (response.isSuccessful() && mail != null) {
+                    dispatcher.write(() -> saveMailFromServer(mail));
+                    postToMain(() -> onError.accept(null));
+                } else {
+                    String error = extractErrorMessage(response, failureMessage + " – unknown error");
+                    postToMain(() -> onError.accept(error));
                 }
-
-                new Thread(() -> {
-                    mailDao.deleteMailById(mailId);
-                    mailDao.deleteRecipientsByMailId(mailId);
-                    mailDao.deleteLabelsByMailId(mailId);
-
-                    List<FullMail> current = mailListData.getValue();
-                    if (current == null) current = new ArrayList<>();
-                    List<FullMail> updated = new ArrayList<>(current);
-                    updated.removeIf(m -> m.getMail().getId().equals(mailId));
-
-                    postToMain(() -> {
-                        mailListData.setValue(updated);
-                        onError.accept(null);
-                    });
-                }).start();
             }
 
             @Override
-            public void onFailure(Call<Void> call, Throwable t) {
-                Log.e("MailAPI", "deleteMail failed: " + t.getMessage());
-                postToMain(() -> onError.accept("Failed to delete mail – check your internet connection."));
+            public void onFailure(Call<MailFromServer> call, Throwable t) {
+                postToMain(() -> onError.accept(failureMessage + " – check your internet connection."));
             }
-        });
+        };
     }
 
-    // Refreshes a single mail inside the current LiveData list
-    public void refreshSingleMail(String mailId) {
-        new Thread(() -> {
-            FullMail updated = mailDao.getMailById(mailId);
-            if (updated == null) return;
-
-            List<FullMail> currentList = mailListData.getValue();
-            if (currentList == null) return;
-
-            List<FullMail> updatedList = new ArrayList<>(currentList);
-            for (int i = 0; i < updatedList.size(); i++) {
-                if (updatedList.get(i).getMail().getId().equals(mailId)) {
-                    updatedList.set(i, updated);
-                    break;
-                }
-            }
-
-            postToMain(() -> mailListData.setValue(updatedList));
-        }).start();
-    }
+    // The changes below are applied to Room at once and sent by the outbox in the background,
+    // so they work offline; onSuccess runs as soon as the local change was made.
 
-    // Toggles the star status of a mail
+    // Toggles the star status of a mail in Room and queues the new status for the server
     public void toggleStar(String mailId, Consumer<String> onError) {
-        api.toggleStar(mailId).enqueue(new Callback<Void>() {
-            @Override
-            public void onResponse(Call<Void> call, Response<Void> response) {
-                new Thread(() -> {
-                    mailDao.toggleStar(mailId);
-                    refreshSingleMail(mailId);
-                }).start();
-            }
-
-            @Override
-            public void onFailure(Call<Void> call, Throwable t) {
-                Log.e("MailAPI", "toggleStar failed: " + t.getMessage());
-                postToMain(() -> onError.accept("Failed to toggle star – check your internet connection."));
+        dispatcher.write(() -> {
+            Boolean starred = mailDao.isStarred(mailId);
+            if (starred == null) {
+                postToMain(() -> onError.accept("Failed to toggle star – mail not found."));
+                return;
             }
+            outbox.enqueue(OutboxOperation.star(mailId, !starred));
         });
     }
 
-    // Toggles the spam status of a mail
-    public void setSpam(String mailId, Map<String, Boolean> body, Runnable onSuccess, Consumer<String> onError) {
-        api.setSpam(mailId, body).enqueue(new Callback<Void>() {
-            @Override
-            public void onResponse(Call<Void> call, Response<Void> response) {
-                if (response.isSuccessful()) {
-                    new Thread(() -> {
-                        mailDao.setSpam(mailId);
-                        fetchAndSaveMailById(mailId);
-                        postToMain(onSuccess);
-                    }).start();
-                } else {
-                    Log.e("MailAPI", "setSpam failed: " + response.code());
-                    postToMain(() -> onError.accept("Failed to mark as spam – check your internet connection."));
-                }
-            }
+    // Applies several changes (possibly across many mails) to Room in one transaction and queues
+    // them together, so the outbox sends them to the server in a single batch request
+    public void applyMailChanges(List<OutboxOperation> operations, Runnable onSuccess) {
+        if (operations.isEmpty()) {
+            postToMain(onSuccess);
+            return;
+        }
 
-            @Override
-            public void onFailure(Call<Void> call, Throwable t) {
-                Log.e("MailAPI", "setSpam failed", t);
-                postToMain(() -> onError.accept("Failed to mark as spam – check your internet connection."));
-            }
+        dispatcher.write(() -> {
+            outbox.enqueue(operations);
+            postToMain(onSuccess);
         });
     }
 
-
-    // Adds a label to a mail
-    public void addLabelToMail(String mailId, Map<String, String> body, Runnable onSuccess, Consumer<String> onError) {
-        api.addLabelToMail(mailId, body).enqueue(new Callback<Void>() {
+    // Fetches a mail by ID from the server and saves it to Room; fetches requested close together
+    // share one request (skipped on a 304 if the mail and its body are still cached)
+    public void fetchAndSaveMailById(String mailId) {
+        fetcher.fetch(mailId, new MailFetchBatcher.Listener() {
             @Override
-            public void onResponse(Call<Void> call, Response<Void> response) {
-                if (response.isSuccessful() && body.containsKey("labelId")) {
-                    String labelId = body.get("labelId");
-                    new Thread(() -> {
-                        mailDao.insertLabelToMail(new MailLabelCrossRef(mailId, labelId));
-                        fetchAndSaveMailById(mailId);
-                        postToMain(onSuccess);
-                    }).start();
-                } else {
-                    postToMain(() -> onError.accept("Failed to add label – check your internet connection."));
-                }
+            public void onMail(MailFromServer mail) {
+                if (mail == null) return;
+                dispatcher.write(() -> {
+                    if (!isUpToDate(mail)) {
+                        saveMailFromServer(mail);
+                    }
+                });
             }
 
             @Override
-            public void onFailure(Call<Void> call, Throwable t) {
-                Log.e("MailAPI", "addLabelToMail failed: " + t.getMessage());
-                postToMain(() -> onError.accept("Failed to add label – check your internet connection."));
+            public void onFailure(String message) {
+                Log.e("MailAPI", "getMailById failed: " + message);
             }
         });
     }
 
-
-    // Removes a label from a mail
-    public void removeLabelFromMail(String mailId, Map<String, String> body, Runnable onSuccess, Consumer<String> onError) {
-        api.removeLabelFromMail(mailId, body).enqueue(new Callback<Void>() {
+    // Wraps a callback so that done runs as soon as the response (or failure) arrived
+    private static <T> Callback<T> completing(Callback<T> callback, Runnable done) {
+        return new Callback<T>() {
             @Override
-            public void onResponse(Call<Void> call, Response<Void> response) {
-                if (response.isSuccessful() && body.containsKey("labelId")) {
-                    String labelId = body.get("labelId");
-                    new Thread(() -> {
-                        mailDao.removeLabelFromMail(mailId, labelId);
-                        fetchAndSaveMailById(mailId);
-                        postToMain(onSuccess);
-                    }).start();
-                } else {
-                    postToMain(() -> onError.accept("Failed to remove label – check your internet connection."));
-                }
+            public void onResponse(Call<T> call, Response<T> response) {
+                done.run();
+                callback.onResponse(call, response);
             }
 
             @Override
-            public void onFailure(Call<Void> call, Throwable t) {
-                Log.e("MailAPI", "removeLabelFromMail failed: " + t.getMessage());
-                postToMain(() -> onError.accept("Failed to remove label – check your internet connection."));
+            public void onFailure(Call<T> call, Throwable t) {
+                done.run();
+                callback.onFailure(call, t);
             }
-        });
+        };
     }
 
-
-    // Fetches a mail by ID from the server and saves it to Room
-    public void fetchAndSaveMailById(String mailId) {
-        api.getMailById(mailId).enqueue(new Callback<MailFromServer>() {
-            @Override
-            public void onResponse(Call<MailFromServer> call, Response<MailFromServer> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    new Thread(() -> {
-                        saveMailFromServer(response.body());
-                        refreshSingleMail(mailId);
-                    }).start();
-                }
-            }
-
-            @Override
-            public void onFailure(Call<MailFromServer> call, Throwable t) {
-                Log.e("MailAPI", "getMailById failed: " + t.getMessage());
+    // Records that a mail was opened (for cache eviction) and re-downloads it if its body was evicted
+    public void openMail(String mailId) {
+        dispatcher.write(() -> {
+            mailDao.markViewed(mailId, System.currentTimeMillis());
+            if (!mailDao.hasBody(mailId)) {
+                fetchAndSaveMailById(mailId);
             }
         });
     }
 
-    // Loads mail by ID: shows from Room first, then fetches from server and marks as read
+    // Marks a mail as read in Room and queues the change for the server (the outbox keeps it
+    // through a refresh that raced it), then refreshes the mail from the server
     public void loadMailById(String mailId) {
-        new Thread(() -> {
-            FullMail localMail = mailDao.getMailById(mailId);
-            if (localMail != null) {
-                mailDao.markAsRead(mailId);
-                postToMain(() -> mailListData.setValue(Collections.singletonList(localMail)));
-            }
-        }).start();
-
-        api.getMailById(mailId).enqueue(new Callback<MailFromServer>() {
-            @Override
-            public void onResponse(Call<MailFromServer> call, Response<MailFromServer> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    new Thread(() -> {
-                        saveMailFromServer(response.body());
-                        refreshSingleMail(mailId);
-                    }).start();
-                }
-            }
-
-            @Override
-            public void onFailure(Call<MailFromServer> call, Throwable t) {
-                Log.e("MailAPI", "loadMailById failed: " + t.getMessage());
+        dispatcher.write(() -> {
+            Boolean read = mailDao.isRead(mailId);
+            if (read != null && !read) {
+                outbox.enqueue(OutboxOperation.read(mailId));
             }
         });
+        fetchAndSaveMailById(mailId);
     }
 
     private String extractErrorMessage(Response<?> response, String fallbackMessage) {
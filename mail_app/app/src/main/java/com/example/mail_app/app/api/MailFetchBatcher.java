@@ -0,0 +1,160 @@
+package com.example.mail_app.app.api;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.mail_app.app.network.AuthWebService;
+import com.example.mail_app.data.dto.MailFromServer;
+import com.example.mail_app.data.remote.MailWebService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Process-wide micro-batcher for fetching full mails by ID.
+ * Mails requested within a short window (or until a batch is full) are fetched with a single
+ * GET mails?ids= request, and each caller is told about its own mail:
+ * - A mail requested again while it is waiting or in flight joins that fetch
+ * - Bursts (bulk changes, opening several mails, refreshing rows) cost one request per batch
+ * The responses are not cached (each ID combination would be its own entry, and the request
+ * marks mails as read); callers judge per mail whether it changed, by its updatedAt.
+ * Listeners run on the main thread (Retrofit's callback thread).
+ */
+public class MailFetchBatcher {
+
+    private static final String TAG = "MailFetchBatcher";
+
+    // How long requested IDs are collected before they are sent
+    private static final long WINDOW_MS = 20;
+
+    // IDs per request; a full batch is sent at once (the server accepts up to 100)
+    private static final int MAX_BATCH_SIZE = 50;
+
+    /** Receives the result of fetching one mail. */
+    public interface Listener {
+        /**
+         * @param mail The mail, or null if the server has no such mail for the user.
+         */
+        void onMail(@Nullable MailFromServer mail);
+
+        /** The request failed (network or server error). */
+        void onFailure(String message);
+    }
+
+    // Collects IDs and sends the batches, off the calling threads
+    private final ScheduledExecutorService worker =
+            Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "mail-fetch"));
+
+    // Created on the worker thread, so the HTTP stack is not built during app start
+    private MailWebService api;
+
+    // Waiting IDs in request order, and IDs already sent, with their listeners (guarded by this)
+    private final Map<String, List<Listener>> pending = new LinkedHashMap<>();
+    private final Map<String, List<Listener>> inFlight = new HashMap<>();
+    private ScheduledFuture<?> scheduled;
+
+    public MailFetchBatcher() {
+    }
+
+    // Fetches through the given service instead of the authenticated one (for tests)
+    MailFetchBatcher(MailWebService api) {
+        this.api = api;
+    }
+
+    /**
+     * Fetches a mail with the next batch, or joins the fetch it is already part of.
+     */
+    public synchronized void fetch(String mailId, Listener listener) {
+        List<Listener> running = inFlight.get(mailId);
+        if (running != null) {
+            running.add(listener);
+            return;
+        }
+
+        List<Listener> waiting = pending.get(mailId);
+        if (waiting == null) {
+            waiting = new ArrayList<>();
+            pending.put(mailId, waiting);
+        }
+        waiting.add(listener);
+
+        if (pending.size() >= MAX_BATCH_SIZE) {
+            if (scheduled != null) scheduled.cancel(false);
+            scheduled = worker.schedule(this::send, 0, TimeUnit.MILLISECONDS);
+        } else if (scheduled == null) {
+            scheduled = worker.schedule(this::send, WINDOW_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Sends the waiting IDs (in batches of at most MAX_BATCH_SIZE)
+    private void send() {
+        if (api == null) api = AuthWebService.create(MailWebService.class);
+
+        while (true) {
+            List<String> batch = new ArrayList<>();
+            synchronized (this) {
+                scheduled = null;
+                for (Map.Entry<String, List<Listener>> entry : pending.entrySet()) {
+                    if (batch.size() == MAX_BATCH_SIZE) break;
+                    batch.add(entry.getKey());
+                    inFlight.put(entry.getKey(), entry.getValue());
+                }
+                pending.keySet().removeAll(batch);
+            }
+            if (batch.isEmpty()) return;
+
+            api.getMailsByIds(String.join(",", batch)).enqueue(new Callback<List<MailFromServer>>() {
+                @Override
+                public void onResponse(Call<List<MailFromServer>> call, Response<List<MailFromServer>> response) {
+                    if (!response.isSuccessful() || response.body() == null) {
+                        fail(batch, "HTTP " + response.code());
+                        return;
+                    }
+
+                    Map<String, MailFromServer> byId = new HashMap<>();
+                    for (MailFromServer mail : response.body()) {
+                        byId.put(mail.getId(), mail);
+                    }
+                    for (String mailId : batch) {
+                        MailFromServer mail = byId.get(mailId);
+                        for (Listener listener : complete(mailId)) {
+                            listener.onMail(mail);
+                        }
+                    }
+                }
+
+                @Override
+                public void onFailure(Call<List<MailFromServer>> call, Throwable t) {
+                    fail(batch, t.getMessage());
+                }
+            });
+        }
+    }
+
+    private void fail(List<String> batch, String message) {
+        Log.w(TAG, "Fetching " + batch.size() + " mails failed: " + message);
+        for (String mailId : batch) {
+            for (Listener listener : complete(mailId)) {
+                listener.onFailure(message);
+            }
+        }
+    }
+
+    // Removes a mail from the fetches in flight and returns the listeners waiting for it
+    private synchronized List<Listener> complete(String mailId) {
+        List<Listener> listeners = inFlight.remove(mailId);
+        return listeners != null ? listeners : new ArrayList<>();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.mail_app.app.api;
+
+import com.example.mail_app.data.dto.MailFromServer;
+import com.example.mail_app.data.entity.FullMail;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.ResponseBody;
+
+/**
+ * Reads a mail list response ({ total, mails: [...] }) as a stream.
+ * Each mail is converted to a FullMail as soon as it is parsed and handed on in chunks,
+ * so only one chunk of mails is held in memory, however large the page is.
+ */
+final class MailListStreamReader {
+
+    /** Receives the converted mails, one chunk at a time. */
+    interface ChunkConsumer {
+        void accept(List<FullMail> chunk) throws InterruptedException;
+    }
+
+    // Same configuration as Retrofit's GsonConverterFactory.create()
+    private static final Gson GSON = new Gson();
+
+    private MailListStreamReader() {
+        /* Utility class – no instances. */
+    }
+
+    /**
+     * Reads the whole body and closes it.
+     *
+     * @return the number of mails read
+     */
+    static int read(ResponseBody body, int chunkSize, ChunkConsumer consumer)
+            throws IOException, InterruptedException {
+        int count = 0;
+        try (JsonReader reader = new JsonReader(body.charStream())) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"mails".equals(reader.nextName()) || reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                    continue;
+                }
+
+                List<FullMail> chunk = new ArrayList<>(chunkSize);
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    MailFromServer mail = GSON.fromJson(reader, MailFromServer.class);
+                    chunk.add(mail.toFullMail());
+                    count++;
+
+                    if (chunk.size() == chunkSize) {
+                        consumer.accept(chunk);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                reader.endArray();
+
+                if (!chunk.isEmpty()) consumer.accept(chunk);
+            }
+            reader.endObject();
+        }
+        return count;
+    }
+}
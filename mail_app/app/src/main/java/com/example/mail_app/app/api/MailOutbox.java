@@ -0,0 +1,327 @@
+package com.example.mail_app.app.api;
+
+import android.util.Log;
+
+import com.example.mail_app.LocalDatabase;
+import com.example.mail_app.app.network.AuthWebService;
+import com.example.mail_app.app.network.ConnectivityMonitor;
+import com.example.mail_app.data.dao.MailDao;
+import com.example.mail_app.data.dao.OutboxDao;
+import com.example.mail_app.data.db.DbDispatcher;
+import com.example.mail_app.data.dto.MailBatchRequest;
+import com.example.mail_app.data.dto.MailBatchResponse;
+import com.example.mail_app.data.dto.MailFromServer;
+import com.example.mail_app.data.entity.FullMail;
+import com.example.mail_app.data.entity.MailLabelCrossRef;
+import com.example.mail_app.data.entity.OutboxOperation;
+import com.example.mail_app.data.remote.MailWebService;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Response;
+
+/**
+ * Delivers the mail changes queued in the mail_outbox table to the server.
+ * Changes are applied to Room when they are made (see enqueue), so the UI never waits for
+ * the network; this class only sends them, on its own background thread:
+ * - Due operations are sent together in batch requests (POST mails/batch), so changing
+ *   many labels or many mails costs one request
+ * - Operations of one mail are applied strictly in queue order; other mails are not held up
+ * - Network errors, 5xx, 401, 408 and 429 are retried with exponential backoff
+ *   (the queue is stored in Room, so it survives restarts)
+ * - Any other rejection drops the operation; the mail the server returns with the batch
+ *   result replaces the local copy, which rolls the change back
+ * - The queue is flushed when something is queued, on launch and when the network comes back
+ */
+public class MailOutbox {
+
+    private static final String TAG = "MailOutbox";
+
+    private static final long INITIAL_BACKOFF_MS = 2_000;
+    private static final long MAX_BACKOFF_MS = 5 * 60_000;
+
+    // Operations per batch request (the server accepts up to 100)
+    private static final int BATCH_SIZE = 50;
+
+    // HTTP status codes without a constant in HttpURLConnection
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_FAILED_DEPENDENCY = 424; // skipped after an earlier failure
+
+    private final LocalDatabase database;
+    private final OutboxDao outboxDao;
+    private final MailDao mailDao;
+    private final DbDispatcher dispatcher;
+
+    // Sends one batch at a time, so the order of a mail's operations is kept
+    private final ScheduledExecutorService worker =
+            Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "mail-outbox"));
+
+    // Created on the worker thread, so the HTTP stack is not built during app start
+    private MailWebService api;
+
+    // The next flush that has not started yet, and when it runs (guarded by this)
+    private ScheduledFuture<?> scheduled;
+    private long scheduledAt;
+
+    /**
+     * @param database   The Room database holding the queue and the mails.
+     * @param dispatcher Executor whose writer thread applies every change to Room.
+     */
+    public MailOutbox(LocalDatabase database, DbDispatcher dispatcher) {
+        this.database = database;
+        this.outboxDao = database.outboxDao();
+        this.mailDao = database.mailDao();
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Flushes what is left from the last run and retries right away whenever the device
+     * gets a network connection.
+     */
+    public void start(ConnectivityMonitor connectivity) {
+        requestFlush();
+
+        connectivity.addOnAvailableListener(() -> dispatcher.write(() -> {
+            outboxDao.makeAllDue();
+            requestFlush();
+        }));
+    }
+
+    /**
+     * Applies a change to Room and queues it, in one transaction. Must run on the writer
+     * thread (inside DbDispatcher.write), so the state it was computed from cannot change
+     * before it is applied.
+     */
+    public void enqueue(OutboxOperation operation) {
+        enqueue(Collections.singletonList(operation));
+    }
+
+    /**
+     * Applies several changes to Room and queues them, all in one transaction
+     * (same threading rule as above). They are sent together in the next batch.
+     */
+    public void enqueue(List<OutboxOperation> operations) {
+        database.runInTransaction(() -> {
+            for (OutboxOperation operation : operations) {
+                applyLocally(operation);
+                outboxDao.insert(operation);
+            }
+        });
+        requestFlush();
+    }
+
+    private void applyLocally(OutboxOperation operation) {
+        String mailId = operation.getMailId();
+        switch (operation.getType()) {
+            case OutboxOperation.STAR:
+                mailDao.setStarFlag(mailId, operation.getFlag());
+                break;
+            case OutboxOperation.SPAM:
+                mailDao.markSpam(mailId, operation.getFlag());
+                break;
+            case OutboxOperation.READ:
+                mailDao.markAsRead(mailId);
+                break;
+            case OutboxOperation.ADD_LABEL:
+                mailDao.insertLabelToMail(new MailLabelCrossRef(mailId, operation.getArgument()));
+                break;
+            case OutboxOperation.REMOVE_LABEL:
+                mailDao.removeLabelFromMail(mailId, operation.getArgument());
+                break;
+            default:
+                mailDao.deleteMailsWithRefs(Collections.singletonList(mailId));
+                break;
+        }
+    }
+
+    /**
+     * Flushes the queue now, unless a flush is about to start anyway.
+     */
+    public void requestFlush() {
+        schedule(0);
+    }
+
+    private synchronized void schedule(long delayMs) {
+        long at = System.currentTimeMillis() + delayMs;
+        if (scheduled != null) {
+            if (scheduledAt <= at) return;
+            scheduled.cancel(false);
+        }
+        scheduledAt = at;
+        scheduled = worker.schedule(this::flush, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Sends the due operations in batches until none is left, then schedules the next flush
+    // for the earliest retry
+    private void flush() {
+        synchronized (this) {
+            scheduled = null;
+        }
+
+        try {
+            while (true) {
+                List<OutboxOperation> queue = outboxDao.getAll();
+                List<OutboxOperation> batch = selectDue(queue, System.currentTimeMillis(), BATCH_SIZE);
+
+                if (batch.isEmpty()) {
+                    long nextAttemptAt = nextAttemptAt(queue);
+                    if (nextAttemptAt != Long.MAX_VALUE) {
+                        schedule(Math.max(0, nextAttemptAt - System.currentTimeMillis()));
+                    }
+                    return;
+                }
+                send(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Flush failed: " + e.getMessage());
+        }
+    }
+
+    // Returns the due operations to send next, in queue order (at most limit). A mail whose
+    // oldest queued operation is waiting for a retry is skipped entirely, so its later
+    // operations are never applied before the earlier one.
+    static List<OutboxOperation> selectDue(List<OutboxOperation> queue, long now, int limit) {
+        Set<String> blocked = new HashSet<>();
+        List<OutboxOperation> batch = new ArrayList<>();
+        for (OutboxOperation operation : queue) {
+            if (blocked.contains(operation.getMailId())) continue;
+            if (operation.getNextAttemptAt() > now) {
+                blocked.add(operation.getMailId());
+                continue;
+            }
+            batch.add(operation);
+            if (batch.size() == limit) break;
+        }
+        return batch;
+    }
+
+    // Returns when the next operation becomes due: the earliest retry among the oldest queued
+    // operation of each mail (later ones wait for it), or Long.MAX_VALUE if the queue is empty
+    static long nextAttemptAt(List<OutboxOperation> queue) {
+        Set<String> seen = new HashSet<>();
+        long next = Long.MAX_VALUE;
+        for (OutboxOperation operation : queue) {
+            if (seen.add(operation.getMailId())) next = Math.min(next, operation.getNextAttemptAt());
+        }
+        return next;
+    }
+
+    /** What happens to a sent operation, given its result. */
+    enum Outcome {
+        DONE,     // applied (or a delete of a mail that is already gone): removed from the queue
+        RETRY,    // kept and sent again after a backoff
+        ROLLBACK  // rejected: dropped, and the server's copy of the mail replaces the local one
+    }
+
+    static Outcome outcomeOf(OutboxOperation operation, int status) {
+        boolean alreadyDeleted = status == HttpURLConnection.HTTP_NOT_FOUND
+                && OutboxOperation.DELETE.equals(operation.getType());
+        if ((status >= 200 && status < 300) || alreadyDeleted) return Outcome.DONE;
+        return isTransient(status) ? Outcome.RETRY : Outcome.ROLLBACK;
+    }
+
+    // Sends one batch and applies all results in one transaction: finished operations are
+    // removed, failed ones are retried later and rejected ones are dropped. The touched mails
+    // the server returns replace the cached ones (still queued changes are reapplied on top),
+    // which also rolls rejected changes back; a rejected mail the server did not return is gone.
+    // Every operation leaves the batch either removed or due later, so flush() terminates.
+    private void send(List<OutboxOperation> batch) throws InterruptedException {
+        if (api == null) api = AuthWebService.create(MailWebService.class);
+
+        Response<MailBatchResponse> response;
+        try {
+            response = api.applyBatch(MailBatchRequest.of(batch)).execute();
+        } catch (IOException e) {
+            Log.w(TAG, "Batch of " + batch.size() + " failed: " + e.getMessage());
+            retryLater(batch);
+            return;
+        }
+
+        MailBatchResponse body = response.body();
+        List<MailBatchResponse.Result> results = body != null ? body.getResults() : null;
+        if (!response.isSuccessful() || results == null || results.size() != batch.size()) {
+            Log.w(TAG, "Batch of " + batch.size() + " failed: HTTP " + response.code());
+            retryLater(batch);
+            return;
+        }
+
+        List<FullMail> mails = new ArrayList<>();
+        Set<String> returnedIds = new HashSet<>();
+        if (body.getMails() != null) {
+            for (MailFromServer mail : body.getMails()) {
+                FullMail fullMail = mail.toFullMail();
+                mails.add(fullMail);
+                returnedIds.add(fullMail.getMail().getId());
+            }
+        }
+
+        dispatcher.writeAndWait(() -> database.runInTransaction(() -> {
+            Set<String> gone = new HashSet<>();
+            for (int i = 0; i < batch.size(); i++) {
+                OutboxOperation operation = batch.get(i);
+                int code = results.get(i).getStatus();
+
+                switch (outcomeOf(operation, code)) {
+                    case DONE:
+                        outboxDao.delete(operation.getId());
+                        break;
+                    case RETRY:
+                        outboxDao.reschedule(operation.getId(), retryAt(operation));
+                        break;
+                    default:
+                        Log.w(TAG, describe(operation) + " rejected: HTTP " + code + " "
+                                + results.get(i).getError() + ", rolling back");
+                        outboxDao.delete(operation.getId());
+                        if (!returnedIds.contains(operation.getMailId())) gone.add(operation.getMailId());
+                        break;
+                }
+            }
+            mailDao.upsertPage(mails);
+            if (!gone.isEmpty()) mailDao.deleteMailsWithRefs(new ArrayList<>(gone));
+        }));
+    }
+
+    // Server or connection trouble (or an expired token) – the same request may succeed later
+    private static boolean isTransient(int code) {
+        return code >= HttpURLConnection.HTTP_INTERNAL_ERROR
+                || code == HttpURLConnection.HTTP_UNAUTHORIZED
+                || code == HttpURLConnection.HTTP_CLIENT_TIMEOUT
+                || code == HTTP_TOO_MANY_REQUESTS
+                || code == HTTP_FAILED_DEPENDENCY;
+    }
+
+    // Keeps the operations queued until their next attempt
+    private void retryLater(List<OutboxOperation> batch) throws InterruptedException {
+        dispatcher.writeAndWait(() -> database.runInTransaction(() -> {
+            for (OutboxOperation operation : batch) {
+                outboxDao.reschedule(operation.getId(), retryAt(operation));
+            }
+        }));
+    }
+
+    // When to try an operation again
+    private static long retryAt(OutboxOperation operation) {
+        return System.currentTimeMillis() + backoffMs(operation.getAttempts());
+    }
+
+    // Exponential backoff after the given number of failed attempts
+    static long backoffMs(int attempts) {
+        return Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << Math.min(attempts, 16));
+    }
+
+    private static String describe(OutboxOperation operation) {
+        return operation.getType() + " " + operation.getMailId();
+    }
+}
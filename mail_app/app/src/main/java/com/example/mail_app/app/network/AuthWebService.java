@@ -1,40 +1,128 @@
 package com.example.mail_app.app.network;
 
+import android.util.Log;
+
 import com.example.mail_app.MyApp;
 import com.example.mail_app.R;
+import com.example.mail_app.auth.TokenHolder;
+import com.example.mail_app.utils.AppConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.Cache;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
+import retrofit2.Response;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
 /**
- * AuthWebService is responsible for creating Retrofit instances
- * that include an Authorization header (Bearer token).
- * Used for all authenticated requests to the backend server.
+ * AuthWebService owns the single HTTP stack of the app: one OkHttpClient (shared connection
+ * pool, dispatcher and TLS sessions) and one Retrofit instance.
+ * Every request gets an Authorization header (Bearer token) with the token currently in
+ * TokenHolder, so the stack survives login and logout; public requests such as login and
+ * register simply go out without a header while no user is logged in.
+ * Responses are kept in an on-disk HTTP cache, so unchanged mail lists are revalidated
+ * with If-None-Match and answered by a 304 instead of being downloaded again.
  */
 public class AuthWebService {
 
+    private static final String HTTP_CACHE_DIR = "http";
+
+    private static volatile Retrofit retrofit;
+    private static volatile Retrofit streamingRetrofit;
+    private static volatile Cache cache;
+
+    // Web service interfaces are created once and shared
+    private static final Map<Class<?>, Object> services = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Object> streamingServices = new ConcurrentHashMap<>();
+
     /**
-     * Creates a Retrofit instance with an Authorization header.
-     *
-     * @param token JWT or access token to attach as "Bearer" in the header.
-     *              If token is null or empty, the header will still be included with "Bearer null".
-     * @return A configured Retrofit instance for authenticated API calls.
+     * Returns the shared Retrofit instance, creating it on first use.
      */
-    public static Retrofit getInstance(String token) {
-        OkHttpClient client = new OkHttpClient.Builder()
-                .addInterceptor(chain -> {
-                    Request request = chain.request().newBuilder()
-                            .addHeader("Authorization", "Bearer " + token)
+    public static Retrofit getInstance() {
+        if (retrofit == null) {
+            synchronized (AuthWebService.class) {
+                if (retrofit == null) {
+                    cache = new Cache(new File(MyApp.getInstance().getCacheDir(), HTTP_CACHE_DIR),
+                            AppConstants.HTTP_CACHE_MAX_BYTES);
+
+                    OkHttpClient client = new OkHttpClient.Builder()
+                            .cache(cache)
+                            .addInterceptor(chain -> {
+                                String token = TokenHolder.getToken();
+                                if (token == null || token.isEmpty()) {
+                                    return chain.proceed(chain.request());
+                                }
+                                Request request = chain.request().newBuilder()
+                                        .header(TokenAuthenticator.HEADER_AUTHORIZATION,
+                                                TokenAuthenticator.bearer(token))
+                                        .build();
+                                return chain.proceed(request);
+                            })
+                            .authenticator(new TokenAuthenticator())
                             .build();
-                    return chain.proceed(request);
-                })
-                .build();
-
-        return new Retrofit.Builder()
-                .baseUrl(MyApp.getInstance().getString(R.string.BaseUrl))
-                .addConverterFactory(GsonConverterFactory.create())
-                .client(client)
-                .build();
+
+                    retrofit = new Retrofit.Builder()
+                            .baseUrl(MyApp.getInstance().getString(R.string.BaseUrl))
+                            .addConverterFactory(GsonConverterFactory.create())
+                            .client(client)
+                            .build();
+
+                    // Same client, but callbacks stay on OkHttp's network thread, where a
+                    // streamed body can be read without blocking the main thread
+                    streamingRetrofit = retrofit.newBuilder()
+                            .callbackExecutor(Runnable::run)
+                            .build();
+                }
+            }
+        }
+        return retrofit;
+    }
+
+    /**
+     * Removes all cached responses (used on logout, so the next user never revalidates
+     * against the previous user's data).
+     */
+    public static void clearCache() {
+        if (cache == null) return;
+        try {
+            cache.evictAll();
+        } catch (IOException e) {
+            Log.w("AuthWebService", "Failed to clear HTTP cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns true if the server answered 304 Not Modified, i.e. the response body was
+     * served from the HTTP cache and matches what was received before.
+     */
+    public static boolean isNotModified(Response<?> response) {
+        okhttp3.Response network = response.raw().networkResponse();
+        return network != null
+                ? network.code() == HttpURLConnection.HTTP_NOT_MODIFIED
+                : response.raw().cacheResponse() != null;
+    }
+
+    /**
+     * Returns the shared implementation of a web service interface.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T create(Class<T> service) {
+        return (T) services.computeIfAbsent(service, type -> getInstance().create(type));
+    }
+
+    /**
+     * Returns the shared implementation of a web service interface whose callbacks run on
+     * the network thread (for @Streaming responses that are read inside the callback).
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T createStreaming(Class<T> service) {
+        getInstance();
+        return (T) streamingServices.computeIfAbsent(service, type -> streamingRetrofit.create(type));
     }
 }
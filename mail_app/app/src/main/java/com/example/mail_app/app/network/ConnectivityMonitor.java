@@ -0,0 +1,60 @@
+package com.example.mail_app.app.network;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Process-wide view of the network state, fed by a single default-network callback.
+ * Reading it costs a field read (no ConnectivityManager query per call), so it can be used
+ * while binding list rows; components that retry work register to hear when the device
+ * gets a connection again.
+ */
+public class ConnectivityMonitor {
+
+    private volatile boolean connected;
+    private final List<Runnable> onAvailableListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Starts listening to the default network. Call once, when the app starts.
+     */
+    public void start(Context context) {
+        ConnectivityManager connectivity = context.getSystemService(ConnectivityManager.class);
+        if (connectivity == null) return;
+
+        connected = connectivity.getActiveNetwork() != null;
+        connectivity.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(@NonNull Network network) {
+                connected = true;
+                for (Runnable listener : onAvailableListeners) {
+                    listener.run();
+                }
+            }
+
+            @Override
+            public void onLost(@NonNull Network network) {
+                connected = false;
+            }
+        });
+    }
+
+    /**
+     * Returns true if the device currently has a default network.
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Runs the listener (on a system binder thread) whenever the device gets a network.
+     */
+    public void addOnAvailableListener(Runnable listener) {
+        onAvailableListeners.add(listener);
+    }
+}
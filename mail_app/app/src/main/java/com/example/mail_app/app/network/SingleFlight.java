@@ -0,0 +1,105 @@
+package com.example.mail_app.app.network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import okhttp3.Request;
+import retrofit2.Call;
+
+/**
+ * Process-wide registry of requests in flight, keyed by method and URL (endpoint and parameters).
+ * A load that is identical to one already running joins it instead of starting another request,
+ * whichever MailViewModel/repository it comes from; every joined caller is notified on completion.
+ */
+public final class SingleFlight {
+
+    /** One caller's interest in a shared request. */
+    public interface Ticket {
+        /**
+         * Stops waiting for the request. The request itself is cancelled once no caller waits for it.
+         */
+        void cancel();
+    }
+
+    private static final Map<String, Flight> flights = new HashMap<>();
+
+    private SingleFlight() {
+        /* Utility class – no instances. */
+    }
+
+    /**
+     * Joins the request already in flight for the same endpoint, or starts this one.
+     *
+     * @param call   The request to run; left unexecuted if an identical one is in flight.
+     * @param onDone Runs when the shared request completed (may be null).
+     * @param start  Enqueues the call; receives the action to run once the request is done.
+     * @return a ticket to stop waiting for the request
+     */
+    public static synchronized Ticket join(Call<?> call, Runnable onDone, Consumer<Runnable> start) {
+        String key = keyOf(call.request());
+        Flight flight = flights.get(key);
+        boolean started = flight == null;
+        if (started) {
+            flight = new Flight(key, call);
+            flights.put(key, flight);
+        }
+
+        Waiter waiter = new Waiter(flight, onDone);
+        flight.waiters.add(waiter);
+
+        if (started) start.accept(flight::complete);
+        return waiter;
+    }
+
+    private static String keyOf(Request request) {
+        return request.method() + " " + request.url();
+    }
+
+    /**
+     * A request in flight and the callers waiting for it.
+     */
+    private static final class Flight {
+        final String key;
+        final Call<?> call;
+        final List<Waiter> waiters = new ArrayList<>();
+
+        Flight(String key, Call<?> call) {
+            this.key = key;
+            this.call = call;
+        }
+
+        void complete() {
+            List<Waiter> done;
+            synchronized (SingleFlight.class) {
+                if (flights.get(key) == this) flights.remove(key);
+                done = new ArrayList<>(waiters);
+                waiters.clear();
+            }
+            for (Waiter waiter : done) {
+                if (waiter.onDone != null) waiter.onDone.run();
+            }
+        }
+    }
+
+    private static final class Waiter implements Ticket {
+        final Flight flight;
+        final Runnable onDone;
+
+        Waiter(Flight flight, Runnable onDone) {
+            this.flight = flight;
+            this.onDone = onDone;
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (SingleFlight.class) {
+                if (!flight.waiters.remove(this) || !flight.waiters.isEmpty()) return;
+                if (flights.get(flight.key) == flight) flights.remove(flight.key);
+            }
+            flight.call.cancel();
+        }
+    }
+}
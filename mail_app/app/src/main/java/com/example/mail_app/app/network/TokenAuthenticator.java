@@ -0,0 +1,50 @@
+package com.example.mail_app.app.network;
+
+import android.util.Log;
+
+import com.example.mail_app.auth.TokenHolder;
+
+import okhttp3.Authenticator;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.Route;
+
+/**
+ * Handles 401 responses of the shared HTTP client.
+ * If the token changed while the request was in flight (e.g. the user logged in again),
+ * the request is retried once with the current token. Otherwise the token was rejected:
+ * the server has no refresh endpoint, so the request fails and the caller handles it.
+ */
+public class TokenAuthenticator implements Authenticator {
+
+    static final String HEADER_AUTHORIZATION = "Authorization";
+
+    @Override
+    public Request authenticate(Route route, Response response) {
+        Request request = response.request();
+        String sentHeader = request.header(HEADER_AUTHORIZATION);
+        if (sentHeader == null) {
+            // Public request (e.g. login with a wrong password) – nothing to retry with
+            return null;
+        }
+
+        if (response.priorResponse() != null) {
+            // Already retried once
+            return null;
+        }
+
+        String token = TokenHolder.getToken();
+        if (token == null || sentHeader.equals(bearer(token))) {
+            Log.w("TokenAuthenticator", "Token rejected for " + request.url().encodedPath());
+            return null;
+        }
+
+        return request.newBuilder()
+                .header(HEADER_AUTHORIZATION, bearer(token))
+                .build();
+    }
+
+    static String bearer(String token) {
+        return "Bearer " + token;
+    }
+}
@@ -5,7 +5,7 @@ import android.content.SharedPreferences;
 
 /**
  * AuthManager handles secure storage and retrieval of authentication data (token and userId)
- * using SharedPreferences.
+ * using SharedPreferences. Token changes are mirrored to TokenHolder for the HTTP client.
  */
 public class AuthManager {
     private static final String PREFS_NAME = "auth";
@@ -18,6 +18,7 @@ public class AuthManager {
     public static void saveToken(Context context, String token) {
         SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         prefs.edit().putString(KEY_TOKEN, token).apply();
+        TokenHolder.setToken(token);
     }
 
     /**
@@ -58,5 +59,6 @@ public class AuthManager {
     public static void clearAll(Context context) {
         SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         prefs.edit().clear().apply();
+        TokenHolder.setToken(null);
     }
 }
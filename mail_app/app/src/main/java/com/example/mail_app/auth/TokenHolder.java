@@ -0,0 +1,44 @@
+package com.example.mail_app.auth;
+
+import com.example.mail_app.MyApp;
+
+/**
+ * In-memory copy of the current auth token, read by the shared HTTP client on every request.
+ * AuthManager keeps it in sync with SharedPreferences, so requests never hit the disk
+ * and always use the token of the current session.
+ */
+public final class TokenHolder {
+
+    private static volatile String token;
+    private static volatile boolean loaded = false;
+
+    private TokenHolder() {
+        /* Utility class – no instances. */
+    }
+
+    /**
+     * Returns the current token, or null if no user is logged in.
+     * The first call loads the token stored by a previous session.
+     */
+    public static String getToken() {
+        if (!loaded) {
+            synchronized (TokenHolder.class) {
+                if (!loaded) {
+                    token = AuthManager.getToken(MyApp.getInstance());
+                    loaded = true;
+                }
+            }
+        }
+        return token;
+    }
+
+    /**
+     * Replaces the current token (null clears it). Called by AuthManager.
+     */
+    static void setToken(String newToken) {
+        synchronized (TokenHolder.class) {
+            token = newToken;
+            loaded = true;
+        }
+    }
+}
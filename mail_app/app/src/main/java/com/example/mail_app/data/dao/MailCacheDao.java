@@ -0,0 +1,91 @@
+package com.example.mail_app.data.dao;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.SkipQueryVerification;
+import androidx.room.Transaction;
+
+import java.util.List;
+
+/**
+ * Data Access Object used by MailCacheCompactor to keep the local mail cache within its budget.
+ */
+@Dao
+public interface MailCacheDao {
+
+    // Mails that may be evicted: starred mails and drafts are always kept
+    String EVICTABLE = "FROM mail LEFT JOIN mail_access ON mail_access.mailId = mail.id " +
+            "WHERE mail.isStar = 0 AND mail.isDraft = 0 ";
+
+    // Least recently used first: a mail counts as used when it was sent or last opened
+    String LRU_ORDER = "ORDER BY max(ifnull(mail_access.lastViewedAt, 0), ifnull(mail.sentAt, 0)) ASC " +
+            "LIMIT :limit";
+
+    // Returns the number of cached mails
+    @Query("SELECT COUNT(*) FROM mail")
+    int countMails();
+
+    // Returns the stored size of all cached bodies
+    @Query("SELECT ifnull(SUM(length(content)), 0) FROM mail_body")
+    long getBodyBytes();
+
+    // Returns the size of the body search index (its segment blocks and roots), stale entries included.
+    // Its FTS4 shadow tables are not Room tables (see MailSearchIndex), so the query is not verified.
+    @SkipQueryVerification
+    @Query("SELECT (SELECT ifnull(SUM(length(block)), 0) FROM mail_body_fts_segments) + " +
+            "(SELECT ifnull(SUM(length(root)), 0) FROM mail_body_fts_segdir)")
+    long getBodyIndexBytes();
+
+    /**
+     * Returns the storage the byte budget applies to: the cached bodies and their search index.
+     */
+    default long getStoredBodyBytes() {
+        return getBodyBytes() + getBodyIndexBytes();
+    }
+
+    // Returns the IDs of the least recently used evictable mails
+    @Query("SELECT mail.id " + EVICTABLE + LRU_ORDER)
+    List<String> getEvictableMailIds(int limit);
+
+    // Returns the IDs of the least recently used evictable mails that still have a cached body
+    @Query("SELECT mail.id " + EVICTABLE + "AND mail.id IN (SELECT mailId FROM mail_body) " + LRU_ORDER)
+    List<String> getEvictableBodyIds(int limit);
+
+    // Deletes the cached bodies of the given mails, keeping the mail rows.
+    // Their body index entries go stale and stop matching (see MailSearchIndex).
+    @Query("DELETE FROM mail_body WHERE mailId IN (:mailIds)")
+    void deleteBodies(List<String> mailIds);
+
+    // Deletes the given mails (their bodies, index rows and counters follow via triggers)
+    @Query("DELETE FROM mail WHERE id IN (:mailIds)")
+    void deleteMails(List<String> mailIds);
+
+    @Query("DELETE FROM mail_label_cross_ref WHERE mailId NOT IN (SELECT id FROM mail)")
+    void deleteOrphanLabelRefs();
+
+    @Query("DELETE FROM mail_recipient_cross_ref WHERE mailId NOT IN (SELECT id FROM mail)")
+    void deleteOrphanRecipients();
+
+    @Query("DELETE FROM mail_body WHERE mailId NOT IN (SELECT id FROM mail)")
+    void deleteOrphanBodies();
+
+    @Query("DELETE FROM mail_access WHERE mailId NOT IN (SELECT id FROM mail)")
+    void deleteOrphanAccess();
+
+    // Deletes users that are neither the sender nor a recipient of any cached mail
+    @Query("DELETE FROM public_users WHERE userId NOT IN (SELECT `from` FROM mail WHERE `from` IS NOT NULL) " +
+            "AND userId NOT IN (SELECT userId FROM mail_recipient_cross_ref)")
+    void deleteOrphanUsers();
+
+    /**
+     * Deletes rows that no longer belong to any cached mail.
+     */
+    @Transaction
+    default void deleteOrphans() {
+        deleteOrphanLabelRefs();
+        deleteOrphanRecipients();
+        deleteOrphanBodies();
+        deleteOrphanAccess();
+        deleteOrphanUsers();
+    }
+}
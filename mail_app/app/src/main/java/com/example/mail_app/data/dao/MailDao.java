@@ -5,18 +5,71 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.SkipQueryVerification;
 import androidx.room.Transaction;
 
+import com.example.mail_app.data.db.MailBodyStore;
+import com.example.mail_app.data.db.MailSearchIndex;
 import com.example.mail_app.data.entity.FullMail;
 import com.example.mail_app.data.entity.Mail;
+import com.example.mail_app.data.entity.MailBody;
 import com.example.mail_app.data.entity.MailLabelCrossRef;
 import com.example.mail_app.data.entity.MailRecipientCrossRef;
+import com.example.mail_app.data.entity.MailSearchHit;
+import com.example.mail_app.data.entity.MailSummary;
+import com.example.mail_app.data.entity.PublicUser;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Dao
 public interface MailDao {
 
+    // SQLite limits bound parameters per statement, so large ID lists are queried in chunks
+    int MAX_IDS_PER_QUERY = 500;
+
+    // Keyset condition for list pages: only mails older than the cursor, ties broken by ID.
+    // The redundant "sentAt <=" bound lets SQLite seek the (…, sentAt DESC) indexes to the cursor.
+    String AFTER_CURSOR = "AND mail.sentAt <= :beforeSentAt " +
+            "AND (mail.sentAt < :beforeSentAt OR mail.id < :beforeId) ";
+
+    // Keyset end of a page: only mails not older than the end cursor (the last mail of the page).
+    // Pages without an end pass MailPageCursor.LAST.
+    String UNTIL_CURSOR = "AND mail.sentAt >= :untilSentAt " +
+            "AND (mail.sentAt > :untilSentAt OR mail.id >= :untilId) ";
+
+    // List order matching the keyset cursor
+    String PAGE_ORDER = "ORDER BY mail.sentAt DESC, mail.id DESC LIMIT :limit";
+
+    // The same cursor bounds and order on a label list, over the label reference's copy of sentAt,
+    // so the rows come in order from the (labelId, sentAt DESC, mailId DESC) index
+    String LABEL_AFTER_CURSOR = "AND filter.sentAt <= :beforeSentAt " +
+            "AND (filter.sentAt < :beforeSentAt OR filter.mailId < :beforeId) ";
+    String LABEL_UNTIL_CURSOR = "AND filter.sentAt >= :untilSentAt " +
+            "AND (filter.sentAt > :untilSentAt OR filter.mailId >= :untilId) ";
+    String LABEL_PAGE_ORDER = "ORDER BY filter.sentAt DESC, filter.mailId DESC LIMIT :limit";
+
+    // MailSummary columns: the sender comes from a join and the labels are packed into one
+    // column (id, name, color joined by unit/record separators), so a page is a single query.
+    // group_concat keeps the order of its input rows, which the inner query fixes (by name, then
+    // ID), so an unchanged mail always packs the same labelData and compares equal.
+    String SUMMARY_SELECT = "SELECT mail.id AS id, mail.`from` AS senderId, " +
+            "public_users.name AS senderName, public_users.profileImage AS senderImage, " +
+            "mail.subject AS subject, mail.snippet AS snippet, mail.sentAt AS sentAt, mail.type AS type, " +
+            "mail.isDraft AS isDraft, mail.isSpam AS isSpam, mail.isStar AS isStar, mail.isRead AS isRead, " +
+            "(SELECT group_concat(entry, char(30)) FROM (SELECT label.id || char(31) || " +
+            "ifnull(label.name, '') || char(31) || ifnull(label.color, '') AS entry " +
+            "FROM mail_label_cross_ref JOIN label ON label.id = mail_label_cross_ref.labelId " +
+            "WHERE mail_label_cross_ref.mailId = mail.id " +
+            "ORDER BY label.name COLLATE NOCASE, label.id)) AS labelData " +
+            "FROM mail LEFT JOIN public_users ON public_users.userId = mail.`from` ";
+
     // Retrieves a full mail (with recipients and labels) by ID
     @Transaction
     @Query("SELECT * FROM mail WHERE id = :mailId")
@@ -27,64 +80,319 @@ public interface MailDao {
     @Query("SELECT * FROM mail WHERE id = :mailId")
     LiveData<FullMail> getLiveMailById(String mailId);
 
-    // Retrieves all non-spam mails with recipients and labels
-    @Transaction
-    @Query("SELECT * FROM mail WHERE isSpam = 0")
-    List<FullMail> getAllMails();
+    // Retrieves the page of non-spam mails after the (beforeSentAt, beforeId) cursor,
+    // down to the (untilSentAt, untilId) one
+    @Query(SUMMARY_SELECT + "WHERE mail.isSpam = 0 " + AFTER_CURSOR + UNTIL_CURSOR + PAGE_ORDER)
+    List<MailSummary> getAllMailsPage(long beforeSentAt, String beforeId,
+                                      long untilSentAt, String untilId, int limit);
 
-    // Retrieves inbox mails (received and not spam)
-    @Transaction
-    @Query("SELECT * FROM mail WHERE type = 'received' AND isSpam = 0")
-    List<FullMail> getInboxMails();
+    // Retrieves the next page of inbox mails (received and not spam)
+    @Query(SUMMARY_SELECT + "WHERE mail.type = 'received' AND mail.isSpam = 0 " +
+            AFTER_CURSOR + UNTIL_CURSOR + PAGE_ORDER)
+    List<MailSummary> getInboxPage(long beforeSentAt, String beforeId,
+                                   long untilSentAt, String untilId, int limit);
 
-    // Retrieves sent mails (not drafts)
-    @Transaction
-    @Query("SELECT * FROM mail WHERE type = 'sent' AND isDraft = 0")
-    List<FullMail> getSentMails();
+    // Retrieves the next page of sent mails (not drafts)
+    @Query(SUMMARY_SELECT + "WHERE mail.type = 'sent' AND mail.isDraft = 0 " +
+            AFTER_CURSOR + UNTIL_CURSOR + PAGE_ORDER)
+    List<MailSummary> getSentPage(long beforeSentAt, String beforeId,
+                                  long untilSentAt, String untilId, int limit);
 
-    // Retrieves draft mails
+    // Retrieves the next page of draft mails
+    @Query(SUMMARY_SELECT + "WHERE mail.isDraft = 1 " + AFTER_CURSOR + UNTIL_CURSOR + PAGE_ORDER)
+    List<MailSummary> getDraftPage(long beforeSentAt, String beforeId,
+                                   long untilSentAt, String untilId, int limit);
+
+    // Retrieves the next page of spam mails
+    @Query(SUMMARY_SELECT + "WHERE mail.isSpam = 1 " + AFTER_CURSOR + UNTIL_CURSOR + PAGE_ORDER)
+    List<MailSummary> getSpamPage(long beforeSentAt, String beforeId,
+                                  long untilSentAt, String untilId, int limit);
+
+    // Retrieves the next page of starred mails
+    @Query(SUMMARY_SELECT + "WHERE mail.isStar = 1 " + AFTER_CURSOR + UNTIL_CURSOR + PAGE_ORDER)
+    List<MailSummary> getStarredPage(long beforeSentAt, String beforeId,
+                                     long untilSentAt, String untilId, int limit);
+
+    // Returns subject/sender/recipient index hits (mail ID, matchinfo blob, send time) for a MATCH term
+    @Query("SELECT mail.id AS mailId, matchinfo(mail_fts, 'pcx') AS matchInfo, mail.sentAt AS sentAt " +
+            "FROM mail_fts JOIN mail ON mail.rowid = mail_fts.rowid " +
+            "WHERE mail_fts MATCH :match")
+    List<MailSearchHit> searchIndex(String match);
+
+    // Returns body index hits for a MATCH term; entries of replaced or evicted bodies match no
+    // mail_body row and drop out. mail_body_fts is not a Room entity (see MailSearchIndex),
+    // so the body index queries cannot be verified at build time.
+    @SkipQueryVerification
+    @Query("SELECT mail.id AS mailId, matchinfo(mail_body_fts, 'pcx') AS matchInfo, mail.sentAt AS sentAt " +
+            "FROM mail_body_fts JOIN mail_body ON mail_body.docId = mail_body_fts.docid " +
+            "JOIN mail ON mail.id = mail_body.mailId " +
+            "WHERE mail_body_fts MATCH :match")
+    List<MailSearchHit> searchBodyIndex(String match);
+
+    // Retrieves mail summaries for the given IDs (in no particular order)
+    @Query(SUMMARY_SELECT + "WHERE mail.id IN (:mailIds)")
+    List<MailSummary> getSummariesByIds(List<String> mailIds);
+
+    // Retrieves the summary of a single mail
+    @Query(SUMMARY_SELECT + "WHERE mail.id = :mailId")
+    MailSummary getSummaryById(String mailId);
+
+    // Full-text search across subject, body, sender, sender name, and recipients.
+    // Every word must prefix-match in the mail_fts or mail_body_fts index; results are ranked by
+    // relevance, then by date. Only the mails in the [offset, offset + limit) window of the
+    // ranking are loaded.
     @Transaction
-    @Query("SELECT * FROM mail WHERE isDraft = 1")
-    List<FullMail> getDraftMails();
+    default List<MailSummary> searchMails(String query, int offset, int limit) {
+        List<String> terms = MailSearchIndex.toMatchTerms(query);
+        if (terms.isEmpty()) return new ArrayList<>();
+
+        List<List<MailSearchHit>> fieldHits = new ArrayList<>(terms.size());
+        List<List<MailSearchHit>> bodyHits = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            fieldHits.add(searchIndex(term));
+            bodyHits.add(searchBodyIndex(term));
+        }
+
+        List<MailSearchHit> ranked = MailSearchIndex.rank(fieldHits, bodyHits);
+        List<String> ids = new ArrayList<>();
+        for (int i = Math.max(0, offset); i < ranked.size() && i < offset + limit; i++) {
+            ids.add(ranked.get(i).getMailId());
+        }
+
+        Map<String, MailSummary> byId = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_QUERY) {
+            List<String> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IDS_PER_QUERY));
+            for (MailSummary mail : getSummariesByIds(chunk)) {
+                byId.put(mail.getId(), mail);
+            }
+        }
+
+        List<MailSummary> results = new ArrayList<>();
+        for (String id : ids) {
+            MailSummary mail = byId.get(id);
+            if (mail != null) results.add(mail);
+        }
+        return results;
+    }
+
+    // Retrieves the next page of mails associated with a specific label ID
+    @Query(SUMMARY_SELECT +
+            "INNER JOIN mail_label_cross_ref AS filter ON filter.mailId = mail.id " +
+            "WHERE filter.labelId = :labelId " + LABEL_AFTER_CURSOR + LABEL_UNTIL_CURSOR + LABEL_PAGE_ORDER)
+    List<MailSummary> getMailsByLabelPage(String labelId, long beforeSentAt, String beforeId,
+                                          long untilSentAt, String untilId, int limit);
+
+    // Inserts a batch of mails, replacing existing ones
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertMails(List<Mail> mails);
+
+    // Inserts a batch of (encoded) mail bodies, replacing existing ones; returns their new docIds
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    List<Long> insertBodies(List<MailBody> bodies);
+
+    // Retrieves the stored bodies of the given mails
+    @Query("SELECT * FROM mail_body WHERE mailId IN (:mailIds)")
+    List<MailBody> getBodies(List<String> mailIds);
+
+    // Adds the plain-text body stored under a docId to the body search index.
+    // Bodies are stored compressed, so SQL triggers cannot index them.
+    @SkipQueryVerification
+    @Query("INSERT INTO mail_body_fts (docid, body) VALUES (:docId, :body)")
+    void indexBody(long docId, String body);
+
+    // Inserts a batch of label references
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertLabelRefs(List<MailLabelCrossRef> labelRefs);
+
+    // Inserts a batch of senders
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertSenders(List<PublicUser> senders);
+
+    // Deletes all recipients (TO) of the given mails
+    @Query("DELETE FROM mail_recipient_cross_ref WHERE mailId IN (:mailIds)")
+    void deleteRecipientsByMailIds(List<String> mailIds);
+
+    // Deletes all labels linked to the given mails
+    @Query("DELETE FROM mail_label_cross_ref WHERE mailId IN (:mailIds)")
+    void deleteLabelsByMailIds(List<String> mailIds);
 
-    // Retrieves spam mails
+    /**
+     * Stores and indexes the given bodies (by mail ID). Bodies equal to the stored ones are
+     * skipped: a stored body keeps its docId, and re-saving it would leave a stale index entry.
+     */
+    default void upsertBodies(Map<String, String> bodies) {
+        List<String> mailIds = new ArrayList<>(bodies.keySet());
+        Map<String, MailBody> stored = new HashMap<>();
+        for (int from = 0; from < mailIds.size(); from += MAX_IDS_PER_QUERY) {
+            List<String> chunk = mailIds.subList(from, Math.min(mailIds.size(), from + MAX_IDS_PER_QUERY));
+            for (MailBody body : getBodies(chunk)) {
+                stored.put(body.getMailId(), body);
+            }
+        }
+
+        List<MailBody> changed = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        for (Map.Entry<String, String> body : bodies.entrySet()) {
+            MailBody encoded = MailBodyStore.encode(body.getKey(), body.getValue());
+            MailBody old = stored.get(body.getKey());
+            if (old != null && old.isCompressed() == encoded.isCompressed()
+                    && Arrays.equals(old.getContent(), encoded.getContent())) continue;
+            changed.add(encoded);
+            texts.add(body.getValue());
+        }
+        if (changed.isEmpty()) return;
+
+        List<Long> docIds = insertBodies(changed);
+        for (int i = 0; i < docIds.size(); i++) {
+            indexBody(docIds.get(i), texts.get(i));
+        }
+    }
+
+    /**
+     * Saves a page of mails converted from the server in a single transaction:
+     * senders (deduplicated), mails, encoded bodies, recipients and label references.
+     * Recipients and labels of each mail are replaced by the server's; draft recipients are
+     * merged instead, since the server may not return them for drafts.
+     */
     @Transaction
-    @Query("SELECT * FROM mail WHERE isSpam = 1")
-    List<FullMail> getSpamMails();
+    default void upsertPage(List<FullMail> page) {
+        if (page == null || page.isEmpty()) return;
+
+        Map<String, PublicUser> senders = new LinkedHashMap<>();
+        List<Mail> mails = new ArrayList<>(page.size());
+        List<String> mailIds = new ArrayList<>(page.size());
+        List<String> sentMailIds = new ArrayList<>();
+        List<MailRecipientCrossRef> recipients = new ArrayList<>();
+        List<MailLabelCrossRef> labelRefs = new ArrayList<>();
+        Map<String, String> bodies = new LinkedHashMap<>();
+
+        for (FullMail fullMail : page) {
+            Mail mail = fullMail.getMail();
+            mails.add(mail);
+            if (mail.getBody() != null) bodies.put(mail.getId(), mail.getBody());
+            mailIds.add(mail.getId());
+            if (!mail.isDraft()) sentMailIds.add(mail.getId());
+            recipients.addAll(fullMail.getRecipientRefs());
+            labelRefs.addAll(fullMail.getLabelRefs());
+
+            PublicUser sender = fullMail.getFromUser();
+            if (sender != null) senders.put(sender.getUserId(), sender);
+        }
+
+        // Senders first, so the search index picks up their names when the mails are inserted
+        insertSenders(new ArrayList<>(senders.values()));
+        insertMails(mails);
+        upsertBodies(bodies);
+
+        for (int from = 0; from < mailIds.size(); from += MAX_IDS_PER_QUERY) {
+            deleteLabelsByMailIds(mailIds.subList(from, Math.min(mailIds.size(), from + MAX_IDS_PER_QUERY)));
+        }
+        for (int from = 0; from < sentMailIds.size(); from += MAX_IDS_PER_QUERY) {
+            deleteRecipientsByMailIds(sentMailIds.subList(from, Math.min(sentMailIds.size(), from + MAX_IDS_PER_QUERY)));
+        }
+        insertRecipients(recipients);
+        insertLabelRefs(labelRefs);
+
+        // The server may not have seen the queued changes yet
+        reapplyOutbox();
+    }
 
-    // Retrieves starred mails
+    // Latest queued label change per (mail, label): only that one decides whether the label is set
+    String LATEST_LABEL_OP = "o.id = (SELECT MAX(p.id) FROM mail_outbox p WHERE p.mailId = o.mailId " +
+            "AND p.argument = o.argument AND p.type IN ('ADD_LABEL', 'REMOVE_LABEL')) ";
+
+    // Sets the star flag to the latest queued STAR operation of each mail
+    @Query("UPDATE mail SET isStar = (SELECT CAST(o.argument AS INTEGER) FROM mail_outbox o " +
+            "WHERE o.mailId = mail.id AND o.type = 'STAR' ORDER BY o.id DESC LIMIT 1) " +
+            "WHERE id IN (SELECT mailId FROM mail_outbox WHERE type = 'STAR')")
+    void reapplyQueuedStars();
+
+    // Sets the spam flag to the latest queued SPAM operation of each mail
+    @Query("UPDATE mail SET isSpam = (SELECT CAST(o.argument AS INTEGER) FROM mail_outbox o " +
+            "WHERE o.mailId = mail.id AND o.type = 'SPAM' ORDER BY o.id DESC LIMIT 1) " +
+            "WHERE id IN (SELECT mailId FROM mail_outbox WHERE type = 'SPAM')")
+    void reapplyQueuedSpam();
+
+    // Marks mails with a queued READ operation as read
+    @Query("UPDATE mail SET isRead = 1 WHERE isRead = 0 AND id IN (SELECT mailId FROM mail_outbox WHERE type = 'READ')")
+    void reapplyQueuedReads();
+
+    // Re-adds labels whose latest queued change adds them
+    @Query("INSERT OR IGNORE INTO mail_label_cross_ref (mailId, labelId) " +
+            "SELECT o.mailId, o.argument FROM mail_outbox o " +
+            "WHERE o.type = 'ADD_LABEL' AND o.mailId IN (SELECT id FROM mail) AND " + LATEST_LABEL_OP)
+    void reapplyQueuedLabelAdds();
+
+    // Removes labels whose latest queued change removes them
+    @Query("DELETE FROM mail_label_cross_ref WHERE EXISTS (SELECT 1 FROM mail_outbox o " +
+            "WHERE o.mailId = mail_label_cross_ref.mailId AND o.argument = mail_label_cross_ref.labelId " +
+            "AND o.type = 'REMOVE_LABEL' AND " + LATEST_LABEL_OP + ")")
+    void reapplyQueuedLabelRemovals();
+
+    // Returns the IDs of mails with a queued delete
+    @Query("SELECT mailId FROM mail_outbox WHERE type = 'DELETE'")
+    List<String> getQueuedDeletes();
+
+    /**
+     * Re-applies the changes still waiting in the outbox on top of the cached mails,
+     * so data saved from the server never undoes an optimistic change before it was sent.
+     */
     @Transaction
-    @Query("SELECT * FROM mail WHERE isStar = 1")
-    List<FullMail> getStarredMails();
+    default void reapplyOutbox() {
+        reapplyQueuedStars();
+        reapplyQueuedSpam();
+        reapplyQueuedReads();
+        reapplyQueuedLabelAdds();
+        reapplyQueuedLabelRemovals();
+        deleteMailsWithRefs(getQueuedDeletes());
+    }
 
-    // Full-text search across subject, body, sender, sender name, and recipients
+    /**
+     * Removes every cached mail (with its references) that is not in the given set.
+     * Used after a full reload has been written chunk by chunk; orphaned senders are
+     * left to the cache compactor.
+     */
     @Transaction
-    @Query("SELECT DISTINCT * FROM mail " +
-            "LEFT JOIN public_users AS from_user ON \"from\" = from_user.userId " +
-            "LEFT JOIN mail_recipient_cross_ref ON id = mail_recipient_cross_ref.mailId " +
-            "WHERE subject LIKE '%' || :query || '%' OR " +
-            "body LIKE '%' || :query || '%' OR " +
-            "\"from\" LIKE '%' || :query || '%' OR " +
-            "from_user.name LIKE '%' || :query || '%' OR " +
-            "mail_recipient_cross_ref.userId LIKE '%' || :query || '%' " +
-            "ORDER BY mail.sentAt DESC")
-    List<FullMail> searchMails(String query);
-
-    // Retrieves mails associated with a specific label ID
+    default void retainMails(Set<String> keepIds) {
+        List<String> stale = new ArrayList<>();
+        for (String id : getAllMailIds()) {
+            if (!keepIds.contains(id)) stale.add(id);
+        }
+        deleteMailsWithRefs(stale);
+    }
+
+    /**
+     * Applies one page of a delta sync in a single transaction:
+     * upserts the changed mails and removes the deleted ones with their references.
+     */
     @Transaction
-    @Query("SELECT * FROM mail " +
-            "INNER JOIN mail_label_cross_ref ON mail.id = mail_label_cross_ref.mailId " +
-            "WHERE mail_label_cross_ref.labelId = :labelId")
-    List<FullMail> getMailsByLabel(String labelId);
+    default void applyChanges(List<FullMail> changed, List<String> deletedIds) {
+        upsertPage(changed);
+        if (deletedIds != null) deleteMailsWithRefs(deletedIds);
+    }
 
-    // Inserts a single mail object into the database
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertMail(Mail mail);
+    // Deletes the given mails with their recipients and labels, in chunks
+    default void deleteMailsWithRefs(List<String> mailIds) {
+        for (int from = 0; from < mailIds.size(); from += MAX_IDS_PER_QUERY) {
+            List<String> chunk = mailIds.subList(from, Math.min(mailIds.size(), from + MAX_IDS_PER_QUERY));
+            deleteMailsByIds(chunk);
+            deleteRecipientsByMailIds(chunk);
+            deleteLabelsByMailIds(chunk);
+        }
+    }
+
+    // Returns the IDs of all cached mails
+    @Query("SELECT id FROM mail")
+    List<String> getAllMailIds();
 
     // Deletes a mail by its ID
     @Query("DELETE FROM mail WHERE id = :mailId")
     void deleteMailById(String mailId);
 
+    // Deletes the given mails
+    @Query("DELETE FROM mail WHERE id IN (:mailIds)")
+    void deleteMailsByIds(List<String> mailIds);
+
     // Deletes all recipients (TO) related to a mail
     @Query("DELETE FROM mail_recipient_cross_ref WHERE mailId = :mailId")
     void deleteRecipientsByMailId(String mailId);
@@ -101,10 +409,52 @@ public interface MailDao {
     @Query("UPDATE mail SET isSpam = NOT isSpam WHERE id = :mailId")
     void setSpam(String mailId);
 
+    // Returns the star flag of a cached mail, or null if it is not cached
+    @Query("SELECT isStar FROM mail WHERE id = :mailId")
+    Boolean isStarred(String mailId);
+
+    // Returns the read flag of a cached mail, or null if it is not cached
+    @Query("SELECT isRead FROM mail WHERE id = :mailId")
+    Boolean isRead(String mailId);
+
+    // Sets the isStar flag of a mail
+    @Query("UPDATE mail SET isStar = :isStar WHERE id = :mailId")
+    void setStarFlag(String mailId, boolean isStar);
+
+    // Sets the isSpam flag of a mail
+    @Query("UPDATE mail SET isSpam = :isSpam WHERE id = :mailId")
+    void setSpamFlag(String mailId, boolean isSpam);
+
+    // Marks or unmarks a mail as spam like the server does: spam mails lose their star and labels
+    @Transaction
+    default void markSpam(String mailId, boolean isSpam) {
+        setSpamFlag(mailId, isSpam);
+        if (isSpam) {
+            setStarFlag(mailId, false);
+            deleteLabelsByMailId(mailId);
+        }
+    }
+
     // Marks a mail as read (isRead = 1)
     @Query("UPDATE mail SET isRead = 1 WHERE id = :mailId")
     void markAsRead(String mailId);
 
+    // Records when a mail was opened (used for least-recently-viewed cache eviction)
+    @Query("INSERT OR REPLACE INTO mail_access (mailId, lastViewedAt) VALUES (:mailId, :viewedAt)")
+    void markViewed(String mailId, long viewedAt);
+
+    // Returns the server change time of a cached mail (null if not cached or not known)
+    @Query("SELECT updatedAt FROM mail WHERE id = :mailId")
+    Date getUpdatedAt(String mailId);
+
+    // Returns true if the body of a mail is cached (it may have been evicted)
+    @Query("SELECT EXISTS (SELECT 1 FROM mail_body WHERE mailId = :mailId)")
+    boolean hasBody(String mailId);
+
+    // Counts how many of the given mails are cached (some may have been evicted)
+    @Query("SELECT COUNT(*) FROM mail WHERE id IN (:mailIds)")
+    int countCachedMails(List<String> mailIds);
+
     // Inserts a list of recipients (TO) for a mail
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insertRecipients(List<MailRecipientCrossRef> recipients);
@@ -120,4 +470,16 @@ public interface MailDao {
     // Deletes all mails from the table
     @Query("DELETE FROM mail")
     void clearAllMails();
+
+    // Deletes all recipient references
+    @Query("DELETE FROM mail_recipient_cross_ref")
+    void clearAllRecipients();
+
+    // Deletes all label references
+    @Query("DELETE FROM mail_label_cross_ref")
+    void clearAllLabelRefs();
+
+    // Deletes all cached senders
+    @Query("DELETE FROM public_users")
+    void clearAllSenders();
 }
@@ -0,0 +1,28 @@
+package com.example.mail_app.data.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import com.example.mail_app.data.entity.MailboxCounter;
+
+import java.util.List;
+
+/**
+ * Data Access Object for the trigger-maintained mailbox counters.
+ */
+@Dao
+public interface MailboxCounterDao {
+
+    /**
+     * Observes the counters of all categories and labels.
+     */
+    @Query("SELECT * FROM mailbox_counters")
+    LiveData<List<MailboxCounter>> getAll();
+
+    /**
+     * Retrieves the counter of a single mailbox.
+     */
+    @Query("SELECT * FROM mailbox_counters WHERE mailbox = :mailbox")
+    MailboxCounter getByMailbox(String mailbox);
+}
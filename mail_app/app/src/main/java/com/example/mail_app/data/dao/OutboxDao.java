@@ -0,0 +1,40 @@
+package com.example.mail_app.data.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import com.example.mail_app.data.entity.OutboxOperation;
+
+import java.util.List;
+
+/**
+ * Data Access Object for the queue of mail changes waiting to be sent (see MailOutbox).
+ */
+@Dao
+public interface OutboxDao {
+
+    // Queues an operation
+    @Insert
+    long insert(OutboxOperation operation);
+
+    // Returns all queued operations, oldest first
+    @Query("SELECT * FROM mail_outbox ORDER BY id ASC")
+    List<OutboxOperation> getAll();
+
+    // Records a failed attempt and when to try again
+    @Query("UPDATE mail_outbox SET attempts = attempts + 1, nextAttemptAt = :nextAttemptAt WHERE id = :id")
+    void reschedule(long id, long nextAttemptAt);
+
+    // Makes every operation due now (e.g. when the network comes back)
+    @Query("UPDATE mail_outbox SET nextAttemptAt = 0")
+    void makeAllDue();
+
+    // Removes an operation that was sent or rejected
+    @Query("DELETE FROM mail_outbox WHERE id = :id")
+    void delete(long id);
+
+    // Deletes all queued operations
+    @Query("DELETE FROM mail_outbox")
+    void clear();
+}
@@ -0,0 +1,228 @@
+package com.example.mail_app.data.db;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared background executor for all Room work of the data layer:
+ * - One writer thread, so writes are applied in the order they were submitted
+ * - A small reader pool with priority lanes: user-visible reads (including Room's observed
+ *   queries, see getQueryExecutor) run before background work such as cache compaction checks
+ * - Queue-depth and wait-time metrics per lane, with a warning for tasks that waited too long
+ *   and an optional periodic log of all lanes (debug builds)
+ */
+public final class DbDispatcher {
+
+    private static final String TAG = "DbDispatcher";
+
+    /** Lanes of the reader pool, in the order they are served. */
+    public enum Priority { USER, BACKGROUND }
+
+    private static final int READER_THREADS = 2;
+
+    // Background reads are dropped once this many reads are already waiting
+    private static final int BACKGROUND_READ_LIMIT = 64;
+
+    // Tasks that waited longer than this are logged together with the queue depth
+    private static final long SLOW_WAIT_MS = 250;
+
+    private final Lane writeLane = new Lane("write");
+    private final Lane userReadLane = new Lane("read/user");
+    private final Lane backgroundReadLane = new Lane("read/background");
+
+    private final ThreadPoolExecutor writer;
+    private volatile Thread writerThread;
+    private final ThreadPoolExecutor readers;
+
+    // Keeps FIFO order between reads of the same priority
+    private final AtomicLong sequence = new AtomicLong();
+
+    public DbDispatcher() {
+        // Unbounded queue: every write runs on the writer thread, in order, and submitting never
+        // blocks (writes are submitted from the main thread). Producers that could run far ahead
+        // of the writer use writeAndWait; a backed-up queue shows in the wait-time warnings.
+        writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> writerThread = newThread("db-writer", runnable));
+
+        // Unbounded priority queue, so the pool never grows past READER_THREADS
+        readers = new ThreadPoolExecutor(READER_THREADS, READER_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(),
+                threadFactory("db-reader"));
+    }
+
+    /**
+     * Runs a task that writes to the database. Writes run one at a time, in submission order.
+     */
+    public void write(Runnable task) {
+        writer.execute(new Task(task, writeLane, 0, sequence.incrementAndGet()));
+    }
+
+    /**
+     * Runs a write and waits until it finished. Lets a producer (e.g. streaming ingestion)
+     * hand data to the writer without running ahead of it. Runs inline on the writer thread.
+     */
+    public void writeAndWait(Runnable task) throws InterruptedException {
+        if (Thread.currentThread() == writerThread) {
+            task.run();
+            return;
+        }
+
+        CountDownLatch done = new CountDownLatch(1);
+        write(() -> {
+            try {
+                task.run();
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+    }
+
+    /**
+     * Runs a user-visible read on the reader pool.
+     */
+    public void read(Runnable task) {
+        read(Priority.USER, task);
+    }
+
+    /**
+     * Runs a read on the reader pool. Background reads are dropped when the pool is backed up.
+     *
+     * @return False if the read was dropped (the caller may retry later).
+     */
+    public boolean read(Priority priority, Runnable task) {
+        if (priority == Priority.BACKGROUND && readers.getQueue().size() >= BACKGROUND_READ_LIMIT) {
+            backgroundReadLane.dropped.incrementAndGet();
+            return false;
+        }
+
+        Lane lane = priority == Priority.USER ? userReadLane : backgroundReadLane;
+        readers.execute(new Task(task, lane, priority.ordinal(), sequence.incrementAndGet()));
+        return true;
+    }
+
+    /**
+     * Returns an executor running tasks as user-visible reads, for Room's query executor
+     * (observed queries then share the reader pool and its metrics with the data layer).
+     */
+    public Executor getQueryExecutor() {
+        return task -> read(Priority.USER, task);
+    }
+
+    /**
+     * Returns a one-line summary of the queue depth and wait times of each lane.
+     */
+    public String getMetrics() {
+        return writeLane + ", " + userReadLane + ", " + backgroundReadLane;
+    }
+
+    /**
+     * Logs the metrics of all lanes at the given interval, for as long as the process lives.
+     */
+    public void logMetricsEvery(long intervalMs) {
+        Handler handler = new Handler(Looper.getMainLooper());
+        handler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                Log.d(TAG, getMetrics());
+                handler.postDelayed(this, intervalMs);
+            }
+        }, intervalMs);
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> newThread(name + "-" + count.incrementAndGet(), runnable);
+    }
+
+    private static Thread newThread(String name, Runnable runnable) {
+        return new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, name);
+    }
+
+    /**
+     * Counters of one lane: tasks waiting, tasks run, and how long they waited.
+     */
+    private static final class Lane {
+        final String name;
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+        final AtomicLong totalWaitMs = new AtomicLong();
+        final AtomicLong maxWaitMs = new AtomicLong();
+
+        Lane(String name) {
+            this.name = name;
+        }
+
+        void onStarted(long waitMs) {
+            int depth = queued.decrementAndGet();
+            totalWaitMs.addAndGet(waitMs);
+            maxWaitMs.accumulateAndGet(waitMs, Math::max);
+            if (waitMs >= SLOW_WAIT_MS) {
+                Log.w(TAG, name + " task waited " + waitMs + " ms (" + depth + " still queued)");
+            }
+        }
+
+        @Override
+        public String toString() {
+            long done = completed.get();
+            long avgWaitMs = done == 0 ? 0 : totalWaitMs.get() / done;
+            return String.format(Locale.US, "%s: queued=%d done=%d dropped=%d avgWait=%dms maxWait=%dms",
+                    name, queued.get(), done, dropped.get(), avgWaitMs, maxWaitMs.get());
+        }
+    }
+
+    /**
+     * Queued task: ordered by priority, then by submission, and measured on its lane.
+     */
+    private static final class Task implements Runnable, Comparable<Task> {
+        private final Runnable action;
+        private final Lane lane;
+        private final int priority;
+        private final long sequence;
+        private final long enqueuedAt = System.nanoTime();
+
+        Task(Runnable action, Lane lane, int priority, long sequence) {
+            this.action = action;
+            this.lane = lane;
+            this.priority = priority;
+            this.sequence = sequence;
+            lane.queued.incrementAndGet();
+        }
+
+        @Override
+        public void run() {
+            lane.onStarted(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueuedAt));
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, lane.name + " task failed", e);
+            } finally {
+                lane.completed.incrementAndGet();
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (priority != other.priority) return Integer.compare(priority, other.priority);
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.mail_app.data.db;
+
+import android.util.Log;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.mail_app.data.entity.MailBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Helpers for the mail_body table:
+ * - Encoding of bodies, Deflate-compressed above COMPRESSION_THRESHOLD_BYTES
+ * - Decoding when a full mail is opened
+ * - The SQL trigger that removes a body together with its mail
+ */
+public final class MailBodyStore {
+
+    // Bodies smaller than this are stored as plain UTF-8 (compression would not pay off)
+    public static final int COMPRESSION_THRESHOLD_BYTES = 512;
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final String[] TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS mail_body_after_delete AFTER DELETE ON mail BEGIN " +
+                    "DELETE FROM mail_body WHERE mailId = OLD.id; " +
+                    "END"
+    };
+
+    private MailBodyStore() {
+        /* Utility class – no instances. */
+    }
+
+    /**
+     * Creates the triggers that keep mail_body in sync with the mail table.
+     */
+    public static void createTriggers(SupportSQLiteDatabase db) {
+        for (String sql : TRIGGERS) {
+            db.execSQL(sql);
+        }
+    }
+
+    /**
+     * Encodes a body for storage, compressing it if it is large enough and actually shrinks.
+     */
+    public static MailBody encode(String mailId, String body) {
+        byte[] raw = body.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < COMPRESSION_THRESHOLD_BYTES) {
+            return new MailBody(mailId, raw, false);
+        }
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+
+            byte[] packed = out.toByteArray();
+            return packed.length < raw.length
+                    ? new MailBody(mailId, packed, true)
+                    : new MailBody(mailId, raw, false);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decodes a stored body back to text.
+     *
+     * @return the body, or null if nothing is stored or the data is corrupt
+     */
+    public static String decode(MailBody body) {
+        if (body == null || body.getContent() == null) return null;
+        if (!body.isCompressed()) return new String(body.getContent(), StandardCharsets.UTF_8);
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(body.getContent());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.getContent().length * 3);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                out.write(buffer, 0, count);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            Log.e("MailBodyStore", "Corrupt body for mail " + body.getMailId() + ": " + e.getMessage());
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.mail_app.data.db;
+
+import android.database.Cursor;
+import android.database.SQLException;
+import android.util.Log;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.mail_app.LocalDatabase;
+import com.example.mail_app.data.dao.MailCacheDao;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the local mail cache within a storage budget (mail count, and stored bytes of the
+ * bodies and their search index).
+ * Evicts the least recently viewed mails first, never starred mails or drafts:
+ * bodies are dropped before rows, orphaned users and cross-refs are removed,
+ * the body search index is rebuilt after evictions or once it holds mostly stale entries,
+ * and the freed pages are returned to the file system with an incremental VACUUM.
+ */
+public class MailCacheCompactor {
+
+    private static final String TAG = "MailCacheCompactor";
+
+    // Mails evicted per statement; stays well below SQLite's bound-parameter limit
+    private static final int EVICTION_BATCH_SIZE = 200;
+
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    private final LocalDatabase database;
+    private final MailCacheDao cacheDao;
+    private final DbDispatcher dispatcher;
+    private final int maxMails;
+    private final long maxBodyBytes;
+
+    // Set while a compaction is scheduled or running, so requests are coalesced
+    private final AtomicBoolean pending = new AtomicBoolean(false);
+
+    /**
+     * @param database     The Room database holding the cache.
+     * @param dispatcher   Executor that checks the budget (background read) and evicts (writer thread).
+     * @param maxMails     Maximum number of cached mails.
+     * @param maxBodyBytes Maximum stored size of all cached bodies and their search index.
+     */
+    public MailCacheCompactor(LocalDatabase database, DbDispatcher dispatcher, int maxMails, long maxBodyBytes) {
+        this.database = database;
+        this.cacheDao = database.mailCacheDao();
+        this.dispatcher = dispatcher;
+        this.maxMails = maxMails;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * Checks the budget with a background read and, only if the cache is over it, runs a
+     * compaction on the writer thread. Does nothing if a compaction is already pending.
+     */
+    public void requestCompaction() {
+        if (!pending.compareAndSet(false, true)) return;
+
+        boolean queued = dispatcher.read(DbDispatcher.Priority.BACKGROUND, () -> {
+            boolean overBudget;
+            try {
+                overBudget = isOverBudget();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Budget check failed: " + e.getMessage());
+                overBudget = false;
+            }
+
+            if (!overBudget) {
+                pending.set(false);
+                return;
+            }
+            dispatcher.write(() -> {
+                try {
+                    compact();
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Compaction failed: " + e.getMessage());
+                } finally {
+                    pending.set(false);
+                }
+            });
+        });
+        if (!queued) pending.set(false); // readers backed up; the next request checks again
+    }
+
+    // True if the cached bodies (with their index) or mails exceed the budget,
+    // or the body index needs a rebuild
+    private boolean isOverBudget() {
+        return cacheDao.getStoredBodyBytes() > maxBodyBytes || cacheDao.countMails() > maxMails
+                || MailSearchIndex.hasStaleBodyEntries(database.getOpenHelper().getReadableDatabase());
+    }
+
+    /**
+     * Enforces the budget on the calling thread.
+     */
+    public void compact() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        boolean rebuiltIndex = false;
+
+        // Stale index entries count against the budget until the index is rebuilt
+        if (cacheDao.getStoredBodyBytes() > maxBodyBytes && MailSearchIndex.countStaleBodyEntries(db) > 0) {
+            rebuildBodyIndex(db);
+            rebuiltIndex = true;
+        }
+
+        // The index only shrinks when it is rebuilt, so bodies are evicted down to their share
+        // of the budget, and the index is rebuilt once afterwards
+        int evictedBodies = 0;
+        long storedBytes = cacheDao.getStoredBodyBytes();
+        if (storedBytes > maxBodyBytes) {
+            long bodyBytes = cacheDao.getBodyBytes();
+            long bodyBudget = (long) ((double) maxBodyBytes * bodyBytes / storedBytes);
+            while (cacheDao.getBodyBytes() > bodyBudget) {
+                List<String> ids = cacheDao.getEvictableBodyIds(EVICTION_BATCH_SIZE);
+                if (ids.isEmpty()) break;
+                cacheDao.deleteBodies(ids);
+                evictedBodies += ids.size();
+            }
+        }
+
+        int evictedMails = 0;
+        int excess = cacheDao.countMails() - maxMails;
+        while (excess > 0) {
+            List<String> ids = cacheDao.getEvictableMailIds(Math.min(excess, EVICTION_BATCH_SIZE));
+            if (ids.isEmpty()) break;
+            cacheDao.deleteMails(ids);
+            evictedMails += ids.size();
+            excess -= ids.size();
+        }
+
+        cacheDao.deleteOrphans();
+
+        if (evictedBodies > 0 || MailSearchIndex.hasStaleBodyEntries(db)) {
+            rebuildBodyIndex(db);
+            rebuiltIndex = true;
+        }
+
+        if (evictedBodies > 0 || evictedMails > 0 || rebuiltIndex) {
+            Log.i(TAG, "Evicted " + evictedBodies + " bodies and " + evictedMails + " mails"
+                    + (rebuiltIndex ? ", rebuilt the body index" : ""));
+            vacuum();
+        }
+    }
+
+    /**
+     * Rebuilds the body search index, dropping the entries of replaced or evicted bodies.
+     */
+    private void rebuildBodyIndex(SupportSQLiteDatabase db) {
+        database.runInTransaction(() -> MailSearchIndex.rebuildBodyIndex(db));
+    }
+
+    /**
+     * Returns free pages to the file system. The first run switches the database to
+     * incremental auto-vacuum, which needs one full VACUUM.
+     */
+    private void vacuum() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        try {
+            if (getAutoVacuumMode(db) != AUTO_VACUUM_INCREMENTAL) {
+                db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+                db.execSQL("VACUUM");
+            } else {
+                try (Cursor cursor = db.query("PRAGMA incremental_vacuum")) {
+                    while (cursor.moveToNext()) {
+                        // Each step frees one page
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            Log.w(TAG, "Vacuum skipped: " + e.getMessage());
+        }
+    }
+
+    private int getAutoVacuumMode(SupportSQLiteDatabase db) {
+        try (Cursor cursor = db.query("PRAGMA auto_vacuum")) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+}
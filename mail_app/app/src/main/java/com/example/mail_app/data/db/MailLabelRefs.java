@@ -0,0 +1,47 @@
+package com.example.mail_app.data.db;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Helpers for the mail_label_cross_ref table:
+ * - The SQL triggers that copy mail.sentAt onto the mail's label references, so a label list
+ *   is read in order from the (labelId, sentAt DESC, mailId DESC) index instead of being sorted
+ * - Filling the copies once for references cached before the column existed
+ * References may be saved before or after their mail, so both sides copy the time.
+ */
+public final class MailLabelRefs {
+
+    private static final String[] TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS mail_label_ref_after_insert AFTER INSERT ON mail_label_cross_ref BEGIN " +
+                    "UPDATE mail_label_cross_ref SET sentAt = (SELECT sentAt FROM mail WHERE id = NEW.mailId) " +
+                    "WHERE mailId = NEW.mailId AND labelId = NEW.labelId; " +
+                    "END",
+            "CREATE TRIGGER IF NOT EXISTS mail_label_ref_mail_after_insert AFTER INSERT ON mail BEGIN " +
+                    "UPDATE mail_label_cross_ref SET sentAt = NEW.sentAt WHERE mailId = NEW.id; " +
+                    "END",
+            "CREATE TRIGGER IF NOT EXISTS mail_label_ref_mail_after_update AFTER UPDATE OF sentAt ON mail BEGIN " +
+                    "UPDATE mail_label_cross_ref SET sentAt = NEW.sentAt WHERE mailId = NEW.id; " +
+                    "END"
+    };
+
+    private MailLabelRefs() {
+        /* Utility class – no instances. */
+    }
+
+    /**
+     * Creates the triggers that keep mail_label_cross_ref.sentAt in sync with the mail table.
+     */
+    public static void createTriggers(SupportSQLiteDatabase db) {
+        for (String sql : TRIGGERS) {
+            db.execSQL(sql);
+        }
+    }
+
+    /**
+     * Copies the send time of every cached mail onto its label references.
+     */
+    public static void rebuild(SupportSQLiteDatabase db) {
+        db.execSQL("UPDATE mail_label_cross_ref SET sentAt = " +
+                "(SELECT sentAt FROM mail WHERE mail.id = mail_label_cross_ref.mailId)");
+    }
+}
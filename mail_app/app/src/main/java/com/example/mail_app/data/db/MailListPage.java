@@ -0,0 +1,117 @@
+package com.example.mail_app.data.db;
+
+import com.example.mail_app.data.dao.MailDao;
+import com.example.mail_app.data.entity.MailSummary;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One page of a mail list, read from Room (and observed) on its own.
+ * - Category and label pages are keyset windows: the mails older than the start cursor, and,
+ *   once the next page was added, not older than the end cursor (the page's last mail then).
+ *   Only the last page is open-ended, holding at most one page size of mails
+ * - Search results are ranked by relevance rather than date, so their pages are positional
+ *   windows over the ranking
+ * Loading one more page therefore never re-reads the pages before it, and a mail arriving
+ * inside a closed page grows that page instead of pushing mails into the next one.
+ */
+public final class MailListPage {
+
+    private final MailListQuery query;
+    private final MailPageCursor start;
+    private final MailPageCursor end;  // LAST while the page is open
+    private final int index;           // position in the list (search windows)
+    private final int pageSize;
+
+    private MailListPage(MailListQuery query, MailPageCursor start, MailPageCursor end,
+                         int index, int pageSize) {
+        this.query = query;
+        this.start = start;
+        this.end = end;
+        this.index = index;
+        this.pageSize = pageSize;
+    }
+
+    /** Returns the first (open) page of a list. */
+    public static MailListPage first(MailListQuery query, int pageSize) {
+        return new MailListPage(query, MailPageCursor.FIRST, MailPageCursor.LAST, 0, pageSize);
+    }
+
+    /**
+     * Returns this page ending at the given mail (its last row), so later arrivals no longer
+     * push its mails out. Search pages stay positional and are returned as they are.
+     */
+    public MailListPage closedAt(MailSummary last) {
+        if (query.getSource() == MailListQuery.Source.SEARCH) return this;
+        return new MailListPage(query, start, MailPageCursor.at(last), index, pageSize);
+    }
+
+    /**
+     * Returns the (open) page after this one, whose last row is the given mail.
+     */
+    public MailListPage next(MailSummary last) {
+        MailPageCursor nextStart = query.getSource() == MailListQuery.Source.SEARCH
+                ? MailPageCursor.FIRST : MailPageCursor.at(last);
+        return new MailListPage(query, nextStart, MailPageCursor.LAST, index + 1, pageSize);
+    }
+
+    /**
+     * Returns an equal page (for values of caches keyed by pages, which must not keep the key alive).
+     */
+    public MailListPage copy() {
+        return new MailListPage(query, start, end, index, pageSize);
+    }
+
+    /** Returns the list the page belongs to. */
+    public MailListQuery getQuery() { return query; }
+
+    /** Returns the tables whose changes invalidate the page. */
+    public String[] getTables() { return query.getTables(); }
+
+    /**
+     * Reads the page from Room (on a background thread).
+     */
+    public List<MailSummary> load(MailDao dao) {
+        // A closed page holds every mail between its cursors, however many arrived since
+        int limit = end.equals(MailPageCursor.LAST) ? pageSize : Integer.MAX_VALUE;
+        long before = start.getSentAt();
+        String beforeId = start.getId();
+        long until = end.getSentAt();
+        String untilId = end.getId();
+
+        switch (query.getSource()) {
+            case STARRED:
+                return dao.getStarredPage(before, beforeId, until, untilId, limit);
+            case SENT:
+                return dao.getSentPage(before, beforeId, until, untilId, limit);
+            case DRAFTS:
+                return dao.getDraftPage(before, beforeId, until, untilId, limit);
+            case ALL:
+                return dao.getAllMailsPage(before, beforeId, until, untilId, limit);
+            case SPAM:
+                return dao.getSpamPage(before, beforeId, until, untilId, limit);
+            case LABEL:
+                return dao.getMailsByLabelPage(query.getArgument(), before, beforeId, until, untilId, limit);
+            case SEARCH:
+                return dao.searchMails(query.getArgument(), index * pageSize, pageSize);
+            case INBOX:
+            default:
+                return dao.getInboxPage(before, beforeId, until, untilId, limit);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MailListPage)) return false;
+        MailListPage other = (MailListPage) o;
+        return index == other.index && pageSize == other.pageSize && query.equals(other.query)
+                && start.equals(other.start) && end.equals(other.end);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(query, start, end, index, pageSize);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.mail_app.data.db;
+
+import java.util.Objects;
+
+/**
+ * Describes the mail list a screen shows: its source (a category, a label or a search).
+ * The list is read from Room page by page (see MailListPage); each page is observed through
+ * the InvalidationTracker on the tables it reads, so any write re-emits it.
+ */
+public final class MailListQuery {
+
+    /** Where the mails of a list come from. */
+    public enum Source { INBOX, STARRED, SENT, DRAFTS, ALL, SPAM, LABEL, SEARCH }
+
+    // Tables read by the MailSummary queries
+    private static final String[] LIST_TABLES = {
+            "mail", "public_users", "mail_label_cross_ref", "label"
+    };
+
+    // Search additionally reads the full-text index and recipients. The body index is not a
+    // Room table; it only changes together with mail_body.
+    private static final String[] SEARCH_TABLES = {
+            "mail", "public_users", "mail_label_cross_ref", "label", "mail_fts", "mail_recipient_cross_ref",
+            "mail_body"
+    };
+
+    private final Source source;
+    private final String argument; // label ID or search text
+
+    private MailListQuery(Source source, String argument) {
+        this.source = source;
+        this.argument = argument;
+    }
+
+    /** Returns the query for the mails of a category. */
+    public static MailListQuery category(Source source) {
+        return new MailListQuery(source, null);
+    }
+
+    /** Returns the query for the mails of a label. */
+    public static MailListQuery label(String labelId) {
+        return new MailListQuery(Source.LABEL, labelId);
+    }
+
+    /** Returns the query for the search results, best-ranked first. */
+    public static MailListQuery search(String query) {
+        return new MailListQuery(Source.SEARCH, query);
+    }
+
+    /** Returns the source of the list. */
+    public Source getSource() { return source; }
+
+    /** Returns the label ID (LABEL) or search text (SEARCH), otherwise null. */
+    public String getArgument() { return argument; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MailListQuery)) return false;
+        MailListQuery other = (MailListQuery) o;
+        return source == other.source && Objects.equals(argument, other.argument);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(source, argument);
+    }
+
+    /** Returns the tables whose changes invalidate the list. */
+    public String[] getTables() {
+        return source == Source.SEARCH ? SEARCH_TABLES : LIST_TABLES;
+    }
+}
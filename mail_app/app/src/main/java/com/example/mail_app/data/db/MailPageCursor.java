@@ -0,0 +1,54 @@
+package com.example.mail_app.data.db;
+
+import com.example.mail_app.data.entity.MailSummary;
+
+import java.util.Objects;
+
+/**
+ * Keyset position in a mail list ordered by (sentAt DESC, id DESC).
+ * A page query returns the mails strictly older than its start cursor and not older than its
+ * end cursor, so loading the next page only reads the rows after the last mail already shown.
+ */
+public final class MailPageCursor {
+
+    /** Cursor positioned before the newest mail (loads the first page). */
+    public static final MailPageCursor FIRST = new MailPageCursor(Long.MAX_VALUE, "");
+
+    /** Cursor positioned at the end of the list (a page without an end bound). */
+    public static final MailPageCursor LAST = new MailPageCursor(Long.MIN_VALUE, "");
+
+    private final long sentAt;
+    private final String id;
+
+    private MailPageCursor(long sentAt, String id) {
+        this.sentAt = sentAt;
+        this.id = id;
+    }
+
+    /**
+     * Returns the cursor at the given mail (e.g. the last mail of a loaded page).
+     */
+    public static MailPageCursor at(MailSummary mail) {
+        long sentAt = mail.getSentAt() != null ? mail.getSentAt().getTime() : 0L;
+        return new MailPageCursor(sentAt, mail.getId());
+    }
+
+    /** Returns the send time (epoch millis) of the mail at the cursor. */
+    public long getSentAt() { return sentAt; }
+
+    /** Returns the ID of the mail at the cursor (tie-breaker for equal send times). */
+    public String getId() { return id; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MailPageCursor)) return false;
+        MailPageCursor other = (MailPageCursor) o;
+        return sentAt == other.sentAt && id.equals(other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sentAt, id);
+    }
+}
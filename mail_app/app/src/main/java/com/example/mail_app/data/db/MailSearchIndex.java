@@ -0,0 +1,287 @@
+package com.example.mail_app.data.db;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import com.example.mail_app.data.entity.MailBody;
+import com.example.mail_app.data.entity.MailSearchHit;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Helpers for the full-text search indexes:
+ * - mail_fts over subject, sender and recipients, kept in sync with mail, mail_recipient_cross_ref
+ *   and public_users by SQLite triggers
+ * - mail_body_fts over bodies. Bodies are stored compressed, so they are indexed from Java
+ *   (MailDao.upsertPage) in a contentless FTS4 table that keeps no copy of the text. Its rows
+ *   cannot be deleted: a replaced or evicted body leaves entries under a docId that no longer
+ *   matches any mail_body row, until MailCacheCompactor rebuilds the index
+ * - Conversion of user-typed text into FTS4 prefix MATCH terms
+ * - Relevance ranking of hits from their matchinfo('pcx') blobs
+ */
+public final class MailSearchIndex {
+
+    // Relevance weight of each mail_fts column, in declaration order:
+    // subject, senderName, senderId, recipientIds
+    private static final double[] FIELD_WEIGHTS = {3.0, 2.0, 2.0, 1.0};
+
+    // Relevance weight of the mail_body_fts body column
+    private static final double[] BODY_WEIGHTS = {1.0};
+
+    // The body index is rebuilt once it holds more stale entries than live ones (and at least this many)
+    private static final int MIN_STALE_BODY_ENTRIES = 500;
+
+    private static final String CREATE_BODY_INDEX = "CREATE VIRTUAL TABLE IF NOT EXISTS `mail_body_fts` " +
+            "USING FTS4(`body` TEXT, content=\"\", tokenize=unicode61)";
+
+    private static final String SENDER_NAME =
+            "(SELECT name FROM public_users WHERE userId = NEW.`from`)";
+
+    private static final String RECIPIENT_IDS =
+            "(SELECT group_concat(userId, ' ') FROM mail_recipient_cross_ref WHERE mailId = %s)";
+
+    private static final String[] TRIGGERS = {
+            // REPLACE deletes the old mail row without firing delete triggers, so drop its index row first
+            "CREATE TRIGGER IF NOT EXISTS mail_fts_before_insert BEFORE INSERT ON mail BEGIN " +
+                    "DELETE FROM mail_fts WHERE rowid = (SELECT rowid FROM mail WHERE id = NEW.id); " +
+                    "END",
+            "CREATE TRIGGER IF NOT EXISTS mail_fts_after_insert AFTER INSERT ON mail BEGIN " +
+                    "INSERT INTO mail_fts(rowid, subject, senderName, senderId, recipientIds) " +
+                    "VALUES (NEW.rowid, NEW.subject, " + SENDER_NAME + ", NEW.`from`, " +
+                    String.format(RECIPIENT_IDS, "NEW.id") + "); " +
+                    "END",
+            "CREATE TRIGGER IF NOT EXISTS mail_fts_after_update AFTER UPDATE OF subject, `from` ON mail BEGIN " +
+                    "UPDATE mail_fts SET subject = NEW.subject, " +
+                    "senderName = " + SENDER_NAME + ", senderId = NEW.`from` " +
+                    "WHERE rowid = NEW.rowid; " +
+                    "END",
+            "CREATE TRIGGER IF NOT EXISTS mail_fts_after_delete AFTER DELETE ON mail BEGIN " +
+                    "DELETE FROM mail_fts WHERE rowid = OLD.rowid; " +
+                    "END",
+            "CREATE TRIGGER IF NOT EXISTS mail_fts_recipient_insert AFTER INSERT ON mail_recipient_cross_ref BEGIN " +
+                    "UPDATE mail_fts SET recipientIds = " + String.format(RECIPIENT_IDS, "NEW.mailId") + " " +
+                    "WHERE rowid = (SELECT rowid FROM mail WHERE id = NEW.mailId); " +
+                    "END",
+            "CREATE TRIGGER IF NOT EXISTS mail_fts_recipient_delete AFTER DELETE ON mail_recipient_cross_ref BEGIN " +
+                    "UPDATE mail_fts SET recipientIds = " + String.format(RECIPIENT_IDS, "OLD.mailId") + " " +
+                    "WHERE rowid = (SELECT rowid FROM mail WHERE id = OLD.mailId); " +
+                    "END",
+            // Senders are usually saved after their mails, so fill in the name once it is known
+            "CREATE TRIGGER IF NOT EXISTS mail_fts_sender_insert AFTER INSERT ON public_users BEGIN " +
+                    "UPDATE mail_fts SET senderName = NEW.name " +
+                    "WHERE rowid IN (SELECT rowid FROM mail WHERE `from` = NEW.userId) " +
+                    "AND senderName IS NOT NEW.name; " +
+                    "END"
+    };
+
+    private static final String[] TRIGGER_NAMES = {
+            "mail_fts_before_insert",
+            "mail_fts_after_insert",
+            "mail_fts_after_update",
+            "mail_fts_after_delete",
+            "mail_fts_recipient_insert",
+            "mail_fts_recipient_delete",
+            "mail_fts_sender_insert"
+    };
+
+    private MailSearchIndex() {
+        /* Utility class – no instances. */
+    }
+
+    /**
+     * Creates the triggers that keep mail_fts in sync with the mail tables.
+     */
+    public static void createTriggers(SupportSQLiteDatabase db) {
+        for (String sql : TRIGGERS) {
+            db.execSQL(sql);
+        }
+    }
+
+    /**
+     * Drops the sync triggers (needed before the mail table is rebuilt by a migration).
+     */
+    public static void dropTriggers(SupportSQLiteDatabase db) {
+        for (String name : TRIGGER_NAMES) {
+            db.execSQL("DROP TRIGGER IF EXISTS " + name);
+        }
+    }
+
+    /**
+     * Re-indexes the subject, sender and recipients of every cached mail
+     * (used when the index is created on an existing database).
+     */
+    public static void rebuild(SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM mail_fts");
+        db.execSQL("INSERT INTO mail_fts(rowid, subject, senderName, senderId, recipientIds) " +
+                "SELECT m.rowid, m.subject, " +
+                "(SELECT name FROM public_users WHERE userId = m.`from`), m.`from`, " +
+                String.format(RECIPIENT_IDS, "m.id") + " " +
+                "FROM mail AS m");
+    }
+
+    /**
+     * Creates the contentless body index. It is not a Room entity (Room cannot declare
+     * contentless FTS tables), so new databases create it from LocalDatabase's callback.
+     */
+    public static void createBodyIndex(SupportSQLiteDatabase db) {
+        db.execSQL(CREATE_BODY_INDEX);
+    }
+
+    /**
+     * Recreates the body index from the stored bodies, dropping every stale entry.
+     * Decompresses each body, so it runs on the writer thread, inside a transaction.
+     */
+    public static void rebuildBodyIndex(SupportSQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS `mail_body_fts`");
+        createBodyIndex(db);
+
+        SupportSQLiteStatement insert = db.compileStatement(
+                "INSERT INTO `mail_body_fts` (docid, `body`) VALUES (?, ?)");
+        try (Cursor cursor = db.query("SELECT `docId`, `mailId`, `content`, `compressed` FROM `mail_body`")) {
+            while (cursor.moveToNext()) {
+                String body = MailBodyStore.decode(
+                        new MailBody(cursor.getString(1), cursor.getBlob(2), cursor.getInt(3) != 0));
+                if (body == null) continue;
+                insert.bindLong(1, cursor.getLong(0));
+                insert.bindString(2, body);
+                insert.executeInsert();
+            }
+        }
+    }
+
+    /**
+     * Returns true if the body index holds enough entries of replaced or evicted bodies
+     * to be worth rebuilding.
+     */
+    public static boolean hasStaleBodyEntries(SupportSQLiteDatabase db) {
+        long stale = countStaleBodyEntries(db);
+        return stale >= MIN_STALE_BODY_ENTRIES && stale > count(db, "SELECT COUNT(*) FROM `mail_body`");
+    }
+
+    /**
+     * Returns the number of body index entries of replaced or evicted bodies.
+     */
+    public static long countStaleBodyEntries(SupportSQLiteDatabase db) {
+        long indexed = count(db, "SELECT COUNT(*) FROM `mail_body_fts_docsize`");
+        long stored = count(db, "SELECT COUNT(*) FROM `mail_body`");
+        return Math.max(0L, indexed - stored);
+    }
+
+    private static long count(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0L;
+        }
+    }
+
+    /**
+     * Converts free text typed by the user into FTS4 MATCH terms, one per word, where every
+     * word must appear as a prefix (e.g. "john rep" → "john*", "rep*").
+     * Each term is matched on its own, since a word may be found in either index.
+     *
+     * @return MATCH terms, empty if the text contains no searchable characters
+     */
+    public static List<String> toMatchTerms(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query == null) return terms;
+
+        for (String token : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.isEmpty()) continue;
+            terms.add('"' + token + "*\"");
+        }
+        return terms;
+    }
+
+    /**
+     * Ranks the mails matching every term, in either index.
+     * A mail's score is the sum of its hits' scores (from their matchinfo('pcx') blobs) over
+     * all terms; the list is sorted by relevance, then by send date (newest first), then by ID.
+     *
+     * @param fieldHits For each term, its hits in mail_fts.
+     * @param bodyHits  For each term, its hits in mail_body_fts.
+     * @return One hit per matching mail, carrying its total score.
+     */
+    public static List<MailSearchHit> rank(List<List<MailSearchHit>> fieldHits,
+                                           List<List<MailSearchHit>> bodyHits) {
+        Map<String, MailSearchHit> matches = null;
+        for (int term = 0; term < fieldHits.size(); term++) {
+            Map<String, MailSearchHit> termMatches = new HashMap<>();
+            addHits(termMatches, fieldHits.get(term), FIELD_WEIGHTS);
+            addHits(termMatches, bodyHits.get(term), BODY_WEIGHTS);
+
+            if (matches == null) {
+                matches = termMatches;
+                continue;
+            }
+            Map<String, MailSearchHit> matchingAll = new HashMap<>();
+            for (MailSearchHit hit : termMatches.values()) {
+                MailSearchHit match = matches.get(hit.getMailId());
+                if (match == null) continue;
+                match.setScore(match.getScore() + hit.getScore());
+                matchingAll.put(match.getMailId(), match);
+            }
+            matches = matchingAll;
+        }
+        if (matches == null) return new ArrayList<>();
+
+        List<MailSearchHit> ranked = new ArrayList<>(matches.values());
+        ranked.sort((a, b) -> {
+            int byScore = Double.compare(b.getScore(), a.getScore());
+            if (byScore != 0) return byScore;
+            long aTime = a.getSentAt() != null ? a.getSentAt().getTime() : 0L;
+            long bTime = b.getSentAt() != null ? b.getSentAt().getTime() : 0L;
+            if (aTime != bTime) return Long.compare(bTime, aTime);
+            return b.getMailId().compareTo(a.getMailId());
+        });
+        return ranked;
+    }
+
+    // Scores the hits of one term and adds them to the term's matches (a mail may hit both indexes)
+    private static void addHits(Map<String, MailSearchHit> matches, List<MailSearchHit> hits, double[] weights) {
+        for (MailSearchHit hit : hits) {
+            double score = score(hit.getMatchInfo(), weights);
+            MailSearchHit match = matches.get(hit.getMailId());
+            if (match == null) {
+                hit.setScore(score);
+                matches.put(hit.getMailId(), hit);
+            } else {
+                match.setScore(match.getScore() + score);
+            }
+        }
+    }
+
+    /**
+     * Computes a weighted term-frequency score: for each phrase and column, the hits in this
+     * row divided by the hits in all rows, multiplied by the column weight.
+     */
+    private static double score(byte[] matchInfo, double[] weights) {
+        if (matchInfo == null || matchInfo.length < 8) return 0;
+
+        ByteBuffer buffer = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder());
+        int phrases = buffer.getInt(0);
+        int columns = buffer.getInt(4);
+
+        double score = 0;
+        for (int p = 0; p < phrases; p++) {
+            for (int c = 0; c < columns; c++) {
+                int offset = 4 * (2 + 3 * (p * columns + c));
+                if (offset + 8 > matchInfo.length) return score;
+
+                int hitsThisRow = buffer.getInt(offset);
+                int hitsAllRows = buffer.getInt(offset + 4);
+                if (hitsThisRow > 0 && hitsAllRows > 0) {
+                    double weight = c < weights.length ? weights[c] : 1.0;
+                    score += weight * hitsThisRow / hitsAllRows;
+                }
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.mail_app.data.db;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Helpers for the mailbox_counters table:
+ * - Mailbox keys of the sidebar categories and labels
+ * - SQLite triggers on mail and mail_label_cross_ref that keep the total/unread counts current
+ * - Only received mails count as unread: sent mails and drafts are stored with isRead = 0
+ *   (the server never marks them read), so they would otherwise inflate every badge
+ * - A full recount (used when the table is created on an existing database)
+ */
+public final class MailboxCounters {
+
+    public static final String INBOX = "inbox";
+    public static final String STARRED = "starred";
+    public static final String SENT = "sent";
+    public static final String DRAFTS = "drafts";
+    public static final String SPAM = "spam";
+    public static final String ALL = "all";
+
+    private static final String LABEL_PREFIX = "label:";
+
+    // Membership condition of each category, for a mail row named by %1$s.
+    // Must match the WHERE clauses of the MailDao page queries.
+    private static final Map<String, String> CATEGORIES = new LinkedHashMap<>();
+    static {
+        CATEGORIES.put(INBOX, "%1$s.type = 'received' AND %1$s.isSpam = 0");
+        CATEGORIES.put(STARRED, "%1$s.isStar = 1");
+        CATEGORIES.put(SENT, "%1$s.type = 'sent' AND %1$s.isDraft = 0");
+        CATEGORIES.put(DRAFTS, "%1$s.isDraft = 1");
+        CATEGORIES.put(SPAM, "%1$s.isSpam = 1");
+        CATEGORIES.put(ALL, "%1$s.isSpam = 0");
+    }
+
+    private static final String[] TRIGGERS = {
+            // REPLACE deletes the old mail row without firing delete triggers, so uncount it first
+            "CREATE TRIGGER IF NOT EXISTS mailbox_counters_mail_before_insert BEFORE INSERT ON mail " +
+                    "WHEN EXISTS (SELECT 1 FROM mail WHERE id = NEW.id) BEGIN " +
+                    "UPDATE mailbox_counters SET " +
+                    "total = total - (SELECT " + categoryDelta("old_row") + " FROM mail AS old_row WHERE old_row.id = NEW.id), " +
+                    "unread = unread - (SELECT " + unreadDelta("old_row") + " FROM mail AS old_row WHERE old_row.id = NEW.id) " +
+                    "WHERE mailbox IN (" + categoryKeys() + "); " +
+                    "UPDATE mailbox_counters SET total = total - 1, " +
+                    "unread = unread - (SELECT " + isUnread("mail") + " FROM mail WHERE id = NEW.id) " +
+                    "WHERE mailbox IN (" + labelKeysOf("NEW.id") + "); " +
+                    "END",
+            "CREATE TRIGGER IF NOT EXISTS mailbox_counters_mail_after_insert AFTER INSERT ON mail BEGIN " +
+                    countMail("NEW", "+") +
+                    "END",
+            "CREATE TRIGGER IF NOT EXISTS mailbox_counters_mail_after_update " +
+                    "AFTER UPDATE OF type, isDraft, isSpam, isStar, isRead ON mail BEGIN " +
+                    countMail("OLD", "-") +
+                    countMail("NEW", "+") +
+                    "END",
+            "CREATE TRIGGER IF NOT EXISTS mailbox_counters_mail_after_delete AFTER DELETE ON mail BEGIN " +
+                    countMail("OLD", "-") +
+                    "END",
+            // Label references only count while their mail is cached
+            "CREATE TRIGGER IF NOT EXISTS mailbox_counters_label_before_insert BEFORE INSERT ON mail_label_cross_ref " +
+                    "WHEN EXISTS (SELECT 1 FROM mail_label_cross_ref WHERE mailId = NEW.mailId AND labelId = NEW.labelId) BEGIN " +
+                    countLabelRef("NEW", "-") +
+                    "END",
+            "CREATE TRIGGER IF NOT EXISTS mailbox_counters_label_after_insert AFTER INSERT ON mail_label_cross_ref BEGIN " +
+                    "INSERT OR IGNORE INTO mailbox_counters (mailbox, total, unread) " +
+                    "VALUES ('" + LABEL_PREFIX + "' || NEW.labelId, 0, 0); " +
+                    countLabelRef("NEW", "+") +
+                    "END",
+            "CREATE TRIGGER IF NOT EXISTS mailbox_counters_label_after_delete AFTER DELETE ON mail_label_cross_ref BEGIN " +
+                    countLabelRef("OLD", "-") +
+                    "END"
+    };
+
+    private static final String[] TRIGGER_NAMES = {
+            "mailbox_counters_mail_before_insert",
+            "mailbox_counters_mail_after_insert",
+            "mailbox_counters_mail_after_update",
+            "mailbox_counters_mail_after_delete",
+            "mailbox_counters_label_before_insert",
+            "mailbox_counters_label_after_insert",
+            "mailbox_counters_label_after_delete"
+    };
+
+    private MailboxCounters() {
+        /* Utility class – no instances. */
+    }
+
+    /**
+     * Returns the mailbox key of a label.
+     */
+    public static String labelKey(String labelId) {
+        return LABEL_PREFIX + labelId;
+    }
+
+    /**
+     * Creates the triggers that keep mailbox_counters in sync.
+     */
+    public static void createTriggers(SupportSQLiteDatabase db) {
+        for (String sql : TRIGGERS) {
+            db.execSQL(sql);
+        }
+    }
+
+    /**
+     * Drops the counter triggers (needed before the mail table is rebuilt by a migration).
+     */
+    public static void dropTriggers(SupportSQLiteDatabase db) {
+        for (String name : TRIGGER_NAMES) {
+            db.execSQL("DROP TRIGGER IF EXISTS " + name);
+        }
+    }
+
+    /**
+     * Recounts every category and label from the cached mails.
+     */
+    public static void rebuild(SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM mailbox_counters");
+        for (Map.Entry<String, String> category : CATEGORIES.entrySet()) {
+            db.execSQL("INSERT INTO mailbox_counters (mailbox, total, unread) " +
+                    "SELECT '" + category.getKey() + "', COUNT(*), ifnull(SUM(" + isUnread("mail") + "), 0) " +
+                    "FROM mail WHERE " + String.format(category.getValue(), "mail"));
+        }
+        db.execSQL("INSERT INTO mailbox_counters (mailbox, total, unread) " +
+                "SELECT '" + LABEL_PREFIX + "' || ref.labelId, COUNT(*), SUM(" + isUnread("mail") + ") " +
+                "FROM mail_label_cross_ref AS ref JOIN mail ON mail.id = ref.mailId " +
+                "GROUP BY ref.labelId");
+    }
+
+    /**
+     * Trigger statements adding (op "+") or removing (op "-") one mail row to/from the counters
+     * of its categories and labels.
+     */
+    private static String countMail(String row, String op) {
+        return "UPDATE mailbox_counters SET " +
+                "total = total " + op + " (" + categoryDelta(row) + "), " +
+                "unread = unread " + op + " (" + unreadDelta(row) + ") " +
+                "WHERE mailbox IN (" + categoryKeys() + "); " +
+                "UPDATE mailbox_counters SET total = total " + op + " 1, " +
+                "unread = unread " + op + " (" + isUnread(row) + ") " +
+                "WHERE mailbox IN (" + labelKeysOf(row + ".id") + "); ";
+    }
+
+    /**
+     * Trigger statement adding or removing one label reference, if its mail is cached.
+     */
+    private static String countLabelRef(String row, String op) {
+        return "UPDATE mailbox_counters SET total = total " + op + " 1, " +
+                "unread = unread " + op + " (SELECT " + isUnread("mail") + " FROM mail WHERE id = " + row + ".mailId) " +
+                "WHERE mailbox = '" + LABEL_PREFIX + "' || " + row + ".labelId " +
+                "AND EXISTS (SELECT 1 FROM mail WHERE id = " + row + ".mailId); ";
+    }
+
+    // 1 if the mail row belongs to the category of the counter being updated, else 0
+    private static String categoryDelta(String row) {
+        StringBuilder sql = new StringBuilder("CASE mailbox");
+        for (Map.Entry<String, String> category : CATEGORIES.entrySet()) {
+            sql.append(" WHEN '").append(category.getKey()).append("' THEN (")
+                    .append(String.format(category.getValue(), row)).append(")");
+        }
+        return sql.append(" ELSE 0 END").toString();
+    }
+
+    // 1 if the mail row is unread and belongs to the category of the counter being updated, else 0
+    private static String unreadDelta(String row) {
+        return "(" + isUnread(row) + ") * (" + categoryDelta(row) + ")";
+    }
+
+    // 1 if the mail row counts as unread (a received mail not read yet), else 0
+    private static String isUnread(String row) {
+        return "(" + row + ".isRead = 0 AND " + row + ".type = 'received')";
+    }
+
+    private static String categoryKeys() {
+        StringBuilder keys = new StringBuilder();
+        for (String key : CATEGORIES.keySet()) {
+            if (keys.length() > 0) keys.append(", ");
+            keys.append('\'').append(key).append('\'');
+        }
+        return keys.toString();
+    }
+
+    private static String labelKeysOf(String mailId) {
+        return "SELECT '" + LABEL_PREFIX + "' || labelId FROM mail_label_cross_ref WHERE mailId = " + mailId;
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.mail_app.data.db;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import com.example.mail_app.data.entity.Mail;
+import com.example.mail_app.data.entity.MailBody;
+
+/**
+ * Room schema migrations for LocalDatabase.
+ * Every schema change bumps the database version and adds a migration here,
+ * so existing installs keep their cached mails.
+ */
+public final class Migrations {
+
+    private Migrations() {
+        /* Utility class – no instances. */
+    }
+
+    /**
+     * v1 → v2: adds the mail_fts full-text index, its sync triggers and an index on mail.from.
+     */
+    public static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_mail_from` ON `mail` (`from`)");
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `mail_fts` USING FTS4(" +
+                    "`subject` TEXT, `body` TEXT, `senderName` TEXT, `senderId` TEXT, " +
+                    "`recipientIds` TEXT, tokenize=unicode61)");
+            MailSearchIndex.createTriggers(db);
+            MailSearchIndex.rebuild(db);
+        }
+    };
+
+    /**
+     * v2 → v3: adds composite indexes matching the category list predicates (ordered by sentAt DESC)
+     * and indexes on labelId / userId in the cross-ref tables.
+     */
+    public static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_mail_type_isSpam_sentAt` " +
+                    "ON `mail` (`type` ASC, `isSpam` ASC, `sentAt` DESC)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_mail_type_isDraft_sentAt` " +
+                    "ON `mail` (`type` ASC, `isDraft` ASC, `sentAt` DESC)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_mail_isDraft_sentAt` " +
+                    "ON `mail` (`isDraft` ASC, `sentAt` DESC)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_mail_isSpam_sentAt` " +
+                    "ON `mail` (`isSpam` ASC, `sentAt` DESC)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_mail_isStar_sentAt` " +
+                    "ON `mail` (`isStar` ASC, `sentAt` DESC)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_mail_label_cross_ref_labelId` " +
+                    "ON `mail_label_cross_ref` (`labelId`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_mail_recipient_cross_ref_userId` " +
+                    "ON `mail_recipient_cross_ref` (`userId`)");
+        }
+    };
+
+    /**
+     * v3 → v4: adds the precomputed list preview column (mail.snippet) and fills it for cached mails.
+     */
+    public static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `mail` ADD COLUMN `snippet` TEXT");
+
+            // Computed in Java so migrated rows get exactly the same preview as new ones
+            SupportSQLiteStatement update = db.compileStatement("UPDATE `mail` SET `snippet` = ? WHERE `id` = ?");
+            try (Cursor cursor = db.query("SELECT `id`, `body` FROM `mail` WHERE `body` IS NOT NULL")) {
+                while (cursor.moveToNext()) {
+                    update.bindString(1, Mail.makeSnippet(cursor.getString(1)));
+                    update.bindString(2, cursor.getString(0));
+                    update.executeUpdateDelete();
+                }
+            }
+        }
+    };
+
+    /**
+     * v4 → v5: moves mail bodies into the mail_body table (Deflate-compressed above a threshold)
+     * and drops the body column from mail. SQLite cannot drop columns on older devices, so the
+     * mail table is rebuilt; rowids are kept so the existing mail_fts rows stay valid.
+     */
+    public static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            MailSearchIndex.dropTriggers(db);
+            // The body column of mail_fts is written from Java from now on; index the inline bodies
+            db.execSQL("UPDATE mail_fts SET body = (SELECT body FROM mail WHERE mail.rowid = mail_fts.rowid)");
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS `mail_body` (`mailId` TEXT NOT NULL, " +
+                    "`content` BLOB, `compressed` INTEGER NOT NULL, PRIMARY KEY(`mailId`))");
+
+            SupportSQLiteStatement insert = db.compileStatement(
+                    "INSERT OR REPLACE INTO `mail_body` (`mailId`, `content`, `compressed`) VALUES (?, ?, ?)");
+            try (Cursor cursor = db.query("SELECT `id`, `body` FROM `mail` WHERE `body` IS NOT NULL")) {
+                while (cursor.moveToNext()) {
+                    MailBody body = MailBodyStore.encode(cursor.getString(0), cursor.getString(1));
+                    insert.bindString(1, body.getMailId());
+                    insert.bindBlob(2, body.getContent());
+                    insert.bindLong(3, body.isCompressed() ? 1 : 0);
+                    insert.executeInsert();
+                }
+            }
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS `mail_new` (`id` TEXT NOT NULL, `from` TEXT, " +
+                    "`subject` TEXT, `snippet` TEXT, `sentAt` INTEGER, `type` TEXT, " +
+                    "`isDraft` INTEGER NOT NULL, `isSpam` INTEGER NOT NULL, `isStar` INTEGER NOT NULL, " +
+                    "`isRead` INTEGER NOT NULL, PRIMARY KEY(`id`))");
+            db.execSQL("INSERT INTO `mail_new` (rowid, `id`, `from`, `subject`, `snippet`, `sentAt`, " +
+                    "`type`, `isDraft`, `isSpam`, `isStar`, `isRead`) " +
+                    "SELECT rowid, `id`, `from`, `subject`, `snippet`, `sentAt`, " +
+                    "`type`, `isDraft`, `isSpam`, `isStar`, `isRead` FROM `mail`");
+            db.execSQL("DROP TABLE `mail`");
+            db.execSQL("ALTER TABLE `mail_new` RENAME TO `mail`");
+
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_mail_from` ON `mail` (`from`)");
+            MIGRATION_2_3.migrate(db); // re-creates the category indexes (cross-ref ones already exist)
+
+            MailSearchIndex.createTriggers(db);
+            MailBodyStore.createTriggers(db);
+        }
+    };
+
+    /**
+     * v5 → v6: adds the trigger-maintained mailbox_counters table and counts the cached mails once.
+     */
+    public static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `mailbox_counters` (`mailbox` TEXT NOT NULL, " +
+                    "`total` INTEGER NOT NULL, `unread` INTEGER NOT NULL, PRIMARY KEY(`mailbox`))");
+            MailboxCounters.rebuild(db);
+            MailboxCounters.createTriggers(db);
+        }
+    };
+
+    /**
+     * v6 → v7: adds the mail_access table (last view time per mail) used for cache eviction.
+     */
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `mail_access` (`mailId` TEXT NOT NULL, " +
+                    "`lastViewedAt` INTEGER NOT NULL, PRIMARY KEY(`mailId`))");
+        }
+    };
+
+    /**
+     * v7 → v8: adds the mail_outbox table (mail changes waiting to be sent to the server).
+     */
+    public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `mail_outbox` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`mailId` TEXT NOT NULL, `type` TEXT NOT NULL, `argument` TEXT, `attempts` INTEGER NOT NULL, " +
+                    "`nextAttemptAt` INTEGER NOT NULL, `createdAt` INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_mail_outbox_mailId` ON `mail_outbox` (`mailId`)");
+        }
+    };
+
+    /**
+     * v8 → v9: recreates the mailbox counter triggers so only received mails count as unread,
+     * and recounts the cached mails.
+     */
+    public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            MailboxCounters.dropTriggers(db);
+            MailboxCounters.rebuild(db);
+            MailboxCounters.createTriggers(db);
+        }
+    };
+
+    /**
+     * v9 → v10: adds mail.updatedAt (the server's change time), so a fetched mail that did not
+     * change since it was cached is not saved again.
+     */
+    public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `mail` ADD COLUMN `updatedAt` INTEGER");
+        }
+    };
+
+    /**
+     * v10 → v11: copies mail.sentAt onto mail_label_cross_ref and replaces the labelId index with
+     * (labelId, sentAt DESC, mailId DESC), so label lists no longer sort every labeled mail.
+     */
+    public static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `mail_label_cross_ref` ADD COLUMN `sentAt` INTEGER");
+            MailLabelRefs.rebuild(db);
+            db.execSQL("DROP INDEX IF EXISTS `index_mail_label_cross_ref_labelId`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_mail_label_cross_ref_labelId_sentAt_mailId` " +
+                    "ON `mail_label_cross_ref` (`labelId` ASC, `sentAt` DESC, `mailId` DESC)");
+            MailLabelRefs.createTriggers(db);
+        }
+    };
+
+    /**
+     * v11 → v12: stops keeping a plain-text copy of every body in the search index.
+     * mail_fts is recreated without its body column, and bodies are indexed in the contentless
+     * mail_body_fts table instead, keyed by the new never-reused mail_body.docId.
+     */
+    public static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            MailSearchIndex.dropTriggers(db);
+            db.execSQL("DROP TABLE IF EXISTS `mail_fts`");
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `mail_fts` USING FTS4(" +
+                    "`subject` TEXT, `senderName` TEXT, `senderId` TEXT, `recipientIds` TEXT, tokenize=unicode61)");
+            MailSearchIndex.rebuild(db);
+            MailSearchIndex.createTriggers(db);
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS `mail_body_new` (" +
+                    "`docId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `mailId` TEXT NOT NULL, " +
+                    "`content` BLOB, `compressed` INTEGER NOT NULL)");
+            db.execSQL("INSERT INTO `mail_body_new` (`mailId`, `content`, `compressed`) " +
+                    "SELECT `mailId`, `content`, `compressed` FROM `mail_body`");
+            db.execSQL("DROP TABLE `mail_body`");
+            db.execSQL("ALTER TABLE `mail_body_new` RENAME TO `mail_body`");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_mail_body_mailId` ON `mail_body` (`mailId`)");
+
+            MailSearchIndex.rebuildBodyIndex(db);
+        }
+    };
+
+    /** All migrations, in version order. */
+    public static final Migration[] ALL = {
+            MIGRATION_1_2,
+            MIGRATION_2_3,
+            MIGRATION_3_4,
+            MIGRATION_4_5,
+            MIGRATION_5_6,
+            MIGRATION_6_7,
+            MIGRATION_7_8,
+            MIGRATION_8_9,
+            MIGRATION_9_10,
+            MIGRATION_10_11,
+            MIGRATION_11_12
+    };
+}
@@ -0,0 +1,39 @@
+package com.example.mail_app.data.db;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * Stores the mail delta sync token (the server's high-water mark of changes already applied
+ * to the local cache) in SharedPreferences. The token is opaque to the app.
+ */
+public class SyncTokenStore {
+    private static final String PREFS_NAME = "mail_sync";
+    private static final String KEY_TOKEN = "token";
+
+    /**
+     * Stores the sync token.
+     */
+    public static void saveToken(Context context, String token) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putString(KEY_TOKEN, token).apply();
+    }
+
+    /**
+     * Retrieves the sync token, or null if the cache was never synced.
+     */
+    public static String getToken(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        Object token = prefs.getAll().get(KEY_TOKEN);
+        // Older versions stored the token as epoch millis, which the server still accepts
+        return token != null ? String.valueOf(token) : null;
+    }
+
+    /**
+     * Removes the sync token (used on logout, together with the cache).
+     */
+    public static void clear(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().clear().apply();
+    }
+}
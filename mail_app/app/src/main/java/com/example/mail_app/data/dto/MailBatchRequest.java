@@ -0,0 +1,74 @@
+package com.example.mail_app.data.dto;
+
+import com.example.mail_app.data.entity.OutboxOperation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for a batch of mail changes sent in one request (POST mails/batch).
+ * The server applies the operations in order and answers with one result each.
+ */
+public class MailBatchRequest {
+    private final List<Operation> operations;
+
+    private MailBatchRequest(List<Operation> operations) {
+        this.operations = operations;
+    }
+
+    /**
+     * Builds the request for queued outbox operations, keeping their order.
+     */
+    public static MailBatchRequest of(List<OutboxOperation> queued) {
+        List<Operation> operations = new ArrayList<>(queued.size());
+        for (OutboxOperation operation : queued) {
+            operations.add(Operation.from(operation));
+        }
+        return new MailBatchRequest(operations);
+    }
+
+    /** @return The operations, in the order they are applied */
+    public List<Operation> getOperations() { return operations; }
+
+    /**
+     * One change: type is star, spam, read, addLabel, removeLabel or delete.
+     * value holds the flag of star and spam, labelId the label of label changes.
+     */
+    public static class Operation {
+        private final String type;
+        private final String mailId;
+        private final Boolean value;
+        private final String labelId;
+
+        private Operation(String type, String mailId, Boolean value, String labelId) {
+            this.type = type;
+            this.mailId = mailId;
+            this.value = value;
+            this.labelId = labelId;
+        }
+
+        static Operation from(OutboxOperation operation) {
+            String mailId = operation.getMailId();
+            switch (operation.getType()) {
+                case OutboxOperation.STAR:
+                    return new Operation("star", mailId, operation.getFlag(), null);
+                case OutboxOperation.SPAM:
+                    return new Operation("spam", mailId, operation.getFlag(), null);
+                case OutboxOperation.READ:
+                    return new Operation("read", mailId, null, null);
+                case OutboxOperation.ADD_LABEL:
+                    return new Operation("addLabel", mailId, null, operation.getArgument());
+                case OutboxOperation.REMOVE_LABEL:
+                    return new Operation("removeLabel", mailId, null, operation.getArgument());
+                default:
+                    return new Operation("delete", mailId, null, null);
+            }
+        }
+
+        /** @return Kind of change */
+        public String getType() { return type; }
+
+        /** @return ID of the changed mail */
+        public String getMailId() { return mailId; }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.mail_app.data.dto;
+
+import java.util.List;
+
+/**
+ * DTO representing the answer to a MailBatchRequest: one result per operation, in order,
+ * and the resulting state of every touched mail the server still has.
+ */
+public class MailBatchResponse {
+    private List<Result> results;
+    private List<MailFromServer> mails;
+
+    /** @return Results in the order of the request's operations */
+    public List<Result> getResults() { return results; }
+
+    /** @return Touched mails after the batch (deleted or unknown mails are missing) */
+    public List<MailFromServer> getMails() { return mails; }
+
+    /**
+     * Outcome of one operation: an HTTP status code (2xx on success, 424 if the operation was
+     * skipped because an earlier one of the same mail failed) and an optional error message.
+     */
+    public static class Result {
+        private int status;
+        private String error;
+
+        /** @return HTTP status of the operation */
+        public int getStatus() { return status; }
+
+        /** @return Error message, or null on success */
+        public String getError() { return error; }
+
+        /** @return True if the operation was applied */
+        public boolean isSuccessful() { return status >= 200 && status < 300; }
+    }
+}
@@ -25,6 +25,7 @@ public class MailFromServer {
     private boolean isSpam;
     private boolean isRead;
     private String type;
+    private Date updatedAt;
 
     // -------------------- Getters --------------------
 
@@ -61,6 +62,9 @@ public class MailFromServer {
     /** @return True if the mail was read */
     public boolean isRead() { return isRead; }
 
+    /** @return Server time of the user's last change to the mail (changes whenever it does) */
+    public Date getUpdatedAt() { return updatedAt; }
+
     /** @return Mail type: 'received', 'sent', etc. */
     public String getType() { return type; }
 
@@ -100,6 +104,7 @@ public class MailFromServer {
                 this.isStar(),
                 this.isRead()
         );
+        mail.setUpdatedAt(this.getUpdatedAt());
 
         fullMail.setMail(mail);
         fullMail.setToUserIds(this.getTo());
@@ -0,0 +1,31 @@
+package com.example.mail_app.data.dto;
+
+import java.util.List;
+
+/**
+ * DTO representing a delta sync response from the server.
+ * Contains the mails created or changed and the IDs of mails deleted since the
+ * requested sync token, plus the token to use for the next sync.
+ */
+public class MailSyncResponse {
+    private boolean reset;
+    private String token;
+    private boolean hasMore;
+    private List<MailFromServer> mails;
+    private List<String> deleted;
+
+    /** @return True if the token was missing or expired and the client must reload everything */
+    public boolean isReset() { return reset; }
+
+    /** @return Sync token (opaque position in the server's change log) covering this response */
+    public String getToken() { return token; }
+
+    /** @return True if more changes are pending after this page */
+    public boolean hasMore() { return hasMore; }
+
+    /** @return Mails created or changed since the requested token */
+    public List<MailFromServer> getMails() { return mails; }
+
+    /** @return IDs of mails deleted since the requested token */
+    public List<String> getDeleted() { return deleted; }
+}
@@ -4,7 +4,8 @@ import androidx.room.Embedded;
 import androidx.room.Ignore;
 import androidx.room.Relation;
 
-import java.io.Serializable;
+import com.example.mail_app.data.db.MailBodyStore;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,7 +13,7 @@ import java.util.List;
  * Represents a full mail entity including sender, recipients, and labels.
  * Combines multiple Room relationships into a single structure.
  */
-public class FullMail implements Serializable {
+public class FullMail {
 
     @Embedded
     private Mail mail;
@@ -39,6 +40,12 @@ public class FullMail implements Serializable {
             entityColumn = "mailId"
     )
     private List<MailRecipientCrossRef> recipientRefs;
+
+    @Relation(
+            parentColumn = "id",
+            entityColumn = "mailId"
+    )
+    private MailBody storedBody;
     @Ignore
     private List<String> toUserIds;
 
@@ -47,6 +54,21 @@ public class FullMail implements Serializable {
 
     public void setMail(Mail mail) { this.mail = mail; }
 
+    /**
+     * Returns the mail body. Bodies loaded from Room are decompressed on first access.
+     */
+    public String getBody() {
+        if (mail.getBody() == null && storedBody != null) {
+            mail.setBody(MailBodyStore.decode(storedBody));
+        }
+        return mail.getBody();
+    }
+
+    /** Returns the stored (possibly compressed) body row. */
+    public MailBody getStoredBody() { return storedBody; }
+
+    public void setStoredBody(MailBody storedBody) { this.storedBody = storedBody; }
+
     /** Returns the sender of the mail. */
     public PublicUser getFromUser() { return fromUser; }
 
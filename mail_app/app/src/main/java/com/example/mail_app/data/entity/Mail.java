@@ -2,6 +2,8 @@ package com.example.mail_app.data.entity;
 
 import androidx.annotation.NonNull;
 import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 import java.util.Date;
@@ -9,15 +11,38 @@ import java.util.Date;
 /**
  * Represents a mail entity stored locally in Room.
  */
-@Entity(tableName = "mail")
+@Entity(
+        tableName = "mail",
+        indices = {
+                @Index("from"),
+                // Category list predicates, each followed by the list order (newest first)
+                @Index(value = {"type", "isSpam", "sentAt"},
+                        orders = {Index.Order.ASC, Index.Order.ASC, Index.Order.DESC}),
+                @Index(value = {"type", "isDraft", "sentAt"},
+                        orders = {Index.Order.ASC, Index.Order.ASC, Index.Order.DESC}),
+                @Index(value = {"isDraft", "sentAt"},
+                        orders = {Index.Order.ASC, Index.Order.DESC}),
+                @Index(value = {"isSpam", "sentAt"},
+                        orders = {Index.Order.ASC, Index.Order.DESC}),
+                @Index(value = {"isStar", "sentAt"},
+                        orders = {Index.Order.ASC, Index.Order.DESC})
+        }
+)
 public class Mail {
+    // Maximum length of the list preview stored in snippet
+    public static final int SNIPPET_LENGTH = 140;
+
     @PrimaryKey
     @NonNull
     private String id;
 
     private String from;
     private String subject;
+    // Not a column: bodies live compressed in mail_body (see MailBodyStore).
+    // Set on mails built from server responses and on opened full mails.
+    @Ignore
     private String body;
+    private String snippet;
     private Date sentAt;
 
     private String type;
@@ -26,6 +51,14 @@ public class Mail {
     private boolean isStar;
     private boolean isRead;
 
+    // Server time of the user's last change to the mail (null for mails not saved from the server)
+    private Date updatedAt;
+
+    // Used by Room: columns are set through the setters
+    public Mail() {
+    }
+
+    @Ignore
     public Mail(@NonNull String id, String from, String subject, String body, Date sentAt,
                 String type, boolean isDraft, boolean isSpam,
                 boolean isStar, boolean isRead) {
@@ -33,6 +66,7 @@ public class Mail {
         this.from = from;
         this.subject = subject;
         this.body = body;
+        this.snippet = makeSnippet(body);
         this.sentAt = sentAt;
         this.type = type;
         this.isDraft = isDraft;
@@ -69,13 +103,23 @@ public class Mail {
         this.subject = subject;
     }
 
-    /** Returns the body of the mail. */
+    /** Returns the body of the mail (null for rows read from the mail table). */
     public String getBody() {
         return body;
     }
 
     public void setBody(String body) {
         this.body = body;
+        this.snippet = makeSnippet(body);
+    }
+
+    /** Returns the one-line preview of the body shown in mail lists. */
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public void setSnippet(String snippet) {
+        this.snippet = snippet;
     }
 
     /** Returns the send time of the mail. */
@@ -87,6 +131,15 @@ public class Mail {
         this.sentAt = sentAt;
     }
 
+    /** Returns the server time of the last change to the mail, or null if not known. */
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     /** Returns the mail type (sent/received). */
     public String getType() {
         return type;
@@ -131,4 +184,15 @@ public class Mail {
     public void setRead(boolean read) {
         isRead = read;
     }
+
+    /**
+     * Builds the list preview of a body: whitespace collapsed to single spaces,
+     * cut to SNIPPET_LENGTH characters.
+     */
+    public static String makeSnippet(String body) {
+        if (body == null) return null;
+
+        String snippet = body.replaceAll("\\s+", " ").trim();
+        return snippet.length() > SNIPPET_LENGTH ? snippet.substring(0, SNIPPET_LENGTH) : snippet;
+    }
 }
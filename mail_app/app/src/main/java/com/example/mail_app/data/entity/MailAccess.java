@@ -0,0 +1,29 @@
+package com.example.mail_app.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Last time a cached mail was opened, used to evict the least recently viewed mails first.
+ * Kept out of the mail table so saving a mail from the server does not reset it.
+ */
+@Entity(tableName = "mail_access")
+public class MailAccess {
+    @PrimaryKey
+    @NonNull
+    private String mailId;
+
+    private long lastViewedAt;
+
+    public MailAccess(@NonNull String mailId, long lastViewedAt) {
+        this.mailId = mailId;
+        this.lastViewedAt = lastViewedAt;
+    }
+
+    /** Returns the ID of the viewed mail. */
+    @NonNull public String getMailId() { return mailId; }
+
+    /** Returns when the mail was last opened (epoch millis). */
+    public long getLastViewedAt() { return lastViewedAt; }
+}
@@ -0,0 +1,44 @@
+package com.example.mail_app.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Body of a cached mail, kept out of the mail table so list queries never read it.
+ * Large bodies are stored Deflate-compressed (see MailBodyStore).
+ * Each stored body gets a new docId, its document ID in the body search index.
+ */
+@Entity(tableName = "mail_body", indices = {@Index(value = "mailId", unique = true)})
+public class MailBody {
+    // Never reused, so index entries of replaced or evicted bodies match no stored body
+    @PrimaryKey(autoGenerate = true)
+    private long docId;
+
+    @NonNull
+    private String mailId;
+
+    private byte[] content;
+    private boolean compressed;
+
+    public MailBody(@NonNull String mailId, byte[] content, boolean compressed) {
+        this.mailId = mailId;
+        this.content = content;
+        this.compressed = compressed;
+    }
+
+    /** Returns the document ID of the body in the search index (0 until stored). */
+    public long getDocId() { return docId; }
+
+    public void setDocId(long docId) { this.docId = docId; }
+
+    /** Returns the ID of the mail this body belongs to. */
+    @NonNull public String getMailId() { return mailId; }
+
+    /** Returns the stored bytes (UTF-8 text, or Deflate data if compressed). */
+    public byte[] getContent() { return content; }
+
+    /** Returns true if the content is Deflate-compressed. */
+    public boolean isCompressed() { return compressed; }
+}
@@ -0,0 +1,49 @@
+package com.example.mail_app.data.entity;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.PrimaryKey;
+
+/**
+ * Full-text search index over the subject, sender and recipients of cached mails.
+ * Each row shares its rowid with the matching row in the mail table and is kept
+ * in sync by the triggers created in MailSearchIndex.
+ * Bodies are indexed separately, in the contentless mail_body_fts table (see MailSearchIndex).
+ */
+@Fts4(tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "mail_fts")
+public class MailFts {
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private long rowId;
+
+    private String subject;
+    private String senderName;
+    private String senderId;
+    private String recipientIds;
+
+    public MailFts(long rowId, String subject, String senderName, String senderId, String recipientIds) {
+        this.rowId = rowId;
+        this.subject = subject;
+        this.senderName = senderName;
+        this.senderId = senderId;
+        this.recipientIds = recipientIds;
+    }
+
+    /** Returns the rowid of the indexed mail. */
+    public long getRowId() { return rowId; }
+
+    /** Returns the indexed subject. */
+    public String getSubject() { return subject; }
+
+    /** Returns the indexed sender display name. */
+    public String getSenderName() { return senderName; }
+
+    /** Returns the indexed sender user ID. */
+    public String getSenderId() { return senderId; }
+
+    /** Returns the indexed recipient user IDs (space separated). */
+    public String getRecipientIds() { return recipientIds; }
+}
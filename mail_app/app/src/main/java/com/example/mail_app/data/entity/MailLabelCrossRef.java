@@ -2,13 +2,22 @@ package com.example.mail_app.data.entity;
 
 import androidx.annotation.NonNull;
 import androidx.room.Entity;
+import androidx.room.Index;
+
+import java.util.Date;
 
 /**
  * Cross-reference entity connecting a mail with a label (many-to-many).
+ * Also holds a copy of the mail's send time, so label lists are read in order from the index.
  */
 @Entity(
         tableName = "mail_label_cross_ref",
-        primaryKeys = {"mailId", "labelId"}
+        primaryKeys = {"mailId", "labelId"},
+        indices = {
+                // Label list predicate followed by the list order (see MailDao.getMailsByLabelPage)
+                @Index(value = {"labelId", "sentAt", "mailId"},
+                        orders = {Index.Order.ASC, Index.Order.DESC, Index.Order.DESC})
+        }
 )
 public class MailLabelCrossRef {
     @NonNull
@@ -17,6 +26,9 @@ public class MailLabelCrossRef {
     @NonNull
     private String labelId;
 
+    // Copy of mail.sentAt, kept current by SQL triggers (see MailLabelRefs)
+    private Date sentAt;
+
     public MailLabelCrossRef(@NonNull String mailId, @NonNull String labelId) {
         this.mailId = mailId;
         this.labelId = labelId;
@@ -41,4 +53,13 @@ public class MailLabelCrossRef {
     public void setLabelId(@NonNull String labelId) {
         this.labelId = labelId;
     }
+
+    /** Returns the send time of the mail (copied from mail.sentAt). */
+    public Date getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(Date sentAt) {
+        this.sentAt = sentAt;
+    }
 }
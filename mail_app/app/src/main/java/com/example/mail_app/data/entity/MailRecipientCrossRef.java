@@ -2,13 +2,15 @@ package com.example.mail_app.data.entity;
 
 import androidx.annotation.NonNull;
 import androidx.room.Entity;
+import androidx.room.Index;
 
 /**
  * Cross-reference entity connecting a mail to a recipient (many-to-many).
  */
 @Entity(
         tableName = "mail_recipient_cross_ref",
-        primaryKeys = {"mailId", "userId"}
+        primaryKeys = {"mailId", "userId"},
+        indices = {@Index("userId")}
 )
 public class MailRecipientCrossRef {
     @NonNull
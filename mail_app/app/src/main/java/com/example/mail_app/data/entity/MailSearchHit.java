@@ -0,0 +1,38 @@
+package com.example.mail_app.data.entity;
+
+import androidx.room.Ignore;
+
+import java.util.Date;
+
+/**
+ * A single match returned by the full-text search index, before the mail itself is loaded.
+ * Holds the raw FTS4 matchinfo blob used to rank the hit.
+ */
+public class MailSearchHit {
+    private final String mailId;
+    private final byte[] matchInfo;
+    private final Date sentAt;
+
+    @Ignore
+    private double score;
+
+    public MailSearchHit(String mailId, byte[] matchInfo, Date sentAt) {
+        this.mailId = mailId;
+        this.matchInfo = matchInfo;
+        this.sentAt = sentAt;
+    }
+
+    /** Returns the ID of the matching mail. */
+    public String getMailId() { return mailId; }
+
+    /** Returns the matchinfo('pcx') blob of the hit. */
+    public byte[] getMatchInfo() { return matchInfo; }
+
+    /** Returns the send time of the matching mail. */
+    public Date getSentAt() { return sentAt; }
+
+    /** Returns the relevance score computed for this hit. */
+    public double getScore() { return score; }
+
+    public void setScore(double score) { this.score = score; }
+}
@@ -0,0 +1,179 @@
+package com.example.mail_app.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Ignore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Lightweight projection of a mail for list screens.
+ * Loaded by a single joined query: sender name/avatar come from public_users and labels are
+ * packed into one column, so no body and no per-row relation queries are needed.
+ */
+public class MailSummary {
+
+    // Separators used by the labelData column (ASCII unit / record separators)
+    public static final char LABEL_FIELD_SEPARATOR = '\u001F';
+    public static final char LABEL_SEPARATOR = '\u001E';
+
+    @NonNull
+    private final String id;
+    private final String senderId;
+    private final String senderName;
+    private final String senderImage;
+    private final String subject;
+    private final String snippet;
+    private final Date sentAt;
+    private final String type;
+    private final boolean isDraft;
+    private final boolean isSpam;
+    private final boolean isStar;
+    private final boolean isRead;
+    private final String labelData;
+
+    @Ignore
+    private List<Label> labels;
+
+    public MailSummary(@NonNull String id, String senderId, String senderName, String senderImage,
+                       String subject, String snippet, Date sentAt, String type,
+                       boolean isDraft, boolean isSpam, boolean isStar, boolean isRead,
+                       String labelData) {
+        this.id = id;
+        this.senderId = senderId;
+        this.senderName = senderName;
+        this.senderImage = senderImage;
+        this.subject = subject;
+        this.snippet = snippet;
+        this.sentAt = sentAt;
+        this.type = type;
+        this.isDraft = isDraft;
+        this.isSpam = isSpam;
+        this.isStar = isStar;
+        this.isRead = isRead;
+        this.labelData = labelData;
+    }
+
+    /**
+     * Builds a summary from an already loaded full mail (e.g. on the details screen).
+     */
+    public static MailSummary of(FullMail fullMail) {
+        Mail mail = fullMail.getMail();
+        PublicUser sender = fullMail.getFromUser();
+        MailSummary summary = new MailSummary(
+                mail.getId(),
+                mail.getFrom(),
+                sender != null ? sender.getName() : null,
+                sender != null ? sender.getProfileImage() : null,
+                mail.getSubject(),
+                mail.getSnippet(),
+                mail.getSentAt(),
+                mail.getType(),
+                mail.isDraft(),
+                mail.isSpam(),
+                mail.isStar(),
+                mail.isRead(),
+                null
+        );
+        summary.labels = fullMail.getLabels() != null ? fullMail.getLabels() : Collections.emptyList();
+        return summary;
+    }
+
+    /** Returns the mail ID. */
+    @NonNull public String getId() { return id; }
+
+    /** Returns the sender user ID. */
+    public String getSenderId() { return senderId; }
+
+    /** Returns the sender's display name. */
+    public String getSenderName() { return senderName; }
+
+    /** Returns the sender's profile image URL. */
+    public String getSenderImage() { return senderImage; }
+
+    /** Returns the subject of the mail. */
+    public String getSubject() { return subject; }
+
+    /** Returns the one-line body preview. */
+    public String getSnippet() { return snippet; }
+
+    /** Returns the send time of the mail. */
+    public Date getSentAt() { return sentAt; }
+
+    /** Returns the mail type (sent/received). */
+    public String getType() { return type; }
+
+    /** Returns true if the mail is a draft. */
+    public boolean isDraft() { return isDraft; }
+
+    /** Returns true if the mail is marked as spam. */
+    public boolean isSpam() { return isSpam; }
+
+    /** Returns true if the mail is starred. */
+    public boolean isStar() { return isStar; }
+
+    /** Returns true if the mail has been read. */
+    public boolean isRead() { return isRead; }
+
+    /** Returns the packed labels column (id, name, color per label). */
+    public String getLabelData() { return labelData; }
+
+    /** Returns the labels attached to the mail (unpacked from labelData on first use). */
+    public List<Label> getLabels() {
+        if (labels == null) {
+            labels = parseLabels(labelData);
+        }
+        return labels;
+    }
+
+    /** Returns the IDs of the labels attached to the mail. */
+    public ArrayList<String> getLabelIds() {
+        ArrayList<String> ids = new ArrayList<>();
+        for (Label label : getLabels()) {
+            ids.add(label.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Summaries are equal if all their loaded columns are. Labels are compared by the packed
+     * labelData column, which summaries built with of() do not have.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MailSummary)) return false;
+        MailSummary other = (MailSummary) o;
+        return isDraft == other.isDraft && isSpam == other.isSpam
+                && isStar == other.isStar && isRead == other.isRead
+                && id.equals(other.id)
+                && Objects.equals(senderId, other.senderId)
+                && Objects.equals(senderName, other.senderName)
+                && Objects.equals(senderImage, other.senderImage)
+                && Objects.equals(subject, other.subject)
+                && Objects.equals(snippet, other.snippet)
+                && Objects.equals(sentAt, other.sentAt)
+                && Objects.equals(type, other.type)
+                && Objects.equals(labelData, other.labelData);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    private static List<Label> parseLabels(String data) {
+        if (data == null || data.isEmpty()) return Collections.emptyList();
+
+        List<Label> parsed = new ArrayList<>();
+        for (String entry : data.split(String.valueOf(LABEL_SEPARATOR))) {
+            String[] fields = entry.split(String.valueOf(LABEL_FIELD_SEPARATOR), -1);
+            if (fields.length < 3 || fields[0].isEmpty()) continue;
+            parsed.add(new Label(fields[0], null, fields[1], fields[2].isEmpty() ? null : fields[2]));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.mail_app.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Total and unread mail counts of one mailbox (a category such as "inbox", or "label:<id>").
+ * Rows are maintained by SQLite triggers (see MailboxCounters), never written from Java.
+ */
+@Entity(tableName = "mailbox_counters")
+public class MailboxCounter {
+    @PrimaryKey
+    @NonNull
+    private String mailbox;
+
+    private int total;
+    private int unread;
+
+    public MailboxCounter(@NonNull String mailbox, int total, int unread) {
+        this.mailbox = mailbox;
+        this.total = total;
+        this.unread = unread;
+    }
+
+    /** Returns the mailbox key. */
+    @NonNull public String getMailbox() { return mailbox; }
+
+    /** Returns the number of mails in the mailbox. */
+    public int getTotal() { return total; }
+
+    /** Returns the number of unread mails in the mailbox. */
+    public int getUnread() { return unread; }
+}
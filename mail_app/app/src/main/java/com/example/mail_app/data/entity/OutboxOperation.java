@@ -0,0 +1,111 @@
+package com.example.mail_app.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * A mail change that was already applied to Room and still has to be sent to the server.
+ * Operations are sent in insertion order per mail (see MailOutbox); the argument holds the
+ * target state ("1"/"0" for flags, the label ID for label changes), so a retry never flips
+ * the state twice.
+ */
+@Entity(tableName = "mail_outbox", indices = {@Index("mailId")})
+public class OutboxOperation {
+
+    public static final String STAR = "STAR";
+    public static final String SPAM = "SPAM";
+    public static final String READ = "READ";
+    public static final String ADD_LABEL = "ADD_LABEL";
+    public static final String REMOVE_LABEL = "REMOVE_LABEL";
+    public static final String DELETE = "DELETE";
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    @NonNull
+    private String mailId;
+
+    @NonNull
+    private String type;
+
+    @Nullable
+    private String argument;
+
+    private int attempts;
+    private long nextAttemptAt;
+    private long createdAt;
+
+    public OutboxOperation(long id, @NonNull String mailId, @NonNull String type, @Nullable String argument,
+                           int attempts, long nextAttemptAt, long createdAt) {
+        this.id = id;
+        this.mailId = mailId;
+        this.type = type;
+        this.argument = argument;
+        this.attempts = attempts;
+        this.nextAttemptAt = nextAttemptAt;
+        this.createdAt = createdAt;
+    }
+
+    @Ignore
+    private OutboxOperation(@NonNull String mailId, @NonNull String type, @Nullable String argument) {
+        this(0, mailId, type, argument, 0, 0, System.currentTimeMillis());
+    }
+
+    /** Sets the star flag of a mail. */
+    public static OutboxOperation star(String mailId, boolean isStar) {
+        return new OutboxOperation(mailId, STAR, isStar ? "1" : "0");
+    }
+
+    /** Marks or unmarks a mail as spam. */
+    public static OutboxOperation spam(String mailId, boolean isSpam) {
+        return new OutboxOperation(mailId, SPAM, isSpam ? "1" : "0");
+    }
+
+    /** Marks a mail as read. */
+    public static OutboxOperation read(String mailId) {
+        return new OutboxOperation(mailId, READ, null);
+    }
+
+    /** Adds a label to a mail. */
+    public static OutboxOperation addLabel(String mailId, String labelId) {
+        return new OutboxOperation(mailId, ADD_LABEL, labelId);
+    }
+
+    /** Removes a label from a mail. */
+    public static OutboxOperation removeLabel(String mailId, String labelId) {
+        return new OutboxOperation(mailId, REMOVE_LABEL, labelId);
+    }
+
+    /** Deletes a mail. */
+    public static OutboxOperation delete(String mailId) {
+        return new OutboxOperation(mailId, DELETE, null);
+    }
+
+    /** Returns the queue position (operations are sent in ID order). */
+    public long getId() { return id; }
+
+    /** Returns the ID of the changed mail. */
+    @NonNull public String getMailId() { return mailId; }
+
+    /** Returns the kind of change (STAR, SPAM, READ, ADD_LABEL, REMOVE_LABEL or DELETE). */
+    @NonNull public String getType() { return type; }
+
+    /** Returns the target state or label ID, or null for READ and DELETE. */
+    @Nullable public String getArgument() { return argument; }
+
+    /** Returns the argument of a STAR or SPAM operation as a flag. */
+    public boolean getFlag() { return "1".equals(argument); }
+
+    /** Returns how many times sending failed so far. */
+    public int getAttempts() { return attempts; }
+
+    /** Returns the earliest time of the next attempt (epoch millis). */
+    public long getNextAttemptAt() { return nextAttemptAt; }
+
+    /** Returns when the change was made (epoch millis). */
+    public long getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,65 @@
+package com.example.mail_app.data.remote;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.http.GET;
+import retrofit2.http.Path;
+import retrofit2.http.Query;
+import retrofit2.http.Streaming;
+
+/**
+ * Mail list endpoints, returned as raw streams: a page is read mail by mail
+ * (see MailListStreamReader) instead of being mapped to objects in one piece.
+ * Create with AuthWebService.createStreaming, so the callbacks run off the main thread.
+ */
+public interface MailStreamWebService {
+    // Retrieves all mails (any type)
+    @Streaming
+    @GET("mails/allmails")
+    Call<ResponseBody> getAllMails(@Query("limit") int limit,
+                                   @Query("offset") int offset);
+
+    // Retrieves received mails (inbox)
+    @Streaming
+    @GET("mails/inbox")
+    Call<ResponseBody> getInboxMails(@Query("limit") int limit,
+                                     @Query("offset") int offset);
+
+    // Retrieves sent mails
+    @Streaming
+    @GET("mails/sent")
+    Call<ResponseBody> getSentMails(@Query("limit") int limit,
+                                    @Query("offset") int offset);
+
+    // Retrieves draft mails
+    @Streaming
+    @GET("mails/drafts")
+    Call<ResponseBody> getDraftMails(@Query("limit") int limit,
+                                     @Query("offset") int offset);
+
+    // Retrieves spam mails
+    @Streaming
+    @GET("mails/spam")
+    Call<ResponseBody> getSpamMails(@Query("limit") int limit,
+                                    @Query("offset") int offset);
+
+    // Retrieves starred mails
+    @Streaming
+    @GET("mails/starred")
+    Call<ResponseBody> getStarredMails(@Query("limit") int limit,
+                                       @Query("offset") int offset);
+
+    // Retrieves mails associated with a specific label
+    @Streaming
+    @GET("mails/labels-{labelId}")
+    Call<ResponseBody> getMailsByLabel(@Path("labelId") String labelId,
+                                       @Query("limit") int limit,
+                                       @Query("offset") int offset);
+
+    // Searches mails by query (subject, body, sender, etc.)
+    @Streaming
+    @GET("mails/search-{query}")
+    Call<ResponseBody> searchMails(@Path("query") String query,
+                                   @Query("limit") int limit,
+                                   @Query("offset") int offset);
+}
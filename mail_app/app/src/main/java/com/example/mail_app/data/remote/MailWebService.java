@@ -1,16 +1,16 @@
 package com.example.mail_app.data.remote;
 
+import com.example.mail_app.data.dto.MailBatchRequest;
+import com.example.mail_app.data.dto.MailBatchResponse;
 import com.example.mail_app.data.dto.MailFromServer;
-import com.example.mail_app.data.dto.MailListResponse;
+import com.example.mail_app.data.dto.MailSyncResponse;
 
+import java.util.List;
 import java.util.Map;
 
-import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
-import retrofit2.http.DELETE;
 import retrofit2.http.GET;
-import retrofit2.http.HTTP;
 import retrofit2.http.PATCH;
 import retrofit2.http.POST;
 import retrofit2.http.Path;
@@ -18,82 +18,29 @@ import retrofit2.http.Query;
 
 public interface MailWebService {
 
-    // Creates a new mail (draft or sent)
+    // Creates a new mail (draft or sent) and returns it
     @POST("mails")
-    Call<ResponseBody> createMail(@Body Map<String, Object> body);
+    Call<MailFromServer> createMail(@Body Map<String, Object> body);
 
-    // Sends an existing draft mail
+    // Sends an existing draft mail and returns the sent mail
     @PATCH("mails/{id}/send")
-    Call<ResponseBody> sendDraft(@Path("id") String mailId, @Body Map<String, Object> body);
+    Call<MailFromServer> sendDraft(@Path("id") String mailId, @Body Map<String, Object> body);
 
-    // Updates an existing draft (without sending it)
+    // Updates an existing draft (without sending it) and returns it
     @PATCH("mails/{id}")
-    Call<ResponseBody> updateMail(@Path("id") String mailId, @Body Map<String, Object> body);
+    Call<MailFromServer> updateMail(@Path("id") String mailId, @Body Map<String, Object> body);
 
-    // Deletes a mail by its ID
-    @DELETE("mails/{id}")
-    Call<Void> deleteMail(@Path("id") String mailId);
+    // Applies many changes (star, spam, read, labels, delete) across many mails in one request
+    @POST("mails/batch")
+    Call<MailBatchResponse> applyBatch(@Body MailBatchRequest body);
 
-    // Toggles the star status of a mail
-    @PATCH("mails/{id}/star")
-    Call<Void> toggleStar(@Path("id") String mailId);
+    // Retrieves several full mails in one request (comma-separated IDs, at most 100);
+    // mails the user cannot see are left out. Also marks them as read.
+    @GET("mails")
+    Call<List<MailFromServer>> getMailsByIds(@Query("ids") String mailIds);
 
-    // Toggles the spam status of a mail
-    @PATCH("mails/{id}/spam")
-    Call<Void> setSpam(@Path("id") String mailId, @Body Map<String, Boolean> body);
-
-    // Adds a label to a mail
-    @POST("mails/{id}/labels")
-    Call<Void> addLabelToMail(@Path("id") String mailId, @Body Map<String, String> body);
-
-    // Removes a label from a mail
-//    @DELETE("mails/{id}/labels")
-    @HTTP(method = "DELETE", path = "mails/{id}/labels/", hasBody = true)
-    Call<Void> removeLabelFromMail(@Path("id") String mailId, @Body Map<String, String> body);
-
-    // Retrieves a single mail by ID
-    @GET("mails/{id}")
-    Call<MailFromServer> getMailById(@Path("id") String mailId);
-
-    // Retrieves all mails (any type)
-    @GET("mails/allmails")
-    Call<MailListResponse> getAllMails(@Query("limit") int limit,
-                                       @Query("offset") int offset);
-
-    // Retrieves received mails (inbox)
-    @GET("mails/inbox")
-    Call<MailListResponse> getInboxMails(@Query("limit") int limit,
-                                         @Query("offset") int offset);
-
-    // Retrieves sent mails
-    @GET("mails/sent")
-    Call<MailListResponse> getSentMails(@Query("limit") int limit,
-                                        @Query("offset") int offset);
-
-    // Retrieves draft mails
-    @GET("mails/drafts")
-    Call<MailListResponse> getDraftMails(@Query("limit") int limit,
-                                         @Query("offset") int offset);
-
-    // Retrieves spam mails
-    @GET("mails/spam")
-    Call<MailListResponse> getSpamMails(@Query("limit") int limit,
-                                        @Query("offset") int offset);
-
-    // Retrieves starred mails
-    @GET("mails/starred")
-    Call<MailListResponse> getStarredMails(@Query("limit") int limit,
-                                           @Query("offset") int offset);
-
-    // Retrieves mails associated with a specific label
-    @GET("mails/labels-{labelId}")
-    Call<MailListResponse> getMailsByLabel(@Path("labelId") String labelId,
-                                           @Query("limit") int limit,
-                                           @Query("offset") int offset);
-
-    // Searches mails by query (subject, body, sender, etc.)
-    @GET("mails/search-{query}")
-    Call<MailListResponse> searchMails(@Path("query") String query,
-                                       @Query("limit") int limit,
-                                       @Query("offset") int offset);
+    // Retrieves the mails created, changed or deleted since a sync token (null for a fresh token)
+    @GET("mails/sync")
+    Call<MailSyncResponse> syncMails(@Query("since") String since,
+                                     @Query("limit") int limit);
 }
@@ -6,6 +6,7 @@ import com.example.mail_app.LocalDatabase;
 import com.example.mail_app.MyApp;
 import com.example.mail_app.app.api.LabelAPI;
 import com.example.mail_app.data.dao.LabelDao;
+import com.example.mail_app.data.db.DbDispatcher;
 import com.example.mail_app.data.entity.Label;
 import java.util.LinkedList;
 import java.util.List;
@@ -16,6 +17,7 @@ import java.util.List;
  */
 public class LabelRepository {
     private final LabelDao labelDao;
+    private final DbDispatcher dispatcher;
     private final LabelListData labelListData;
     private final LabelAPI api;
 
@@ -23,6 +25,7 @@ public class LabelRepository {
     public LabelRepository() {
         LocalDatabase db = MyApp.getInstance().getDatabase();
         this.labelDao = db.labelDao();
+        this.dispatcher = MyApp.getInstance().getDbDispatcher();
         this.labelListData = new LabelListData();
         this.api = new LabelAPI(labelListData, labelDao);
     }
@@ -40,7 +43,7 @@ public class LabelRepository {
         @Override
         protected void onActive() {
             super.onActive();
-            new Thread(() -> labelListData.postValue(labelDao.getAll())).start();
+            dispatcher.read(() -> labelListData.postValue(labelDao.getAll()));
         }
     }
 
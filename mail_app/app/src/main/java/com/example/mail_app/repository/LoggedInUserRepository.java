@@ -6,6 +6,7 @@ import com.example.mail_app.LocalDatabase;
 import com.example.mail_app.MyApp;
 import com.example.mail_app.app.api.LoggedInUserAPI;
 import com.example.mail_app.data.dao.LoggedInUserDao;
+import com.example.mail_app.data.db.DbDispatcher;
 import com.example.mail_app.data.dto.LoginResponse;
 import com.example.mail_app.data.dto.RegisterRequest;
 import com.example.mail_app.data.entity.LoggedInUser;
@@ -18,6 +19,7 @@ import retrofit2.Callback;
  */
 public class LoggedInUserRepository {
     private final LoggedInUserDao loggedInUserDao;
+    private final DbDispatcher dispatcher;
     private final LoggedInUserAPI api;
     private final MutableLiveData<LoggedInUser> userLiveData;
 
@@ -27,6 +29,7 @@ public class LoggedInUserRepository {
     public LoggedInUserRepository() {
         LocalDatabase db = MyApp.getInstance().getDatabase();
         loggedInUserDao = db.userDao();
+        dispatcher = MyApp.getInstance().getDbDispatcher();
         userLiveData = new UserLiveData();
         api = new LoggedInUserAPI(loggedInUserDao, userLiveData);
     }
@@ -43,9 +46,9 @@ public class LoggedInUserRepository {
         @Override
         protected void onActive() {
             super.onActive();
-            new Thread(() -> {
+            dispatcher.read(() -> {
                 userLiveData.postValue(loggedInUserDao.get());
-            }).start();
+            });
         }
     }
 
@@ -1,18 +1,28 @@
 package com.example.mail_app.repository;
 
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.MediatorLiveData;
 
 import com.example.mail_app.LocalDatabase;
 import com.example.mail_app.MyApp;
 import com.example.mail_app.app.api.MailAPI;
+import com.example.mail_app.app.network.SingleFlight;
 import com.example.mail_app.data.dao.MailDao;
 import com.example.mail_app.data.dao.PublicUserDao;
+import com.example.mail_app.data.db.MailListPage;
+import com.example.mail_app.data.db.MailListQuery;
 import com.example.mail_app.data.entity.FullMail;
+import com.example.mail_app.data.entity.MailSummary;
+import com.example.mail_app.data.entity.OutboxOperation;
+import com.example.mail_app.ui.mail.adapter.MailRow;
+import com.example.mail_app.utils.AppConstants;
+import com.example.mail_app.utils.MailDateFormatter;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
 import java.util.function.Consumer;
 
 /**
@@ -22,94 +32,188 @@ import java.util.function.Consumer;
 public class MailRepository {
     private final MailDao dao;
     private final PublicUserDao publicUserDao;
-    private final MailListData mailListData;
     private final MailAPI api;
 
-    /**
-     * Custom LiveData wrapper for observing and auto-refreshing mail list.
-     */
-    class MailListData extends MutableLiveData<List<FullMail>> {
-        public MailListData() {
-            super();
-            setValue(new LinkedList<>());
-        }
+    // The current list: its pages in order, their observed LiveData and their last rows
+    // (null until the page loaded). The list shown is the loaded pages concatenated.
+    private final List<MailListPage> pages = new ArrayList<>();
+    private final List<LiveData<List<MailRow>>> pageSources = new ArrayList<>();
+    private final List<List<MailRow>> pageRows = new ArrayList<>();
+    private final MediatorLiveData<List<MailRow>> mails = new MediatorLiveData<>();
 
-        @Override
-        protected void onActive() {
-            super.onActive();
-//            new Thread(() -> postValue(dao.getAllMails())).start();
-            new Thread(() -> postValue(dao.getInboxMails())).start();
-        }
-    }
+    // Mail list pages shared by all repositories, so identical pages observe a single Room query.
+    // Weak keys: an entry goes away once no page equal to its key is in use. Main thread only.
+    private static final Map<MailListPage, LiveData<List<MailRow>>> sharedPages = new WeakHashMap<>();
 
     /**
-     * Initializes the mail and user DAOs, LiveData wrapper, and MailAPI handler.
+     * Initializes the mail and user DAOs and the MailAPI handler. No list is observed until
+     * setListQuery is called, so screens that never show one (or not yet) run no list queries.
+     * Each page of the list re-reads Room whenever one of its tables changes, so network code
+     * only has to write to Room.
      */
     public MailRepository() {
         LocalDatabase db = MyApp.getInstance().getDatabase();
         this.dao = db.mailDao();
         this.publicUserDao = db.publicUserDao();
-        this.mailListData = new MailListData();
-        this.api = new MailAPI(mailListData, dao, publicUserDao);
+        this.api = new MailAPI(dao, publicUserDao);
+    }
+
+    // Returns the shared LiveData of a page, creating it (re-read on every change of its tables) if needed
+    private static LiveData<List<MailRow>> observePage(MailListPage page) {
+        LiveData<List<MailRow>> live = sharedPages.get(page);
+        if (live == null) {
+            LocalDatabase database = MyApp.getInstance().getDatabase();
+            // The loader holds a copy, so the map value never keeps its own key alive
+            MailListPage loaded = page.copy();
+            live = database.getInvalidationTracker().createLiveData(
+                    loaded.getTables(), false, new PageLoader(loaded, database.mailDao()));
+            sharedPages.put(page, live);
+        }
+        return live;
     }
 
     /**
-     * Returns observable LiveData of the current list of mails.
+     * Reads one page and prepares its rows for display (on Room's query thread). If the page
+     * reads back the same mails on the same day, the previous rows are returned as they are,
+     * so a write elsewhere in the list neither rebuilds nor re-diffs this page.
      */
-    public LiveData<List<FullMail>> getLiveData() {
-        return mailListData;
-    }
+    private static final class PageLoader implements Callable<List<MailRow>> {
+        private final MailListPage page;
+        private final MailDao dao;
+
+        // Room runs one load of a LiveData at a time
+        private List<MailSummary> lastMails;
+        private List<MailRow> lastRows;
+        private MailDateFormatter lastDates;
+
+        PageLoader(MailListPage page, MailDao dao) {
+            this.page = page;
+            this.dao = dao;
+        }
 
-    /** Loads initial batch of mails from the server (first 100), resets Room. */
-    public void loadInitialMails() {
-        api.loadInitialMails();
+        @Override
+        public List<MailRow> call() {
+            List<MailSummary> loaded = page.load(dao);
+            MailDateFormatter dates = new MailDateFormatter();
+            if (lastRows != null && loaded.equals(lastMails) && dates.isSameDay(lastDates)) {
+                return lastRows;
+            }
+
+            lastRows = MailRow.build(loaded, dates, MyApp.getInstance());
+            lastMails = loaded;
+            lastDates = dates;
+            return lastRows;
+        }
     }
 
-    /** Loads inbox mails (from Room first, then server). */
-    public void loadInboxMails() {
-        api.loadInboxMailsFromRoomThenServer();
+    /**
+     * Returns observable LiveData of the current list of mails, as rows ready to display.
+     */
+    public LiveData<List<MailRow>> getLiveData() {
+        return mails;
     }
 
-    /** Loads all mails (from Room first, then server). */
-    public void loadAllMails() {
-        api.loadAllMailsFromRoomThenServer();
+    /** Switches the observed list to another category, label or search, starting at its first page. */
+    public void setListQuery(MailListQuery query) {
+        for (LiveData<List<MailRow>> source : pageSources) {
+            mails.removeSource(source);
+        }
+        pages.clear();
+        pageSources.clear();
+        pageRows.clear();
+        addPage(MailListPage.first(query, AppConstants.DEFAULT_PAGE_SIZE));
     }
 
-    /** Loads sent mails (from Room first, then server). */
-    public void loadSentMails() {
-        api.loadSentMailsFromRoomThenServer();
+    /**
+     * Adds the next page to the observed list (infinite scroll). The last page is closed at its
+     * last row and the new page starts right after it, so the pages already shown are not re-read.
+     * Does nothing while no list is observed, or while the last page is empty or not loaded:
+     * mails saved from the server fill it first.
+     */
+    public void loadNextPage() {
+        if (pages.isEmpty()) return;
+        int last = pages.size() - 1;
+        List<MailRow> rows = pageRows.get(last);
+        if (rows == null || rows.isEmpty()) return;
+
+        MailListPage page = pages.get(last);
+        MailSummary lastMail = rows.get(rows.size() - 1).getMail();
+        MailListPage closed = page.closedAt(lastMail);
+        if (!closed.equals(page)) {
+            // Until the closed page loads, its rows so far stay in the list
+            mails.removeSource(pageSources.get(last));
+            pages.set(last, closed);
+            pageSources.set(last, observePage(closed));
+            mails.addSource(pageSources.get(last), loaded -> onPageLoaded(closed, loaded));
+        }
+        addPage(page.next(lastMail));
     }
 
-    /** Loads draft mails (from Room first, then server). */
-    public void loadDraftMails() {
-        api.loadDraftMailsFromRoomThenServer();
+    private void addPage(MailListPage page) {
+        LiveData<List<MailRow>> source = observePage(page);
+        pages.add(page);
+        pageSources.add(source);
+        pageRows.add(null);
+        mails.addSource(source, loaded -> onPageLoaded(page, loaded));
     }
 
-    /** Loads spam mails (from Room first, then server). */
-    public void loadSpamMails() {
-        api.loadSpamMailsFromRoomThenServer();
-    }
+    // Stores the rows of a page and shows the loaded pages (up to the first one not loaded yet)
+    private void onPageLoaded(MailListPage page, List<MailRow> rows) {
+        int index = pages.indexOf(page);
+        if (index < 0 || pageRows.get(index) == rows) return; // replaced, or unchanged
 
-    /** Loads starred mails (from Room first, then server). */
-    public void loadStarredMails() {
-        api.loadStarredMailsFromRoomThenServer();
+        pageRows.set(index, rows);
+        List<MailRow> all = new ArrayList<>();
+        for (List<MailRow> loaded : pageRows) {
+            if (loaded == null) break;
+            all.addAll(loaded);
+        }
+        mails.setValue(all);
     }
 
-    /** Loads mails with a specific label (from Room then updates from server). */
-    public void loadMailsByLabel(String labelId, int limit, int offset) {
-        api.loadMailsByLabelWithoutSaving(labelId, limit, offset);
+    /**
+     * Fetches a page of the given list from the server into Room.
+     * onDone runs on the UI thread once the page is saved (or the request failed or was cancelled).
+     *
+     * @return a ticket to stop waiting for the request if the list is no longer shown
+     */
+    public SingleFlight.Ticket refreshList(MailListQuery query, int limit, int offset, Runnable onDone) {
+        switch (query.getSource()) {
+            case STARRED:
+                return api.fetchStarredMails(limit, offset, onDone);
+            case SENT:
+                return api.fetchSentMails(limit, offset, onDone);
+            case DRAFTS:
+                return api.fetchDraftMails(limit, offset, onDone);
+            case ALL:
+                return api.fetchAllMails(limit, offset, onDone);
+            case SPAM:
+                return api.fetchSpamMails(limit, offset, onDone);
+            case LABEL:
+                return api.fetchMailsByLabel(query.getArgument(), limit, offset, onDone);
+            case SEARCH:
+                return api.fetchSearchResults(query.getArgument(), limit, offset, onDone);
+            case INBOX:
+            default:
+                return api.fetchInboxMails(limit, offset, onDone);
+        }
     }
 
-    /** Searches mails by query (Room first, then server). */
-    public void searchMails(String query, int limit, int offset) {
-        api.searchMailsWithoutSaving(query, limit, offset);
+    /** Syncs Room with the server: changes since the last sync, or a full reload on first launch. */
+    public void loadInitialMails() {
+        api.loadInitialMails();
     }
 
-    /** Loads a specific mail by ID from Room first, then server. */
+    /** Marks a specific mail as read and refreshes it from the server. */
     public void loadMailById(String mailId) {
         api.loadMailById(mailId);
     }
 
+    /** Records that a mail was opened and re-downloads its body if it was evicted. */
+    public void openMail(String mailId) {
+        api.openMail(mailId);
+    }
+
     /** Sends a draft mail (PATCH + fetch updated mail). */
     public void sendDraft(String mailId, Map<String, Object> body, Consumer<String> onError) {
         api.sendDraft(mailId, body, onError);
@@ -125,77 +229,14 @@ public class MailRepository {
         api.updateMail(mailId, body, onError);
     }
 
-    /** Deletes a specific mail by ID. */
-    public void deleteMail(String mailId, Consumer<String> onError) {
-        api.deleteMail(mailId, onError);
-    }
-
-    /** Refreshes a specific mail inside the current LiveData list. */
-    public void refreshSingleMail(String mailId) {
-        api.refreshSingleMail(mailId);
-    }
-
     /** Toggles the star status of a mail. */
     public void toggleStar(String mailId, Consumer<String> onError) {
         api.toggleStar(mailId, onError);
     }
 
-    /** Marks a mail as spam or not. */
-    public void setSpam(String mailId, Map<String, Boolean> body, Runnable onSuccess,
-                        Consumer<String> onError) {
-        api.setSpam(mailId, body, onSuccess, onError);
-    }
-
-    /** Adds a label to a mail. */
-    public void addLabelToMail(String mailId, Map<String, String> body, Runnable onSuccess,
-                               Consumer<String> onError) {
-        api.addLabelToMail(mailId, body, onSuccess, onError);
-    }
-
-    /** Removes a label from a mail. */
-    public void removeLabelFromMail(String mailId, Map<String, String> body, Runnable onSuccess,
-                                    Consumer<String> onError) {
-        api.removeLabelFromMail(mailId, body, onSuccess, onError);
-    }
-
-    /** Scroll-loads inbox mails from server (no Room update). */
-    public void scrollLoadInboxMails(int offset, int limit) {
-        api.loadInboxMails(offset, limit);
-    }
-
-    /** Scroll-loads sent mails from server (no Room update). */
-    public void scrollLoadSentMails(int offset, int limit) {
-        api.loadSentMails(offset, limit);
-    }
-
-    /** Scroll-loads draft mails from server (no Room update). */
-    public void scrollLoadDraftMails(int offset, int limit) {
-        api.loadDraftMails(offset, limit);
-    }
-
-    /** Scroll-loads spam mails from server (no Room update). */
-    public void scrollLoadSpamMails(int offset, int limit) {
-        api.loadSpamMails(offset, limit);
-    }
-
-    /** Scroll-loads starred mails from server (no Room update). */
-    public void scrollLoadStarredMails(int offset, int limit) {
-        api.loadStarredMails(offset, limit);
-    }
-
-    /** Scroll-loads all mails from server (no Room update). */
-    public void scrollLoadAllMails(int offset, int limit) {
-        api.loadAllMails(offset, limit);
-    }
-
-    /** Scroll-loads mails by label from server (no Room update). */
-    public void scrollLoadMailsByLabel(String labelId, int offset, int limit) {
-        api.loadMailsByLabel(labelId, offset, limit);
-    }
-
-    /** Scroll-loads search result mails from server (no Room update). */
-    public void scrollSearchMails(String query, int offset, int limit) {
-        api.searchMails(query, offset, limit);
+    /** Applies several mail changes locally and sends them to the server in one batch. */
+    public void applyMailChanges(List<OutboxOperation> operations, Runnable onSuccess) {
+        api.applyMailChanges(operations, onSuccess);
     }
 
     /** Returns observable LiveData for a single mail by ID. */
@@ -0,0 +1,27 @@
+package com.example.mail_app.repository;
+
+import androidx.lifecycle.LiveData;
+import com.example.mail_app.LocalDatabase;
+import com.example.mail_app.MyApp;
+import com.example.mail_app.data.dao.MailboxCounterDao;
+import com.example.mail_app.data.entity.MailboxCounter;
+import java.util.List;
+
+/**
+ * Repository for the per-category and per-label mail counters.
+ * The counters are kept current by database triggers, so they are only read here.
+ */
+public class MailboxCounterRepository {
+    private final MailboxCounterDao counterDao;
+
+    /** Initializes the repository with database access. */
+    public MailboxCounterRepository() {
+        LocalDatabase db = MyApp.getInstance().getDatabase();
+        this.counterDao = db.mailboxCounterDao();
+    }
+
+    /** Returns LiveData of all counters, updated whenever cached mails change. */
+    public LiveData<List<MailboxCounter>> getAll() {
+        return counterDao.getAll();
+    }
+}
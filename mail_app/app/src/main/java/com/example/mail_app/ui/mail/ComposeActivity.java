@@ -14,6 +14,7 @@ import com.example.mail_app.data.entity.MailRecipientCrossRef;
 import com.example.mail_app.utils.UiUtils;
 import com.example.mail_app.viewmodel.MailViewModel;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -87,7 +88,7 @@ public class ComposeActivity extends AppCompatActivity {
         }
 
         // Set body if not empty
-        String body = mail.getBody();
+        String body = draft.getBody();
         if (body != null && !body.isBlank()) {
             bodyInput.setText(body);
         }
@@ -136,13 +137,8 @@ public class ComposeActivity extends AppCompatActivity {
         // Exit without saving
         if (to.isEmpty() && subject.isEmpty() && body.isEmpty()) {
             if (mailId != null) {
-                viewModel.deleteMail(mailId, msg -> {
-                    if (msg == null || msg.trim().isEmpty()) {
-                        finish();
-                    } else {
-                        UiUtils.showMessage(this, msg, this::finish);
-                    }
-                });
+                viewModel.deleteMails(Collections.singletonList(mailId)); // applied locally at once
+                finish();
             } else {
                 finish(); // Nothing to save or delete
             }
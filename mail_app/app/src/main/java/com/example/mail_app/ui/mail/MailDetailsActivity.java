@@ -17,8 +17,10 @@ import androidx.lifecycle.ViewModelProvider;
 
 import com.example.mail_app.R;
 import com.example.mail_app.data.entity.FullMail;
+import com.example.mail_app.data.entity.MailSummary;
 import com.example.mail_app.ui.mail.component.LabelChip;
 import com.example.mail_app.ui.mail.component.MailMenu;
+import com.example.mail_app.ui.view.LabelChipsView;
 import com.example.mail_app.ui.view.UserAvatarView;
 import com.example.mail_app.utils.MailUtils;
 import com.example.mail_app.utils.UiUtils;
@@ -64,6 +66,8 @@ public class MailDetailsActivity extends AppCompatActivity {
             return;
         }
 
+        viewModel.openMail(mailId);
+
         // Observe LiveData for the given mail ID
         viewModel.getLiveMailById(mailId).observe(this, mail -> {
             if (mail != null) {
@@ -80,7 +84,7 @@ public class MailDetailsActivity extends AppCompatActivity {
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         if (currentMail != null) {
-            MailMenu.setupMenu(this, menu, currentMail);
+            MailMenu.setupMenu(this, menu, MailSummary.of(currentMail));
             return true;
         }
         return false;
@@ -99,7 +103,7 @@ public class MailDetailsActivity extends AppCompatActivity {
         }
 
         return MailMenu.handleMenuItemClick(
-                this, item, currentMail, viewModel,
+                this, item, MailSummary.of(currentMail), viewModel,
                 () -> {
                     if (item.getItemId() == R.id.action_delete) {
                         finish();
@@ -141,7 +145,7 @@ public class MailDetailsActivity extends AppCompatActivity {
                         : ""
         );
 
-        bodyText.setText(mail.getMail().getBody());
+        bodyText.setText(mail.getBody());
 
         // Load avatar image or fallback
         String uri = mail.getFromUser().getProfileImage();
@@ -167,7 +171,8 @@ public class MailDetailsActivity extends AppCompatActivity {
         }
 
         // Display label chips
-        LabelChip.displayLabelChips(this, findViewById(R.id.labelContainer), mail.getLabels(), true);
+        LabelChipsView labelChips = findViewById(R.id.labelContainer);
+        labelChips.setChips(LabelChip.specsOf(mail.getLabels()), true);
     }
 
     /**
@@ -15,17 +15,19 @@ import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.example.mail_app.R;
-import com.example.mail_app.data.entity.FullMail;
+import com.example.mail_app.data.entity.MailSummary;
 import com.example.mail_app.ui.mail.action.MailActionModeCallback;
 import com.example.mail_app.ui.mail.adapter.MailListAdapter;
+import com.example.mail_app.ui.mail.adapter.MailRow;
+import com.example.mail_app.ui.view.AvatarLoader;
 import com.example.mail_app.utils.UiUtils;
 import com.example.mail_app.viewmodel.MailViewModel;
 
-import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Fragment that displays a list of mails (inbox, sent, drafts, etc.)
- * Supports infinite scroll, pull-to-refresh, and long-click actions.
+ * Supports infinite scroll, pull-to-refresh, and long-click actions on one or more mails.
  */
 public class MailListFragment extends Fragment {
 
@@ -34,12 +36,16 @@ public class MailListFragment extends Fragment {
     private SwipeRefreshLayout swipeRefresh;
     private boolean isLoading = false; // Prevents duplicate loading
     private static final int VISIBLE_THRESHOLD = 4; // When to trigger "load more"
+    private static final int ROW_POOL_SIZE = 30; // Unbound rows kept for reuse (about three screens)
+    private static final int ROW_CACHE_SIZE = 6; // Scrolled-off rows kept bound (default 2)
+    private int avatarSizePx; // Size the row avatars are decoded at
+    private int prefetchedUpTo = 0; // Rows before this position had their avatars prefetched
 
     private static final String ARG_CATEGORY = "category";
     private String category;
 
     private ActionMode actionMode; // Action bar for long-press actions
-    private FullMail selectedMail;
+    private MailActionModeCallback selection; // Selected mails while the action bar is shown
 
     /**
      * Factory method to create a new instance with a specific category.
@@ -72,34 +78,32 @@ public class MailListFragment extends Fragment {
         swipeRefresh = view.findViewById(R.id.swipeRefresh);
 
         // Setup RecyclerView adapter with mail click listeners
-        adapter = new MailListAdapter(new ArrayList<>(), new MailListAdapter.OnMailClickListener() {
+        adapter = new MailListAdapter(new MailListAdapter.OnMailClickListener() {
             @Override
-            public void onClick(FullMail mail) {
+            public void onClick(MailSummary mail) {
                 if (actionMode != null) {
-                    actionMode.finish(); // Exit selection mode on normal click
+                    selection.toggleSelection(mail); // Add to / remove from the selection
                 } else {
                     onMailClick(mail);
                 }
             }
 
             @Override
-            public void onLongClick(FullMail mail) {
+            public void onLongClick(MailSummary mail) {
                 if (actionMode == null) {
-                    selectedMail = mail;
-                    adapter.setSelectedMailId(mail.getMail().getId());
-
-                    actionMode = requireActivity().startActionMode(
-                            new MailActionModeCallback(
-                                    requireContext(),
-                                    selectedMail,
-                                    viewModel,
-                                    adapter,
-                                    () -> {
-                                        actionMode = null;
-                                        selectedMail = null;
-                                    }
-                            )
+                    selection = new MailActionModeCallback(
+                            requireContext(),
+                            mail,
+                            viewModel,
+                            adapter,
+                            () -> {
+                                actionMode = null;
+                                selection = null;
+                            }
                     );
+                    actionMode = requireActivity().startActionMode(selection);
+                } else {
+                    selection.toggleSelection(mail);
                 }
             }
 
@@ -109,29 +113,46 @@ public class MailListFragment extends Fragment {
             }
         });
 
+        avatarSizePx = getResources().getDimensionPixelSize(R.dimen.mail_avatar_size);
+
         // Setup RecyclerView layout manager and attach adapter
         LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
         recyclerView.setLayoutManager(layoutManager);
         recyclerView.setAdapter(adapter);
 
+        // This one list shows every category, label and search. Rows of the previous list go to
+        // the pool and are rebound for the next one, so switching reuses inflated rows (the
+        // default pool keeps only 5); prefetching while scrolling also takes rows from the pool.
+        recyclerView.setHasFixedSize(true);
+        recyclerView.setItemViewCacheSize(ROW_CACHE_SIZE);
+        recyclerView.getRecycledViewPool().setMaxRecycledViews(0, ROW_POOL_SIZE);
+
         viewModel = new ViewModelProvider(requireActivity()).get(MailViewModel.class);
 
-        if (category != null) {
+        // Only when first shown: a recreated view keeps the list the user switched to, unless
+        // the ViewModel was recreated with the process and shows no list yet
+        if (category != null && (savedInstanceState == null || !viewModel.isShowingList())) {
             viewModel.setCategory(category); // Filters mails by category
         }
 
         TextView emptyTextView = view.findViewById(R.id.emptyTextView);
 
-        // Observe mails from ViewModel and update UI accordingly
+        // Observe mails from ViewModel (re-emitted on every Room change) and update UI accordingly
         viewModel.getMails().observe(getViewLifecycleOwner(), mails -> {
-            swipeRefresh.setRefreshing(false);
-            isLoading = false;
-
             adapter.setMails(mails);
+            prefetchedUpTo = 0; // Positions may now show other mails
 
             emptyTextView.setVisibility(mails.isEmpty() ? View.VISIBLE : View.GONE);
         });
 
+        // Stop the refresh indicator and allow the next "load more" once the server answered
+        viewModel.isRefreshing().observe(getViewLifecycleOwner(), refreshing -> {
+            if (!refreshing) {
+                swipeRefresh.setRefreshing(false);
+                isLoading = false;
+            }
+        });
+
         // Enable pull-to-refresh
         swipeRefresh.setOnRefreshListener(() -> {
             viewModel.reloadCurrentCategory(); // Reload current mail category or label
@@ -149,19 +170,37 @@ public class MailListFragment extends Fragment {
                     isLoading = true;
                     viewModel.loadMoreMails(); // Loads more based on current state
                 }
+
+                if (dy > 0) prefetchAvatars(layoutManager);
             }
         });
     }
 
+    /**
+     * Decodes the avatars of the next screen of rows before they scroll into view.
+     */
+    private void prefetchAvatars(LinearLayoutManager layoutManager) {
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION) return;
+
+        List<MailRow> rows = adapter.getCurrentList();
+        int end = Math.min(rows.size(), last + 1 + (last - first + 1));
+        for (int i = Math.max(last + 1, prefetchedUpTo); i < end; i++) {
+            AvatarLoader.preload(requireContext(), rows.get(i).getAvatarUrl(), avatarSizePx);
+        }
+        prefetchedUpTo = Math.max(prefetchedUpTo, end);
+    }
+
     /**
      * Handles mail item click.
      * If it's a draft, opens ComposeActivity to edit.
      * Otherwise, opens MailDetailsActivity to view mail.
      */
-    private void onMailClick(FullMail mail) {
-        String mailId = mail.getMail().getId();
+    private void onMailClick(MailSummary mail) {
+        String mailId = mail.getId();
 
-        if (mail.getMail().isDraft()) {
+        if (mail.isDraft()) {
             // Open Compose screen for editing draft
             Intent intent = new Intent(requireContext(), ComposeActivity.class);
             intent.putExtra(ComposeActivity.EXTRA_MAIL_ID, mailId);
@@ -113,11 +113,15 @@ public class MailPageActivity extends AppCompatActivity {
         mailViewModel = new ViewModelProvider(this).get(MailViewModel.class);
         mailViewModel.loadInitialMails();
 
-        // Display MailListFragment (initially with inbox category)
-        MailListFragment fragment = MailListFragment.newInstance(getString(R.string.sidebar_inbox));
-        getSupportFragmentManager().beginTransaction()
-                .replace(R.id.main_content, fragment)
-                .commit();
+        // Display MailListFragment (initially with inbox category). It hosts every category and
+        // label: switching only changes the ViewModel's list, and a recreated activity gets the
+        // fragment back from the FragmentManager instead of a new one.
+        if (savedInstanceState == null) {
+            MailListFragment fragment = MailListFragment.newInstance(getString(R.string.sidebar_inbox));
+            getSupportFragmentManager().beginTransaction()
+                    .replace(R.id.main_content, fragment)
+                    .commit();
+        }
     }
 
     /**
@@ -13,10 +13,12 @@ import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.mail_app.R;
+import com.example.mail_app.data.db.MailboxCounters;
 import com.example.mail_app.ui.view.LabelSidebarItem;
 import com.example.mail_app.ui.view.SidebarAdapter;
 import com.example.mail_app.ui.view.SidebarItem;
 import com.example.mail_app.viewmodel.LabelViewModel;
+import com.example.mail_app.viewmodel.MailboxCounterViewModel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -32,6 +34,7 @@ public class SidebarFragment extends Fragment {
     private RecyclerView recyclerView;
     private SidebarAdapter adapter;
     private LabelViewModel labelViewModel;
+    private MailboxCounterViewModel counterViewModel;
     private MailPageActivity parentActivity;
 
     @Nullable
@@ -47,9 +50,11 @@ public class SidebarFragment extends Fragment {
 
         labelViewModel = new ViewModelProvider(requireActivity()).get(LabelViewModel.class);
         labelViewModel.reloadLabels();
+        counterViewModel = new ViewModelProvider(requireActivity()).get(MailboxCounterViewModel.class);
 
         setupRecyclerView();
         observeLabels();
+        observeCounters();
 
         return view;
     }
@@ -82,12 +87,12 @@ public class SidebarFragment extends Fragment {
      */
     private void observeLabels() {
         List<Object> items = new ArrayList<>(Arrays.asList(
-                new SidebarItem(getString(R.string.sidebar_inbox), R.drawable.baseline_inbox_24),
-                new SidebarItem(getString(R.string.sidebar_starred), R.drawable.outline_star_outline_24),
-                new SidebarItem(getString(R.string.sidebar_sent), R.drawable.outline_send_24),
-                new SidebarItem(getString(R.string.sidebar_drafts), R.drawable.outline_draft_24),
-                new SidebarItem(getString(R.string.sidebar_all_mail), R.drawable.outline_stacked_email_24),
-                new SidebarItem(getString(R.string.sidebar_spam), R.drawable.outline_report_24)
+                new SidebarItem(getString(R.string.sidebar_inbox), R.drawable.baseline_inbox_24, MailboxCounters.INBOX),
+                new SidebarItem(getString(R.string.sidebar_starred), R.drawable.outline_star_outline_24, MailboxCounters.STARRED),
+                new SidebarItem(getString(R.string.sidebar_sent), R.drawable.outline_send_24, MailboxCounters.SENT),
+                new SidebarItem(getString(R.string.sidebar_drafts), R.drawable.outline_draft_24, MailboxCounters.DRAFTS),
+                new SidebarItem(getString(R.string.sidebar_all_mail), R.drawable.outline_stacked_email_24, MailboxCounters.ALL),
+                new SidebarItem(getString(R.string.sidebar_spam), R.drawable.outline_report_24, MailboxCounters.SPAM)
         ));
 
         labelViewModel.getLabels().observe(getViewLifecycleOwner(), labels -> {
@@ -100,4 +105,11 @@ public class SidebarFragment extends Fragment {
             adapter.updateItems(updatedItems);
         });
     }
+
+    /**
+     * Observes the mailbox counters and updates the unread badges.
+     */
+    private void observeCounters() {
+        counterViewModel.getCounters().observe(getViewLifecycleOwner(), adapter::updateCounters);
+    }
 }
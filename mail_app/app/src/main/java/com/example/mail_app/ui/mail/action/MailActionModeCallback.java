@@ -9,23 +9,30 @@ import android.view.View;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.mail_app.R;
-import com.example.mail_app.data.entity.FullMail;
+import com.example.mail_app.data.entity.MailSummary;
 import com.example.mail_app.ui.mail.dialog.LabelSelectionDialogFragment;
 import com.example.mail_app.ui.mail.component.MailMenu;
 import com.example.mail_app.ui.mail.adapter.MailListAdapter;
 import com.example.mail_app.viewmodel.MailViewModel;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
- * ActionMode.Callback implementation for handling long-press actions on a single mail item.
- * Displays the contextual action bar with options like delete, star, label, etc.
+ * ActionMode.Callback implementation for handling long-press actions on selected mail items.
+ * The long-pressed mail starts the selection; further mails are added or removed by tapping them.
+ * Displays the contextual action bar with options like delete, label, etc., applied to all
+ * selected mails in one batch.
  */
 public class MailActionModeCallback implements ActionMode.Callback {
 
     private final Context context;
-    private final FullMail selectedMail;
+    private final Map<String, MailSummary> selectedMails = new LinkedHashMap<>();
     private final MailViewModel viewModel;
     private final MailListAdapter adapter;
     private final Runnable onExit;
+    private ActionMode mode;
 
     /**
      * Constructor for the ActionMode callback.
@@ -36,12 +43,29 @@ public class MailActionModeCallback implements ActionMode.Callback {
      * @param adapter      The adapter used for the mail list
      * @param onExit       A callback to run when the ActionMode is exited
      */
-    public MailActionModeCallback(Context context, FullMail selectedMail, MailViewModel viewModel, MailListAdapter adapter, Runnable onExit) {
+    public MailActionModeCallback(Context context, MailSummary selectedMail, MailViewModel viewModel, MailListAdapter adapter, Runnable onExit) {
         this.context = context;
-        this.selectedMail = selectedMail;
         this.viewModel = viewModel;
         this.adapter = adapter;
         this.onExit = onExit;
+        selectedMails.put(selectedMail.getId(), selectedMail);
+        adapter.setSelected(selectedMail.getId(), true);
+    }
+
+    /**
+     * Adds a mail to the selection or removes it; ends the action mode when nothing is left.
+     */
+    public void toggleSelection(MailSummary mail) {
+        boolean selected = selectedMails.remove(mail.getId()) == null;
+        if (selected) selectedMails.put(mail.getId(), mail);
+        adapter.setSelected(mail.getId(), selected);
+
+        if (mode == null) return;
+        if (selectedMails.isEmpty()) {
+            mode.finish();
+        } else {
+            mode.invalidate(); // Rebuild the menu for the new selection
+        }
     }
 
     /**
@@ -50,22 +74,24 @@ public class MailActionModeCallback implements ActionMode.Callback {
      */
     @Override
     public boolean onCreateActionMode(ActionMode mode, Menu menu) {
+        this.mode = mode;
         mode.getMenuInflater().inflate(R.menu.mail_action_menu, menu);
 
         View searchBar = ((android.app.Activity) context).findViewById(R.id.search_bar_wrapper);
         if (searchBar != null) searchBar.setVisibility(View.GONE);
 
-        MailMenu.setupMenu(context, menu, selectedMail);
-
         return true;
     }
 
     /**
-     * Called to refresh the action mode (not used here).
+     * Called to refresh the action mode: shows the selection count and the actions
+     * that fit all selected mails.
      */
     @Override
     public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
-        return false;
+        mode.setTitle(String.valueOf(selectedMails.size()));
+        MailMenu.setupMenu(context, menu, new ArrayList<>(selectedMails.values()));
+        return true;
     }
 
     /**
@@ -77,7 +103,7 @@ public class MailActionModeCallback implements ActionMode.Callback {
         return MailMenu.handleMenuItemClick(
                 context,
                 item,
-                selectedMail,
+                new ArrayList<>(selectedMails.values()),
                 viewModel,
                 mode::finish, // close ActionMode on success
                 null // no UI update callback needed here
@@ -90,6 +116,8 @@ public class MailActionModeCallback implements ActionMode.Callback {
      */
     @Override
     public void onDestroyActionMode(ActionMode mode) {
+        this.mode = null;
+        selectedMails.clear();
         adapter.clearSelection();
         onExit.run();
 
@@ -0,0 +1,41 @@
+package com.example.mail_app.ui.mail.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+
+/**
+ * Compares two versions of the mail list for MailListAdapter (runs on a background thread).
+ * Rows are matched by mail ID; when only the star or read state of a mail changed, the
+ * change payload names it, so just that part of the row is rebound.
+ */
+class MailDiffCallback extends DiffUtil.ItemCallback<MailRow> {
+
+    // Payload flags (combined into one Integer); any other change rebinds the whole row
+    static final int PAYLOAD_STAR = 1;
+    static final int PAYLOAD_READ = 1 << 1;
+    static final int PAYLOAD_SELECTION = 1 << 2;
+
+    @Override
+    public boolean areItemsTheSame(@NonNull MailRow oldRow, @NonNull MailRow newRow) {
+        return oldRow.getId().equals(newRow.getId());
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull MailRow oldRow, @NonNull MailRow newRow) {
+        return oldRow.sameExceptFlags(newRow)
+                && oldRow.isStarred() == newRow.isStarred()
+                && oldRow.isUnread() == newRow.isUnread();
+    }
+
+    @Nullable
+    @Override
+    public Object getChangePayload(@NonNull MailRow oldRow, @NonNull MailRow newRow) {
+        if (!oldRow.sameExceptFlags(newRow)) return null;
+
+        int payload = 0;
+        if (oldRow.isStarred() != newRow.isStarred()) payload |= PAYLOAD_STAR;
+        if (oldRow.isUnread() != newRow.isUnread()) payload |= PAYLOAD_READ;
+        return payload;
+    }
+}
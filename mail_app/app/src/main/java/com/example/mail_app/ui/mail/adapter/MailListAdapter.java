@@ -5,41 +5,47 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.RecyclerView;
+import androidx.recyclerview.widget.ListAdapter;
 
 import com.example.mail_app.R;
-import com.example.mail_app.data.entity.FullMail;
+import com.example.mail_app.data.entity.MailSummary;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.function.Consumer;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * RecyclerView.Adapter for displaying a list of mails using MailViewHolder.
- * Handles mail clicks, long-press selection, and toggling stars.
+ * ListAdapter for displaying a list of mails (prepared MailRows) using MailViewHolder.
+ * New lists are diffed against the shown one off the main thread (see MailDiffCallback), so a
+ * Room emission only rebinds the rows that changed – and a star or read change only that part
+ * of its row. Handles mail clicks, long-press selection, and toggling stars.
  */
-public class MailListAdapter extends RecyclerView.Adapter<MailViewHolder> {
+public class MailListAdapter extends ListAdapter<MailRow, MailViewHolder> {
 
-    private List<FullMail> mails;
-    private final Consumer<String> onToggleStar;
     private final OnMailClickListener listener;
 
-    private String selectedMailId = null; // ID of the currently selected mail (for highlight)
+    private final Set<String> selectedMailIds = new HashSet<>(); // IDs of the selected mails (for highlight)
+
+    // Stable item IDs: mail IDs are strings, so each gets a number the first time it is shown
+    private final Map<String, Long> itemIds = new HashMap<>();
 
     /**
-     * Constructor that sets up mail list and click listeners.
+     * Constructor that sets up the click listeners.
      */
-    public MailListAdapter(List<FullMail> mails, OnMailClickListener listener) {
-        this.mails = mails;
+    public MailListAdapter(OnMailClickListener listener) {
+        super(new MailDiffCallback());
         this.listener = listener;
-        this.onToggleStar = listener::onToggleStar;
+        setHasStableIds(true);
     }
 
     /**
-     * Replaces the adapter's data and refreshes the UI.
+     * Shows a new version of the list; only the changed rows are updated.
      */
-    public void setMails(List<FullMail> newMails) {
-        this.mails = newMails;
-        notifyDataSetChanged();
+    public void setMails(List<MailRow> rows) {
+        submitList(rows);
     }
 
     /**
@@ -49,7 +55,7 @@ public class MailListAdapter extends RecyclerView.Adapter<MailViewHolder> {
     @Override
     public MailViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.mail_item, parent, false);
-        return new MailViewHolder(view);
+        return new MailViewHolder(view, listener);
     }
 
     /**
@@ -57,40 +63,85 @@ public class MailListAdapter extends RecyclerView.Adapter<MailViewHolder> {
      */
     @Override
     public void onBindViewHolder(@NonNull MailViewHolder holder, int position) {
-        FullMail mail = mails.get(position);
-        holder.bind(mail, selectedMailId, listener, onToggleStar);
+        MailRow row = getItem(position);
+        holder.bind(row, selectedMailIds.contains(row.getId()));
+    }
+
+    /**
+     * Rebinds only the parts of the row named by the payloads (see MailDiffCallback),
+     * or the whole row if there are none.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull MailViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        int changes = 0;
+        for (Object payload : payloads) {
+            changes |= (Integer) payload;
+        }
+
+        MailRow row = getItem(position);
+        holder.setRow(row);
+        if ((changes & MailDiffCallback.PAYLOAD_STAR) != 0) holder.bindStar(row);
+        if ((changes & MailDiffCallback.PAYLOAD_READ) != 0) holder.bindReadState(row);
+        if ((changes & MailDiffCallback.PAYLOAD_SELECTION) != 0) {
+            holder.bindSelection(selectedMailIds.contains(row.getId()));
+        }
     }
 
     /**
-     * Returns the number of mails currently displayed.
+     * Returns a stable ID for the mail at the given position.
      */
     @Override
-    public int getItemCount() {
-        return mails.size();
+    public long getItemId(int position) {
+        String mailId = getItem(position).getId();
+        Long id = itemIds.get(mailId);
+        if (id == null) {
+            id = (long) itemIds.size();
+            itemIds.put(mailId, id);
+        }
+        return id;
     }
 
     /**
      * Listener interface for click, long-click, and star-toggle events on a mail.
      */
     public interface OnMailClickListener {
-        void onClick(FullMail mail);
-        void onLongClick(FullMail mail);
+        void onClick(MailSummary mail);
+        void onLongClick(MailSummary mail);
         void onToggleStar(String mailId);
     }
 
     /**
-     * Sets the currently selected mail ID (for highlighting).
+     * Selects or deselects a mail (for highlighting).
      */
-    public void setSelectedMailId(String id) {
-        this.selectedMailId = id;
-        notifyDataSetChanged();
+    public void setSelected(String id, boolean selected) {
+        boolean changed = selected ? selectedMailIds.add(id) : selectedMailIds.remove(id);
+        if (changed) notifySelectionChanged(id);
     }
 
     /**
-     * Clears the selected mail (e.g. when ActionMode ends).
+     * Clears the selected mails (e.g. when ActionMode ends).
      */
     public void clearSelection() {
-        this.selectedMailId = null;
-        notifyDataSetChanged();
+        List<String> ids = new ArrayList<>(selectedMailIds);
+        selectedMailIds.clear();
+        for (String id : ids) {
+            notifySelectionChanged(id);
+        }
+    }
+
+    // Rebinds only the highlight of the mail's row (if it is in the list)
+    private void notifySelectionChanged(String mailId) {
+        List<MailRow> rows = getCurrentList();
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).getId().equals(mailId)) {
+                notifyItemChanged(i, MailDiffCallback.PAYLOAD_SELECTION);
+                return;
+            }
+        }
     }
 }
@@ -0,0 +1,112 @@
+package com.example.mail_app.ui.mail.adapter;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.example.mail_app.data.entity.MailSummary;
+import com.example.mail_app.ui.mail.component.LabelChip;
+import com.example.mail_app.ui.view.UserAvatarView;
+import com.example.mail_app.utils.MailDateFormatter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable, ready-to-show model of one row of the mail list.
+ * Rows are built on the background thread that loads the list (see build), so everything
+ * that needs formatting or parsing – date, avatar URL, label colors, bold/star state – is
+ * done there and MailViewHolder.bind only assigns fields.
+ */
+public final class MailRow {
+
+    private final MailSummary mail;
+    private final String senderName;
+    private final String subject;
+    private final String snippet;
+    private final String date;
+    private final String avatarUrl;
+    private final boolean draft;
+    private final boolean unread;
+    private final boolean starVisible;
+    private final boolean starred;
+    private final List<LabelChip.Spec> labels;
+
+    private MailRow(MailSummary mail, MailDateFormatter dates, Context context) {
+        this.mail = mail;
+        this.senderName = mail.getSenderName();
+        this.subject = mail.getSubject();
+        this.snippet = mail.getSnippet();
+        this.date = mail.getSentAt() != null ? dates.format(mail.getSentAt()) : "";
+        this.avatarUrl = UserAvatarView.resolveImageUrl(context, mail.getSenderImage());
+        this.draft = mail.isDraft();
+        this.unread = !mail.isRead();
+        this.starVisible = !mail.isSpam();
+        this.starred = mail.isStar();
+        this.labels = LabelChip.specsOf(mail.getLabels());
+    }
+
+    /**
+     * Builds the rows of a mail list. Runs off the main thread; dates are formatted relative
+     * to the time the formatter was created.
+     */
+    public static List<MailRow> build(List<MailSummary> mails, MailDateFormatter dates, Context context) {
+        List<MailRow> rows = new ArrayList<>(mails.size());
+        for (MailSummary mail : mails) {
+            rows.add(new MailRow(mail, dates, context));
+        }
+        return rows;
+    }
+
+    /** Returns the mail shown by the row (passed to click listeners and actions). */
+    @NonNull public MailSummary getMail() { return mail; }
+
+    /** Returns the mail ID. */
+    @NonNull public String getId() { return mail.getId(); }
+
+    /** Returns the sender's display name (not shown for drafts). */
+    public String getSenderName() { return senderName; }
+
+    /** Returns the subject of the mail. */
+    public String getSubject() { return subject; }
+
+    /** Returns the one-line body preview. */
+    public String getSnippet() { return snippet; }
+
+    /** Returns the formatted send date. */
+    public String getDate() { return date; }
+
+    /** Returns the resolved avatar URL, or null for the default avatar. */
+    public String getAvatarUrl() { return avatarUrl; }
+
+    /** Returns true if the mail is a draft. */
+    public boolean isDraft() { return draft; }
+
+    /** Returns true if the row is shown in bold (unread mail). */
+    public boolean isUnread() { return unread; }
+
+    /** Returns true if the star icon is shown (not for spam). */
+    public boolean isStarVisible() { return starVisible; }
+
+    /** Returns true if the mail is starred. */
+    public boolean isStarred() { return starred; }
+
+    /** Returns the label chips shown under the mail. */
+    public List<LabelChip.Spec> getLabels() { return labels; }
+
+    /**
+     * Returns true if the row looks the same as the other one, apart from the star
+     * and read state.
+     */
+    boolean sameExceptFlags(MailRow other) {
+        return draft == other.draft
+                && starVisible == other.starVisible
+                && Objects.equals(senderName, other.senderName)
+                && Objects.equals(subject, other.subject)
+                && Objects.equals(snippet, other.snippet)
+                && Objects.equals(date, other.date)
+                && Objects.equals(avatarUrl, other.avatarUrl)
+                && labels.equals(other.labels);
+    }
+}
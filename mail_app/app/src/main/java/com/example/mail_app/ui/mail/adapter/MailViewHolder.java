@@ -3,39 +3,42 @@ package com.example.mail_app.ui.mail.adapter;
 import android.content.Context;
 import android.graphics.Color;
 import android.graphics.Typeface;
-import android.util.TypedValue;
 import android.view.View;
 import android.widget.ImageView;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.mail_app.R;
-import com.example.mail_app.data.entity.FullMail;
-import com.example.mail_app.ui.mail.component.LabelChip;
+import com.example.mail_app.ui.view.LabelChipsView;
 import com.example.mail_app.ui.view.UserAvatarView;
-import com.example.mail_app.utils.MailUtils;
 import com.example.mail_app.utils.ThemeUtils;
 
-import java.util.function.Consumer;
-
 /**
  * ViewHolder class for displaying a single mail item inside the RecyclerView.
- * Binds mail data to the views and handles click interactions.
+ * Binds mail data to the views (whole rows or just the star, read state or highlight)
+ * and handles click interactions.
  */
 public class MailViewHolder extends RecyclerView.ViewHolder {
 
     private final TextView senderView, subjectView, dateView, bodyView;
     private final ImageView starIcon;
     private final UserAvatarView avatarView;
-    private final LinearLayout labelContainer;
+    private final LabelChipsView labelContainer;
+
+    // Colors and texts that depend only on the theme, resolved once per holder
+    private final int textColor, draftColor, selectedColor, starColor, starOffColor;
+    private final String draftLabel;
+
+    // The row currently shown (clicks always report the latest version of its mail)
+    private MailRow row;
 
     /**
-     * Constructor initializes all views used to display the mail.
+     * Constructor initializes all views used to display the mail and sets up the click handling
+     * once, so binding a row never creates listeners.
      */
-    public MailViewHolder(View itemView) {
+    public MailViewHolder(View itemView, MailListAdapter.OnMailClickListener listener) {
         super(itemView);
         senderView = itemView.findViewById(R.id.mailSender);
         subjectView = itemView.findViewById(R.id.mailSubject);
@@ -44,81 +47,96 @@ public class MailViewHolder extends RecyclerView.ViewHolder {
         starIcon = itemView.findViewById(R.id.mailStar);
         avatarView = itemView.findViewById(R.id.mailAvatar);
         labelContainer = itemView.findViewById(R.id.mailLabelContainer);
+
+        Context context = itemView.getContext();
+        textColor = ThemeUtils.resolveThemeColor(context, R.attr.text_color);
+        draftColor = ContextCompat.getColor(context, R.color.draft_red);
+        selectedColor = ContextCompat.getColor(context, R.color.selected_blue);
+        starColor = ContextCompat.getColor(context, R.color.star_yellow);
+        starOffColor = ContextCompat.getColor(context, R.color.gray);
+        draftLabel = context.getString(R.string.draft_label);
+        subjectView.setTextColor(textColor);
+
+        // Handle mail click (open or edit)
+        itemView.setOnClickListener(v -> {
+            if (row != null) listener.onClick(row.getMail());
+        });
+
+        // Handle long-click (enter selection mode)
+        itemView.setOnLongClickListener(v -> {
+            if (row != null) listener.onLongClick(row.getMail());
+            return true;
+        });
+
+        starIcon.setOnClickListener(v -> {
+            if (row != null) listener.onToggleStar(row.getId());
+        });
     }
 
     /**
-     * Binds a FullMail object to the UI, including avatar, subject, sender, labels, etc.
-     * Also handles click and long-click events.
+     * Binds a prepared row to the UI: avatar, subject, sender, date, labels, etc.
      */
-    public void bind(FullMail mail, String selectedMailId, MailListAdapter.OnMailClickListener listener, Consumer<String> onToggleStar) {
-        Context context = itemView.getContext();
-        if (mail == null || mail.getMail() == null) return;
+    public void bind(MailRow row, boolean selected) {
+        this.row = row;
 
-        // Highlight background if mail is selected
-        itemView.setBackgroundColor(
-                mail.getMail().getId().equals(selectedMailId)
-                        ? ContextCompat.getColor(context, R.color.selected_blue)
-                        : Color.TRANSPARENT
-        );
+        bindSelection(selected);
+        bindReadState(row);
 
         // Sender: show "Draft" label if mail is a draft, otherwise sender's name
-        if (mail.getMail().isDraft()) {
-            senderView.setText(context.getString(R.string.draft_label));
-            senderView.setTextColor(ContextCompat.getColor(context, R.color.draft_red));
-            senderView.setTypeface(null, Typeface.NORMAL);
+        if (row.isDraft()) {
+            senderView.setText(draftLabel);
+            senderView.setTextColor(draftColor);
         } else {
-            senderView.setText(mail.getFromUser().getName());
-            senderView.setTextColor(ThemeUtils.resolveThemeColor(context, R.attr.text_color));
-            senderView.setTypeface(null, mail.getMail().isRead() ? Typeface.NORMAL : Typeface.BOLD);
+            senderView.setText(row.getSenderName());
+            senderView.setTextColor(textColor);
         }
 
-        // Subject text and style
-        subjectView.setText(mail.getMail().getSubject());
-        subjectView.setTextColor(ThemeUtils.resolveThemeColor(context, R.attr.text_color));
-        subjectView.setTypeface(null, mail.getMail().isRead() ? Typeface.NORMAL : Typeface.BOLD);
-
-        // Mail body preview
-        bodyView.setText(mail.getMail().getBody());
-
-        // Sent date
-        dateView.setText(MailUtils.formatMailDate(mail.getMail().getSentAt()));
+        subjectView.setText(row.getSubject());
+        bodyView.setText(row.getSnippet()); // precomputed snippet, the full body is not loaded for lists
+        dateView.setText(row.getDate());
 
         // Sender avatar (profile image or default)
-        String imageUrl = mail.getFromUser().getProfileImage();
-        if (imageUrl != null && !imageUrl.isEmpty()) {
-            avatarView.setImageUrl(imageUrl);
-        } else {
-            avatarView.setImageRes(R.drawable.default_avatar);
-        }
+        avatarView.setResolvedImageUrl(row.getAvatarUrl());
 
-        // Star icon (visible only if not spam)
-        if (mail.getMail().isSpam()) {
-            starIcon.setVisibility(View.GONE);
-        } else {
-            starIcon.setVisibility(View.VISIBLE);
-            boolean isStarred = mail.getMail().isStar();
-            starIcon.setImageResource(isStarred ? R.drawable.baseline_star : R.drawable.outline_star);
-            starIcon.setColorFilter(ContextCompat.getColor(context, isStarred ? R.color.star_yellow : R.color.gray));
-            starIcon.setOnClickListener(v -> onToggleStar.accept(mail.getMail().getId()));
-        }
+        bindStar(row);
 
         // Display label chips under the mail
-        setupLabels(mail, context);
+        labelContainer.setChips(row.getLabels(), false);
+    }
 
-        // Handle mail click (open or edit)
-        itemView.setOnClickListener(v -> listener.onClick(mail));
+    /**
+     * Updates the row reported by clicks without rebinding anything (for partial rebinds).
+     */
+    public void setRow(MailRow row) {
+        this.row = row;
+    }
 
-        // Handle long-click (enter selection mode)
-        itemView.setOnLongClickListener(v -> {
-            listener.onLongClick(mail);
-            return true;
-        });
+    /**
+     * Highlights the background if the mail is selected.
+     */
+    public void bindSelection(boolean selected) {
+        itemView.setBackgroundColor(selected ? selectedColor : Color.TRANSPARENT);
+    }
+
+    /**
+     * Shows unread mails in bold (a draft's sender label is never bold).
+     */
+    public void bindReadState(MailRow row) {
+        int style = row.isUnread() ? Typeface.BOLD : Typeface.NORMAL;
+        senderView.setTypeface(null, row.isDraft() ? Typeface.NORMAL : style);
+        subjectView.setTypeface(null, style);
     }
 
     /**
-     * Displays all label chips associated with the mail in the label container.
+     * Updates the star icon (visible only if not spam).
      */
-    private void setupLabels(FullMail mail, Context context) {
-        LabelChip.displayLabelChips(context, labelContainer, mail.getLabels(), false);
+    public void bindStar(MailRow row) {
+        if (!row.isStarVisible()) {
+            starIcon.setVisibility(View.GONE);
+        } else {
+            starIcon.setVisibility(View.VISIBLE);
+            starIcon.setImageResource(row.isStarred() ? R.drawable.baseline_star : R.drawable.outline_star);
+            starIcon.setColorFilter(row.isStarred() ? starColor : starOffColor);
+        }
     }
 }
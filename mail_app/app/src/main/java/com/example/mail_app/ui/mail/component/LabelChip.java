@@ -1,80 +1,75 @@
 package com.example.mail_app.ui.mail.component;
 
-import android.content.Context;
-import android.graphics.Typeface;
-import android.util.TypedValue;
-import android.view.ViewGroup;
-import android.widget.LinearLayout;
-import android.widget.TextView;
+import android.graphics.Color;
 
-import com.example.mail_app.R;
 import com.example.mail_app.data.entity.Label;
-import com.example.mail_app.utils.MailUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
- * Utility class for displaying label chips (colored tags) in mail views.
- * Can either limit the number of displayed chips (for compact layouts like mail list),
- * or show all of them with full horizontal scroll (e.g. mail details view).
+ * Utility class for label chips (colored tags) in mail views: turns labels into the chip
+ * specs that LabelChipsView draws.
  */
 public class LabelChip {
 
+    // Chip color used when a label has no valid color
+    private static final int DEFAULT_CHIP_COLOR = Color.LTGRAY;
+
     /**
-     * Displays label chips inside the given container.
-     *
-     * @param context   Context used for resolving theme attributes and screen dimensions
-     * @param container LinearLayout container to which chips will be added
-     * @param labels    List of labels to display
-     * @param showAll   If true, displays all labels (no limit). If false, shows up to 3 chips,
-     *                  and stops if total width exceeds 50% of screen.
+     * What a chip shows: the label name and its parsed color. Immutable, so it can be
+     * prepared off the main thread and compared when lists are diffed.
      */
-    public static void displayLabelChips(Context context, LinearLayout container, List<Label> labels, boolean showAll) {
-        container.removeAllViews();
+    public static final class Spec {
+        private final String name;
+        private final int color;
 
-        int added = 0;
-        int totalWidthPx = 0;
-        int maxLabels = 3; // max chips shown when showAll=false
-        int maxWidthPx = (int) (context.getResources().getDisplayMetrics().widthPixels * 0.5); // 50% of screen
+        public Spec(String name, int color) {
+            this.name = name;
+            this.color = color;
+        }
 
-        for (Label label : labels) {
-            // When not showing all labels, enforce limits
-            if (!showAll && (added >= maxLabels || totalWidthPx > maxWidthPx)) break;
+        /** Returns the label name shown on the chip. */
+        public String getName() { return name; }
 
-            // Create a styled TextView to represent the chip
-            TextView chip = new TextView(context);
-            chip.setText(label.getName());
-            chip.setTextColor(resolveTextColor(context));
-            chip.setTextSize(12f);
-            chip.setTypeface(null, Typeface.NORMAL);
-            chip.setPadding(24, 8, 24, 8);
-            chip.setBackground(MailUtils.getRoundedLabelDrawable(label.getColor())); // round background with color
+        /** Returns the chip background color (ARGB). */
+        public int getColor() { return color; }
 
-            // Set spacing between chips
-            ViewGroup.MarginLayoutParams params = new ViewGroup.MarginLayoutParams(
-                    ViewGroup.LayoutParams.WRAP_CONTENT,
-                    ViewGroup.LayoutParams.WRAP_CONTENT
-            );
-            params.setMarginEnd(8);
-            chip.setLayoutParams(params);
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Spec)) return false;
+            Spec other = (Spec) o;
+            return color == other.color && Objects.equals(name, other.name);
+        }
 
-            // Add chip to container
-            container.addView(chip);
-            chip.measure(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
-            totalWidthPx += chip.getMeasuredWidth() + params.getMarginEnd();
-            added++;
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(name) + color;
         }
     }
 
     /**
-     * Resolves the text color from the current theme's `text_color` attribute.
-     *
-     * @param context Context for theme access
-     * @return int color value
+     * Builds the chip specs of the given labels (parses their colors).
      */
-    private static int resolveTextColor(Context context) {
-        TypedValue typedValue = new TypedValue();
-        context.getTheme().resolveAttribute(R.attr.text_color, typedValue, true);
-        return typedValue.data;
+    public static List<Spec> specsOf(List<Label> labels) {
+        if (labels.isEmpty()) return Collections.emptyList();
+
+        List<Spec> specs = new ArrayList<>(labels.size());
+        for (Label label : labels) {
+            specs.add(new Spec(label.getName(), parseColor(label.getColor())));
+        }
+        return specs;
+    }
+
+    private static int parseColor(String colorHex) {
+        if (colorHex == null) return DEFAULT_CHIP_COLOR;
+        try {
+            return Color.parseColor(colorHex);
+        } catch (IllegalArgumentException e) {
+            return DEFAULT_CHIP_COLOR;
+        }
     }
 }
@@ -1,6 +1,5 @@
 package com.example.mail_app.ui.mail.component;
 
-import android.app.Activity;
 import android.content.Context;
 import android.graphics.drawable.Drawable;
 import android.view.Menu;
@@ -11,16 +10,22 @@ import androidx.core.content.ContextCompat;
 
 import com.example.mail_app.R;
 import com.example.mail_app.data.entity.FullMail;
+import com.example.mail_app.data.entity.MailSummary;
 import com.example.mail_app.ui.mail.dialog.LabelSelectionDialogFragment;
 import com.example.mail_app.utils.ThemeUtils;
-import com.example.mail_app.utils.UiUtils;
 import com.example.mail_app.viewmodel.MailViewModel;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 /**
  * Utility class for setting up and handling the Gmail-style top action menu
- * (delete, label, report spam, etc.) for a given mail item.
+ * (delete, label, report spam, etc.) for one mail or a multi-selection of mails.
+ * Actions on several mails are sent to the server as one batch.
  */
 public class MailMenu {
 
@@ -31,8 +36,26 @@ public class MailMenu {
      * Dynamically adds menu items to the top bar based on mail properties.
      * Supports delete, label, and report/unspam.
      */
-    public static void setupMenu(Context context, Menu menu, FullMail mail) {
+    public static void setupMenu(Context context, Menu menu, MailSummary mail) {
+        setupMenu(context, menu, Collections.singletonList(mail));
+    }
+
+    /**
+     * Same for several selected mails: label is offered if none of them is spam, report/unspam
+     * if all of them were received (unspam only when all are spam).
+     */
+    public static void setupMenu(Context context, Menu menu, List<MailSummary> mails) {
         menu.clear();
+        if (mails.isEmpty()) return;
+
+        boolean anySpam = false;
+        boolean allSpam = true;
+        boolean allReceived = true;
+        for (MailSummary mail : mails) {
+            anySpam |= mail.isSpam();
+            allSpam &= mail.isSpam();
+            allReceived &= RECEIVED.equals(mail.getType());
+        }
 
         // === Delete Action ===
         Drawable deleteIcon = ContextCompat.getDrawable(context, R.drawable.outline_delete_24);
@@ -44,7 +67,7 @@ public class MailMenu {
                 .setShowAsAction(MenuItem.SHOW_AS_ACTION_IF_ROOM);
 
         // === Label Action (only if NOT spam) ===
-        if (!mail.getMail().isSpam()) {
+        if (!anySpam) {
             Drawable labelIcon = ContextCompat.getDrawable(context, R.drawable.outline_label_24);
             if (labelIcon != null) {
                 labelIcon.mutate().setTint(ThemeUtils.resolveThemeColor(context, R.attr.gray_icon));
@@ -55,8 +78,8 @@ public class MailMenu {
         }
 
         // === Report/Unspam Action (only for received mails) ===
-        if (RECEIVED.equals(mail.getMail().getType())) {
-            boolean isSpam = mail.getMail().isSpam();
+        if (allReceived) {
+            boolean isSpam = allSpam;
             int iconRes = isSpam ? R.drawable.baseline_report_off : R.drawable.outline_report_24;
             Drawable reportIcon = ContextCompat.getDrawable(context, iconRes);
             if (reportIcon != null) {
@@ -77,40 +100,64 @@ public class MailMenu {
     public static boolean handleMenuItemClick(
             Context context,
             MenuItem item,
-            FullMail mail,
+            MailSummary mail,
             MailViewModel viewModel,
             Runnable onFinish, // callback to close ActionMode or Activity
             Consumer<FullMail> onMailUpdated // callback to refresh mail UI (optional)
+    ) {
+        return handleMenuItemClick(context, item, Collections.singletonList(mail), viewModel,
+                onFinish, onMailUpdated);
+    }
+
+    /**
+     * Same for several selected mails; each action is applied to all of them in one batch.
+     */
+    public static boolean handleMenuItemClick(
+            Context context,
+            MenuItem item,
+            List<MailSummary> mails,
+            MailViewModel viewModel,
+            Runnable onFinish,
+            Consumer<FullMail> onMailUpdated
     ) {
         int itemId = item.getItemId();
 
-        // === Delete Mail ===
+        List<String> mailIds = new ArrayList<>(mails.size());
+        for (MailSummary mail : mails) {
+            mailIds.add(mail.getId());
+        }
+
+        // === Delete Mails ===
         if (itemId == R.id.action_delete) {
-            viewModel.deleteMail(
-                    mail.getMail().getId(),
-                    msg -> UiUtils.showMessage((Activity) context, msg)
-            );
+            viewModel.deleteMails(mailIds);
             if (onFinish != null) onFinish.run();
             return true;
 
             // === Label Dialog ===
         } else if (itemId == R.id.action_label) {
-            LabelSelectionDialogFragment dialog = LabelSelectionDialogFragment.newInstance(mail, updated -> {
-                if (onMailUpdated != null) {
-                    onMailUpdated.accept(updated);
-                }
-            });
+            Map<String, ArrayList<String>> labelIdsByMail = new LinkedHashMap<>();
+            for (MailSummary mail : mails) {
+                labelIdsByMail.put(mail.getId(), mail.getLabelIds());
+            }
+            LabelSelectionDialogFragment dialog = LabelSelectionDialogFragment.newInstance(
+                    labelIdsByMail, updated -> {
+                        if (onMailUpdated != null) {
+                            onMailUpdated.accept(updated);
+                        }
+                    });
             dialog.show(((AppCompatActivity) context).getSupportFragmentManager(), LABEL_DIALOG_TAG);
             return true;
 
             // === Report Spam / Unspam ===
         } else if (itemId == R.id.action_report) {
-            boolean newSpamState = !mail.getMail().isSpam();
+            boolean allSpam = true;
+            for (MailSummary mail : mails) {
+                allSpam &= mail.isSpam();
+            }
             viewModel.setSpam(
-                    mail.getMail().getId(),
-                    newSpamState,
-                    () -> viewModel.reloadCurrentCategory(), // reload filtered mails
-                    msg -> UiUtils.showMessage((Activity) context, msg)
+                    mailIds,
+                    !allSpam,
+                    () -> { } // the list re-reads Room on its own
             );
             if (onFinish != null) onFinish.run();
             return true;
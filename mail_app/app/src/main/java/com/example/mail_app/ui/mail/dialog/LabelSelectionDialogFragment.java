@@ -15,31 +15,50 @@ import androidx.lifecycle.ViewModelProvider;
 import com.example.mail_app.R;
 import com.example.mail_app.data.entity.FullMail;
 import com.example.mail_app.data.entity.Label;
-import com.example.mail_app.utils.UiUtils;
 import com.example.mail_app.viewmodel.LabelViewModel;
 import com.example.mail_app.viewmodel.MailViewModel;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
 
 /**
- * Dialog for selecting labels to apply/remove from a specific mail.
- * Displays a checkbox list of all labels and applies changes via the ViewModel.
+ * Dialog for selecting labels to apply/remove from one or several mails.
+ * Displays a checkbox list of all labels (checked if every mail has the label) and applies
+ * the changed checkboxes to all mails via the ViewModel, as one batch.
  */
 public class LabelSelectionDialogFragment extends DialogFragment {
 
     private Consumer<FullMail> updatedCallback;
-    private static final String ARG_MAIL = "mail";
+    private static final String ARG_LABEL_IDS = "label_ids";
 
     /**
-     * Factory method to create a new instance of the dialog with a given mail and callback.
+     * Factory method to create a new instance of the dialog for a mail (by ID and its current
+     * label IDs) and a callback.
      */
-    public static LabelSelectionDialogFragment newInstance(FullMail mail,
+    public static LabelSelectionDialogFragment newInstance(String mailId, ArrayList<String> labelIds,
+                                                           Consumer<FullMail> callback) {
+        return newInstance(Collections.singletonMap(mailId, labelIds), callback);
+    }
+
+    /**
+     * Factory method for several mails (mail ID → its current label IDs). The callback only
+     * runs when a single mail was edited.
+     */
+    public static LabelSelectionDialogFragment newInstance(Map<String, ArrayList<String>> labelIdsByMail,
                                                            Consumer<FullMail> callback) {
         LabelSelectionDialogFragment fragment = new LabelSelectionDialogFragment();
+        Bundle labels = new Bundle();
+        for (Map.Entry<String, ArrayList<String>> mail : labelIdsByMail.entrySet()) {
+            labels.putStringArrayList(mail.getKey(), mail.getValue());
+        }
         Bundle args = new Bundle();
-        args.putSerializable(ARG_MAIL, mail);
+        args.putBundle(ARG_LABEL_IDS, labels);
         fragment.setArguments(args);
         fragment.updatedCallback = callback;
         return fragment;
@@ -56,8 +75,8 @@ public class LabelSelectionDialogFragment extends DialogFragment {
         LabelViewModel labelViewModel = new ViewModelProvider(activity).get(LabelViewModel.class);
         MailViewModel mailViewModel = new ViewModelProvider(activity).get(MailViewModel.class);
 
-        FullMail mail = (FullMail) getArguments().getSerializable(ARG_MAIL);
-        if (mail == null) {
+        Map<String, Set<String>> labelIdsByMail = readLabelIds();
+        if (labelIdsByMail.isEmpty()) {
             // Show error dialog if mail is null
             return new AlertDialog.Builder(requireContext())
                     .setTitle(getString(R.string.label_dialog_title_error))
@@ -69,16 +88,11 @@ public class LabelSelectionDialogFragment extends DialogFragment {
         // Observe labels and dynamically build checkboxes for each one
         labelViewModel.getLabels().observe(this, labels -> {
             checkboxContainer.removeAllViews();
-            Set<String> currentLabelIds = new HashSet<>();
-            for (Label l : mail.getLabels()) {
-                currentLabelIds.add(l.getId());
-            }
-
             for (Label label : labels) {
                 CheckBox checkBox = (CheckBox) getLayoutInflater()
                         .inflate(R.layout.item_label_checkbox, checkboxContainer, false);
                 checkBox.setText(label.getName());
-                checkBox.setChecked(currentLabelIds.contains(label.getId()));
+                checkBox.setChecked(allHaveLabel(labelIdsByMail, label.getId()));
                 checkBox.setTag(label.getId());
                 checkboxContainer.addView(checkBox);
             }
@@ -89,76 +103,63 @@ public class LabelSelectionDialogFragment extends DialogFragment {
                 .setTitle(getString(R.string.label_dialog_title))
                 .setView(dialogView)
                 .setPositiveButton(getString(R.string.label_dialog_ok), (dialog, which) -> {
-                    int[] pendingOps = {0};           // Tracks number of pending label ops
-                    boolean[] labelsChanged = {false}; // Tracks if labels were actually changed
+                    Set<String> added = new HashSet<>();
+                    Set<String> removed = new HashSet<>();
 
-                    // Loop through each checkbox and apply/remove labels accordingly
+                    // Only checkboxes the user changed are applied
                     for (int i = 0; i < checkboxContainer.getChildCount(); i++) {
                         View child = checkboxContainer.getChildAt(i);
                         if (child instanceof CheckBox) {
                             CheckBox cb = (CheckBox) child;
                             String labelId = (String) cb.getTag();
-                            boolean checked = cb.isChecked();
-
-                            boolean alreadyHasLabel = false;
-                            for (Label l : mail.getLabels()) {
-                                if (l.getId().equals(labelId)) {
-                                    alreadyHasLabel = true;
-                                    break;
-                                }
-                            }
+                            boolean wasChecked = allHaveLabel(labelIdsByMail, labelId);
 
-                            if (checked && !alreadyHasLabel) {
-                                // Add new label
-                                pendingOps[0]++;
-                                labelsChanged[0] = true;
-                                mailViewModel.addLabelToMail(
-                                        mail.getMail().getId(), labelId,
-                                        () -> handleLabelOpsCompletion(mailViewModel, mail.getMail().getId(), pendingOps, labelsChanged),
-                                        msg -> UiUtils.showMessage(requireActivity(), msg)
-                                );
-                            } else if (!checked && alreadyHasLabel) {
-                                // Remove existing label
-                                pendingOps[0]++;
-                                labelsChanged[0] = true;
-                                mailViewModel.removeLabelFromMail(
-                                        mail.getMail().getId(), labelId,
-                                        () -> handleLabelOpsCompletion(mailViewModel, mail.getMail().getId(), pendingOps, labelsChanged),
-                                        msg -> UiUtils.showMessage(requireActivity(), msg)
-                                );
+                            if (cb.isChecked() && !wasChecked) {
+                                added.add(labelId);
+                            } else if (!cb.isChecked() && wasChecked) {
+                                removed.add(labelId);
                             }
                         }
                     }
 
-                    // No changes were made – just refresh the mail list and notify
-                    if (pendingOps[0] == 0) {
-                        mailViewModel.reloadCurrentCategory();
-                        mailViewModel.refreshSingleMail(mail.getMail().getId());
-                        notifyCallbackIfNeeded(mailViewModel, mail.getMail().getId(), labelsChanged[0]);
-                    }
+                    // No changes were made
+                    if (added.isEmpty() && removed.isEmpty()) return;
+
+                    mailViewModel.updateLabels(labelIdsByMail, added, removed,
+                            () -> notifyCallbackIfNeeded(mailViewModel, labelIdsByMail.keySet()));
                 })
                 .setNegativeButton(getString(R.string.label_dialog_cancel), null)
                 .create();
     }
 
     /**
-     * Called after each label operation (add/remove). When all complete, triggers the callback.
+     * Reads the mails and their current label IDs from the arguments.
      */
-    private void handleLabelOpsCompletion(MailViewModel mailViewModel, String mailId,
-                                          int[] pendingOps, boolean[] labelsChanged) {
-        pendingOps[0]--;
-        if (pendingOps[0] == 0) {
-            notifyCallbackIfNeeded(mailViewModel, mailId, labelsChanged[0]);
+    private Map<String, Set<String>> readLabelIds() {
+        Map<String, Set<String>> labelIdsByMail = new LinkedHashMap<>();
+        Bundle labels = getArguments() != null ? getArguments().getBundle(ARG_LABEL_IDS) : null;
+        if (labels == null) return labelIdsByMail;
+
+        for (String mailId : labels.keySet()) {
+            List<String> labelIds = labels.getStringArrayList(mailId);
+            if (labelIds != null) labelIdsByMail.put(mailId, new HashSet<>(labelIds));
+        }
+        return labelIdsByMail;
+    }
+
+    private static boolean allHaveLabel(Map<String, Set<String>> labelIdsByMail, String labelId) {
+        for (Set<String> labelIds : labelIdsByMail.values()) {
+            if (!labelIds.contains(labelId)) return false;
         }
+        return true;
     }
 
     /**
-     * Notifies the UI via callback after label updates are complete.
+     * Notifies the UI via callback after label updates were applied (single mail only).
      */
-    private void notifyCallbackIfNeeded(MailViewModel viewModel, String mailId,
-                                        boolean shouldNotify) {
-        if (shouldNotify && updatedCallback != null) {
-            viewModel.getLiveMailById(mailId).observe(this, updated -> {
+    private void notifyCallbackIfNeeded(MailViewModel viewModel, Set<String> mailIds) {
+        if (mailIds.size() == 1 && updatedCallback != null) {
+            viewModel.getLiveMailById(mailIds.iterator().next()).observe(this, updated -> {
                 if (updated != null) {
                     updatedCallback.accept(updated);
                 }
@@ -20,8 +20,9 @@ import com.example.mail_app.viewmodel.MailViewModel;
 /**
  * Activity for performing full-text search on mails.
  * - Updates results in real-time as the user types.
- * - Shows up to 50 matching mails sorted by most recent.
- * - Replaces the fragment view with the search result list.
+ * - Shows the matching mails ranked by relevance (best match first), one page at a time.
+ * - Shows one result list for all searches; each search only changes the query it observes.
+ *   Nothing is queried until the first search: the list stays hidden and observes no mails.
  */
 public class SearchActivity extends AppCompatActivity {
 
@@ -32,8 +33,10 @@ public class SearchActivity extends AppCompatActivity {
     private Runnable searchRunnable;
     private String lastQuery = "";
 
+    private static final String TAG_RESULTS = "search_results";
+
     /**
-     * Initializes the activity, sets up listeners, and loads the initial empty fragment.
+     * Initializes the activity, sets up listeners, and adds the (hidden) result list.
      */
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -55,7 +58,7 @@ public class SearchActivity extends AppCompatActivity {
             /**
              * Called when the search text changes.
              * - Runs a delayed search after debounce time.
-             * - Updates the mail list with 50 results.
+             * - Shows the first page of ranked results.
              */
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
@@ -64,14 +67,14 @@ public class SearchActivity extends AppCompatActivity {
 
                 if (lastQuery.isEmpty()) {
                     clearButton.setVisibility(View.GONE);
-                    loadEmptyFragment();
+                    showResults(false);
                 } else {
                     clearButton.setVisibility(View.VISIBLE);
 
                     searchRunnable = () -> {
                         viewModel.setCategory("Search");
-                        viewModel.searchMails(lastQuery, AppConstants.DEFAULT_PAGE_SIZE, AppConstants.DEFAULT_PAGE_OFFSET);
-                        loadMailListFragment();
+                        viewModel.searchMails(lastQuery);
+                        showResults(true);
                     };
                     handler.postDelayed(searchRunnable, AppConstants.SEARCH_DEBOUNCE_DELAY_MS);
                 }
@@ -80,27 +83,31 @@ public class SearchActivity extends AppCompatActivity {
 
         clearButton.setOnClickListener(v -> searchInput.setText(""));
 
-        // Load empty state initially
-        loadEmptyFragment();
+        // Add the result list once, hidden until the first search
+        // (a recreated activity gets it back from the FragmentManager)
+        if (getSupportFragmentManager().findFragmentByTag(TAG_RESULTS) == null) {
+            Fragment results = MailListFragment.newInstance("Search");
+            getSupportFragmentManager().beginTransaction()
+                    .add(R.id.search_fragment_container, results, TAG_RESULTS)
+                    .hide(results)
+                    .commit();
+        }
     }
 
     /**
-     * Loads the MailListFragment to show search results.
+     * Shows the result list, or hides it while the search input is empty.
+     * The same fragment (with its rows) serves every search.
      */
-    private void loadMailListFragment() {
-        Fragment fragment = MailListFragment.newInstance("Search");
-        FragmentTransaction transaction = getSupportFragmentManager().beginTransaction();
-        transaction.replace(R.id.search_fragment_container, fragment);
-        transaction.commit();
-    }
+    private void showResults(boolean show) {
+        Fragment results = getSupportFragmentManager().findFragmentByTag(TAG_RESULTS);
+        if (results == null || results.isHidden() != show) return;
 
-    /**
-     * Loads a blank fragment (used when search input is empty).
-     */
-    private void loadEmptyFragment() {
-        Fragment emptyFragment = new Fragment();
         FragmentTransaction transaction = getSupportFragmentManager().beginTransaction();
-        transaction.replace(R.id.search_fragment_container, emptyFragment);
+        if (show) {
+            transaction.show(results);
+        } else {
+            transaction.hide(results);
+        }
         transaction.commit();
     }
 }
@@ -0,0 +1,70 @@
+package com.example.mail_app.ui.view;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.widget.ImageView;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.example.mail_app.MyApp;
+import com.example.mail_app.R;
+
+/**
+ * Loads profile pictures through Glide's memory and disk caches.
+ * - Images are decoded at a size bucket just above the view size (or not resized if the
+ *   size is unknown), so avatars of one size share a decoded bitmap in the bounded memory
+ *   LRU, and a prefetched avatar is the exact one the row shows later
+ * - Picture URLs carry the image version (?v=), so a changed picture has a new cache key and
+ *   the caches never need to be skipped to see updates
+ * - Offline, only cached images are used instead of failing network requests
+ */
+public final class AvatarLoader {
+
+    // Smallest size bucket (px); buckets double from here
+    private static final int MIN_BUCKET_PX = 32;
+
+    private AvatarLoader() {
+        /* Utility class – no instances. */
+    }
+
+    /**
+     * Shows the picture at the given (resolved) URL in the view.
+     *
+     * @param sizePx The view's width and height, or 0 if not known yet.
+     */
+    public static void load(ImageView target, String url, int sizePx) {
+        request(Glide.with(target), url, sizePx)
+                .error(R.drawable.default_avatar)
+                .into(target);
+    }
+
+    /**
+     * Decodes the picture into the memory cache ahead of time (e.g. for rows about to be shown).
+     */
+    public static void preload(Context context, String url, int sizePx) {
+        if (url == null || sizePx <= 0) return;
+        request(Glide.with(context), url, sizePx).preload();
+    }
+
+    private static RequestBuilder<Drawable> request(RequestManager glide, String url, int sizePx) {
+        RequestBuilder<Drawable> request = glide
+                .load(url)
+                .centerCrop()
+                .diskCacheStrategy(DiskCacheStrategy.ALL)
+                .onlyRetrieveFromCache(!MyApp.getInstance().getConnectivityMonitor().isConnected());
+        if (sizePx > 0) {
+            int bucket = bucketOf(sizePx);
+            request = request.override(bucket, bucket);
+        }
+        return request;
+    }
+
+    // Rounds a size up to the next bucket (32, 64, 128, ... px)
+    private static int bucketOf(int sizePx) {
+        int bucket = MIN_BUCKET_PX;
+        while (bucket < sizePx) bucket <<= 1;
+        return bucket;
+    }
+}
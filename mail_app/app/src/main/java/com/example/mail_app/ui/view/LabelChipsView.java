@@ -0,0 +1,147 @@
+package com.example.mail_app.ui.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.util.LruCache;
+import android.util.TypedValue;
+import android.view.View;
+
+import com.example.mail_app.R;
+import com.example.mail_app.ui.mail.component.LabelChip;
+import com.example.mail_app.utils.ThemeUtils;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Draws a row of label chips (colored rounded tags) directly on its canvas, without child views.
+ * Setting the same chips again does nothing, paints are reused and text widths are cached per
+ * label name, so binding a mail list row costs no allocation or measuring once a label was seen.
+ * Either shows all chips (wrap in a HorizontalScrollView) or, in compact mode, up to 3 chips
+ * and no more once they take half of the screen width.
+ */
+public class LabelChipsView extends View {
+
+    private static final int MAX_COMPACT_CHIPS = 3;
+    private static final float TEXT_SIZE_SP = 12f;
+
+    // Chip geometry (pixels, as the chips were always laid out)
+    private static final int CHIP_PADDING_H = 24;
+    private static final int CHIP_PADDING_V = 8;
+    private static final int CHIP_SPACING = 8;
+    private static final float CHIP_CORNER_RADIUS = 10f;
+
+    // Text widths per label name, shared by all chip views (main thread only).
+    // Cleared if the text size changes (e.g. another font scale).
+    private static final LruCache<String, Float> textWidths = new LruCache<>(256);
+    private static float cachedTextSize;
+
+    private final Paint chipPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF chipBounds = new RectF();
+    private final float textBaseline;
+    private final int chipHeight;
+
+    private List<LabelChip.Spec> chips = Collections.emptyList();
+    private boolean showAll;
+    private int visibleCount;
+    private int contentWidth;
+
+    public LabelChipsView(Context context) {
+        this(context, null);
+    }
+
+    public LabelChipsView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public LabelChipsView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        chipPaint.setStyle(Paint.Style.FILL);
+        textPaint.setColor(ThemeUtils.resolveThemeColor(context, R.attr.text_color));
+        textPaint.setTextSize(TypedValue.applyDimension(
+                TypedValue.COMPLEX_UNIT_SP, TEXT_SIZE_SP, getResources().getDisplayMetrics()));
+
+        Paint.FontMetrics metrics = textPaint.getFontMetrics();
+        textBaseline = CHIP_PADDING_V - metrics.ascent;
+        chipHeight = (int) Math.ceil(metrics.descent - metrics.ascent) + 2 * CHIP_PADDING_V;
+    }
+
+    /**
+     * Shows the given chips; does nothing if they are already shown.
+     *
+     * @param chips   Chips to draw, in order
+     * @param showAll If false, draws up to 3 chips and stops once they take half of the screen width
+     */
+    public void setChips(List<LabelChip.Spec> chips, boolean showAll) {
+        if (showAll == this.showAll && chips.equals(this.chips)) return;
+        this.chips = chips;
+        this.showAll = showAll;
+
+        int maxWidth = (int) (getResources().getDisplayMetrics().widthPixels * 0.5);
+        int count = 0;
+        int width = 0;
+        for (LabelChip.Spec chip : chips) {
+            if (!showAll && (count >= MAX_COMPACT_CHIPS || width > maxWidth)) break;
+            width += chipWidth(chip) + CHIP_SPACING;
+            count++;
+        }
+        visibleCount = count;
+        contentWidth = width;
+
+        requestLayout();
+        invalidate();
+    }
+
+    private int chipWidth(LabelChip.Spec chip) {
+        return (int) Math.ceil(textWidth(chip.getName())) + 2 * CHIP_PADDING_H;
+    }
+
+    private float textWidth(String name) {
+        if (name == null) return 0f;
+        if (cachedTextSize != textPaint.getTextSize()) {
+            textWidths.evictAll();
+            cachedTextSize = textPaint.getTextSize();
+        }
+
+        Float width = textWidths.get(name);
+        if (width == null) {
+            width = textPaint.measureText(name);
+            textWidths.put(name, width);
+        }
+        return width;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = getPaddingLeft() + contentWidth + getPaddingRight();
+        int height = visibleCount == 0 ? 0 : getPaddingTop() + chipHeight + getPaddingBottom();
+        setMeasuredDimension(
+                resolveSize(width, widthMeasureSpec),
+                resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        float x = getPaddingLeft();
+        float top = getPaddingTop();
+        for (int i = 0; i < visibleCount; i++) {
+            LabelChip.Spec chip = chips.get(i);
+            int width = chipWidth(chip);
+
+            chipPaint.setColor(chip.getColor());
+            chipBounds.set(x, top, x + width, top + chipHeight);
+            canvas.drawRoundRect(chipBounds, CHIP_CORNER_RADIUS, CHIP_CORNER_RADIUS, chipPaint);
+            if (chip.getName() != null) {
+                canvas.drawText(chip.getName(), x + CHIP_PADDING_H, top + textBaseline, textPaint);
+            }
+
+            x += width + CHIP_SPACING;
+        }
+    }
+}
@@ -14,13 +14,17 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.mail_app.R;
+import com.example.mail_app.data.db.MailboxCounters;
+import com.example.mail_app.data.entity.MailboxCounter;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * RecyclerView Adapter for displaying sidebar items.
  * Supports both SidebarItem (categories) and LabelSidebarItem (user labels).
- * Handles selection state, click callbacks, and theming.
+ * Handles selection state, click callbacks, theming and count badges.
  */
 public class SidebarAdapter extends RecyclerView.Adapter<SidebarAdapter.SidebarViewHolder> {
 
@@ -34,6 +38,7 @@ public class SidebarAdapter extends RecyclerView.Adapter<SidebarAdapter.SidebarV
 
     private final List<Object> items;
     private final OnItemClickListener listener;
+    private final Map<String, MailboxCounter> counters = new HashMap<>();
     private int selectedPosition = 0;
 
     /**
@@ -67,6 +72,7 @@ public class SidebarAdapter extends RecyclerView.Adapter<SidebarAdapter.SidebarV
             holder.title.setText(cat.getTitle());
             holder.icon.setImageResource(cat.getIconRes());
             holder.icon.setImageTintList(ColorStateList.valueOf(getThemeColor(context, R.attr.color_label)));
+            bindCount(holder, cat.getCounterKey());
         } else if (item instanceof LabelSidebarItem) {
             LabelSidebarItem label = (LabelSidebarItem) item;
             holder.title.setText(label.getName());
@@ -76,6 +82,7 @@ public class SidebarAdapter extends RecyclerView.Adapter<SidebarAdapter.SidebarV
             } catch (IllegalArgumentException e) {
                 holder.icon.setImageTintList(ColorStateList.valueOf(getThemeColor(context, R.attr.color_label)));
             }
+            bindCount(holder, MailboxCounters.labelKey(label.getId()));
         }
 
         int selectedColor = getThemeColor(context, R.attr.menu_item_select_bg);
@@ -116,6 +123,28 @@ public class SidebarAdapter extends RecyclerView.Adapter<SidebarAdapter.SidebarV
         notifyDataSetChanged();
     }
 
+    /**
+     * Updates the count badges from the latest mailbox counters.
+     *
+     * @param newCounters Counters keyed by mailbox.
+     */
+    public void updateCounters(Map<String, MailboxCounter> newCounters) {
+        counters.clear();
+        if (newCounters != null) counters.putAll(newCounters);
+        notifyItemRangeChanged(0, items.size());
+    }
+
+    // Shows the unread count like Gmail (drafts show their total instead); hidden when zero.
+    private void bindCount(SidebarViewHolder holder, String counterKey) {
+        MailboxCounter counter = counterKey != null ? counters.get(counterKey) : null;
+        int count = 0;
+        if (counter != null) {
+            count = MailboxCounters.DRAFTS.equals(counterKey) ? counter.getTotal() : counter.getUnread();
+        }
+        holder.count.setText(count > 0 ? String.valueOf(count) : "");
+        holder.count.setVisibility(count > 0 ? View.VISIBLE : View.GONE);
+    }
+
     /**
      * ViewHolder for a sidebar item (category or label).
      */
@@ -123,12 +152,14 @@ public class SidebarAdapter extends RecyclerView.Adapter<SidebarAdapter.SidebarV
         LinearLayout container;
         ImageView icon;
         TextView title;
+        TextView count;
 
         SidebarViewHolder(View itemView) {
             super(itemView);
             container = itemView.findViewById(R.id.sidebar_item_container);
             icon = itemView.findViewById(R.id.sidebar_item_icon);
             title = itemView.findViewById(R.id.sidebar_item_title);
+            count = itemView.findViewById(R.id.sidebar_item_count);
         }
     }
 
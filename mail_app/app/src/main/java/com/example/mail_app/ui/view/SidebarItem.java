@@ -2,19 +2,22 @@ package com.example.mail_app.ui.view;
 
 /**
  * Represents a fixed category item in the sidebar (e.g., Inbox, Starred).
- * Includes display title and icon resource ID.
+ * Includes display title, icon resource ID and the key of its mailbox counter.
  */
 public class SidebarItem {
     private final String title;
     private final int iconRes;
+    private final String counterKey;
 
-    public SidebarItem(String title, int iconRes) {
+    public SidebarItem(String title, int iconRes, String counterKey) {
         this.title = title;
         this.iconRes = iconRes;
+        this.counterKey = counterKey;
     }
 
     public String getTitle() { return title; }
     public int getIconRes() { return iconRes; }
+    public String getCounterKey() { return counterKey; }
 }
 
 
@@ -1,22 +1,24 @@
 package com.example.mail_app.ui.view;
 
 import android.content.Context;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
 import android.util.AttributeSet;
+import android.view.ViewGroup;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
 import android.widget.ProgressBar;
-import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.example.mail_app.R;
 import com.google.android.material.imageview.ShapeableImageView;
 
+import java.util.regex.Pattern;
+
 /**
  * Custom view to display a circular user avatar with an optional loading spinner overlay.
  * Supports setting the image from a URL, drawable resource, or URI.
  */
 public class UserAvatarView extends FrameLayout {
+    // The "/api" suffix of the base URL (profile pictures are served next to the API)
+    private static final Pattern API_SUFFIX = Pattern.compile("/api/?$");
+
     private ShapeableImageView imageView;
     private ProgressBar loadingSpinner;
 
@@ -42,15 +44,6 @@ public class UserAvatarView extends FrameLayout {
         imageView.setScaleType(ImageView.ScaleType.CENTER_CROP);
     }
 
-    /**
-     * Checks if there is an active internet connection.
-     */
-    private boolean hasInternetConnection() {
-        ConnectivityManager cm = (ConnectivityManager) getContext().getSystemService(Context.CONNECTIVITY_SERVICE);
-        NetworkInfo activeNetwork = cm.getActiveNetworkInfo();
-        return activeNetwork != null && activeNetwork.isConnected();
-    }
-
     /**
      * Sets the profile image from a drawable resource.
      */
@@ -63,27 +56,40 @@ public class UserAvatarView extends FrameLayout {
      * If the path starts with "/profilePics", it is resolved using the base server URL.
      */
     public void setImageUrl(String imagePath) {
-        if (imagePath == null || imagePath.isEmpty()) {
+        setResolvedImageUrl(resolveImageUrl(getContext(), imagePath));
+    }
+
+    /**
+     * Turns a profile image path into the URL to load: paths starting with "/profilePics"
+     * are resolved using the base server URL. Returns null if there is no image.
+     * Safe to call off the main thread (e.g. when list rows are prepared).
+     */
+    public static String resolveImageUrl(Context context, String imagePath) {
+        if (imagePath == null || imagePath.isEmpty()) return null;
+        if (!imagePath.startsWith("/profilePics")) return imagePath;
+
+        String baseUrl = context.getString(R.string.BaseUrl);
+        return API_SUFFIX.matcher(baseUrl).replaceAll("") + imagePath;
+    }
+
+    /**
+     * Sets the profile image from a URL already passed through resolveImageUrl
+     * (the default avatar if null).
+     */
+    public void setResolvedImageUrl(String fullUrl) {
+        if (fullUrl == null) {
             imageView.setImageResource(R.drawable.default_avatar);
             return;
         }
 
-        String fullUrl;
-        if (imagePath.startsWith("/profilePics")) {
-            String baseUrl = getContext().getString(R.string.BaseUrl);
-            fullUrl = baseUrl.replaceAll("/api/?$", "") + imagePath;
-        } else {
-            fullUrl = imagePath;
-        }
-
-        boolean isConnected = hasInternetConnection();
+        AvatarLoader.load(imageView, fullUrl, imageSize());
+    }
 
-        Glide.with(getContext())
-                .load(fullUrl)
-                .diskCacheStrategy(DiskCacheStrategy.ALL)
-                .skipMemoryCache(isConnected)
-                .error(R.drawable.default_avatar)
-                .into(imageView);
+    // The size to decode pictures at: the fixed layout size, else the current size (0 if unknown)
+    private int imageSize() {
+        ViewGroup.LayoutParams params = getLayoutParams();
+        if (params != null && params.width > 0) return params.width;
+        return getWidth();
     }
 
     /**
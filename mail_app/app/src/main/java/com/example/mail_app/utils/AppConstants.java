@@ -26,6 +26,18 @@ public final class AppConstants {
 
     public static final int DEFAULT_PAGE_SIZE = 50;
 
+    /** Local cache budget: older mails beyond these limits are evicted (see MailCacheCompactor). */
+    public static final int MAIL_CACHE_MAX_MAILS = 5000;
+
+    // Stored bodies plus their search index
+    public static final long MAIL_CACHE_MAX_BODY_BYTES = 16L * 1024 * 1024; // 16 MB
+
+    /** How often debug builds log the database executor's queue and wait-time metrics. */
+    public static final long DB_METRICS_LOG_INTERVAL_MS = 60_000;
+
+    /** On-disk HTTP response cache (revalidated with ETags). */
+    public static final long HTTP_CACHE_MAX_BYTES = 10L * 1024 * 1024; // 10 MB
+
     public static final String EXTRA_ORIGIN = "origin";
 
     public static final String ORIGIN_MAIL = "mail";
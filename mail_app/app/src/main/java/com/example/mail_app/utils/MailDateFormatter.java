@@ -0,0 +1,49 @@
+package com.example.mail_app.utils;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Formats mail dates relative to the moment it was created (see MailUtils.formatMailDate).
+ * Creating one per list and reusing it for every row avoids a Calendar and a
+ * SimpleDateFormat per mail. Not thread-safe: use one instance per thread.
+ */
+public class MailDateFormatter {
+
+    private final Calendar then = Calendar.getInstance();
+    private final int currentYear;
+    private final int currentDayOfYear;
+
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.ENGLISH);
+    private final SimpleDateFormat dayFormat = new SimpleDateFormat("d MMM", Locale.ENGLISH);
+    private final SimpleDateFormat fullFormat = new SimpleDateFormat("d MMM yyyy", Locale.ENGLISH);
+
+    public MailDateFormatter() {
+        Calendar now = Calendar.getInstance();
+        currentYear = now.get(Calendar.YEAR);
+        currentDayOfYear = now.get(Calendar.DAY_OF_YEAR);
+    }
+
+    /**
+     * Returns true if both formatters were created on the same day (so they format alike).
+     */
+    public boolean isSameDay(MailDateFormatter other) {
+        return other != null && currentYear == other.currentYear
+                && currentDayOfYear == other.currentDayOfYear;
+    }
+
+    /**
+     * Formats a date: "14:35" for today, "21 Jul" within the year, "21 Jul 2023" otherwise.
+     */
+    public String format(Date date) {
+        then.setTime(date);
+        boolean isSameYear = then.get(Calendar.YEAR) == currentYear;
+
+        if (isSameYear && then.get(Calendar.DAY_OF_YEAR) == currentDayOfYear) {
+            return timeFormat.format(date);
+        }
+        return isSameYear ? dayFormat.format(date) : fullFormat.format(date);
+    }
+}
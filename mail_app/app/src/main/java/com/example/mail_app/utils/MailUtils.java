@@ -4,10 +4,7 @@ import android.graphics.Color;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.GradientDrawable;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
 import java.util.Date;
-import java.util.Locale;
 
 /**
  * Utility functions related to mail display and formatting.
@@ -24,25 +21,7 @@ public class MailUtils {
      * @return formatted date string
      */
     public static String formatMailDate(Date date) {
-        Calendar now = Calendar.getInstance();
-        Calendar then = Calendar.getInstance();
-        then.setTime(date);
-
-        // Check if the date is today
-        boolean isToday = now.get(Calendar.YEAR) == then.get(Calendar.YEAR) &&
-                now.get(Calendar.DAY_OF_YEAR) == then.get(Calendar.DAY_OF_YEAR);
-
-        if (isToday) {
-            return new SimpleDateFormat("HH:mm", Locale.ENGLISH).format(date);
-        }
-
-        // Check if the date is within the same year
-        boolean isSameYear = now.get(Calendar.YEAR) == then.get(Calendar.YEAR);
-        SimpleDateFormat formatter = isSameYear
-                ? new SimpleDateFormat("d MMM", Locale.ENGLISH)
-                : new SimpleDateFormat("d MMM yyyy", Locale.ENGLISH);
-
-        return formatter.format(date);
+        return new MailDateFormatter().format(date);
     }
 
     /**
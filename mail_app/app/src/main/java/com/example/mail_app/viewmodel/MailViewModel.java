@@ -3,16 +3,25 @@ package com.example.mail_app.viewmodel;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
+import com.example.mail_app.app.network.SingleFlight;
+import com.example.mail_app.data.db.MailListQuery;
 import com.example.mail_app.data.entity.FullMail;
+import com.example.mail_app.data.entity.OutboxOperation;
 import com.example.mail_app.repository.MailRepository;
+import com.example.mail_app.ui.mail.adapter.MailRow;
 import com.example.mail_app.utils.AppConstants;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -25,15 +34,23 @@ public class MailViewModel extends ViewModel {
     // Repository handling data operations (Room + Retrofit)
     private final MailRepository repository;
 
-    // LiveData to observe mail list updates
-    private final LiveData<List<FullMail>> mails;
+    // LiveData to observe mail list updates (re-emits whenever Room changes), as prepared rows
+    private final LiveData<List<MailRow>> mails;
 
-    // Current UI state
-    private String currentCategoryTitle = null;
-    private String currentLabelId = null;
-    private boolean isLabelMode = false;
-    private int currentOffset = 0;
-    private String lastQuery = "";
+    // True while a server page of the current list is being fetched
+    private final MutableLiveData<Boolean> refreshing = new MutableLiveData<>(false);
+    private int pendingRefreshes = 0;
+
+    // Incremented whenever another list is shown: loads of older generations are cancelled
+    // and their late results dropped
+    private int generation = 0;
+    private final Set<ListLoad> inFlight = new HashSet<>();
+
+    // Current UI state (null until a list is shown)
+    private MailListQuery currentQuery;
+
+    // Number of rows requested from the server for the current list (offset of the next page)
+    private int requestedRows = AppConstants.DEFAULT_PAGE_SIZE;
 
 
     public MailViewModel() {
@@ -42,12 +59,22 @@ public class MailViewModel extends ViewModel {
     }
 
     // Returns LiveData list of current mails
-    public LiveData<List<FullMail>> getMails() {
+    public LiveData<List<MailRow>> getMails() {
         return mails;
     }
 
+    // Returns true once a category, label or search is shown (a recreated ViewModel shows none)
+    public boolean isShowingList() {
+        return currentQuery != null;
+    }
+
+    // Returns true while the current list is being refreshed from the server
+    public LiveData<Boolean> isRefreshing() {
+        return refreshing;
+    }
+
     /**
-     * Loads initial mails from server and updates local storage.
+     * Syncs local storage with the server (only the changes since the last launch).
      */
     public void loadInitialMails() {
         repository.loadInitialMails();
@@ -57,119 +84,152 @@ public class MailViewModel extends ViewModel {
      * Updates state to a specific category (Inbox, Sent, etc.) and loads data accordingly.
      */
     public void setCategory(String title) {
-        currentCategoryTitle = title;
-        currentLabelId = null;
-        isLabelMode = false;
-        currentOffset = 0;
-
+        MailListQuery.Source source;
         switch (title) {
             case "Inbox":
-                loadInboxMails();
+                source = MailListQuery.Source.INBOX;
                 break;
             case "Starred":
-                loadStarredMails();
+                source = MailListQuery.Source.STARRED;
                 break;
             case "Sent":
-                loadSentMails();
+                source = MailListQuery.Source.SENT;
                 break;
             case "Drafts":
-                loadDraftMails();
+                source = MailListQuery.Source.DRAFTS;
                 break;
             case "All Mail":
-                loadAllMails();
+                source = MailListQuery.Source.ALL;
                 break;
             case "Spam":
-                loadSpamMails();
+                source = MailListQuery.Source.SPAM;
                 break;
             case "Search":
                 // don't auto-load; rely on searchMails() calls
-                break;
+                return;
             default:
                 Log.w("MailViewModel", "Unknown category title: " + title);
-                break;
+                return;
         }
+
+        showList(MailListQuery.category(source));
     }
 
     /**
      * Sets label mode and loads mails by label ID.
      */
     public void setLabel(String labelId) {
-        currentLabelId = labelId;
-        currentCategoryTitle = null;
-        isLabelMode = true;
-        currentOffset = 0;
+        showList(MailListQuery.label(labelId));
+    }
 
-        loadMailsByLabel(labelId, AppConstants.DEFAULT_PAGE_SIZE, currentOffset);
+    /**
+     * Starts a search by query (first page).
+     */
+    public void searchMails(String query) {
+        showList(MailListQuery.search(query));
     }
 
     /**
-     * Reloads the current selected category or label from scratch (used after updates).
+     * Re-fetches the first page of the current list from the server (pull-to-refresh).
+     * Room already holds the latest local state, so the list itself needs no reload.
      */
     public void reloadCurrentCategory() {
-        currentOffset = 0;
-        if (isLabelMode && currentLabelId != null) {
-            loadMailsByLabel(currentLabelId, AppConstants.DEFAULT_PAGE_SIZE, currentOffset);
-        } else if (!isLabelMode && currentCategoryTitle != null) {
-            setCategory(currentCategoryTitle);  // reload from start
-        }
+        if (currentQuery == null) return;
+        refresh(currentQuery, AppConstants.DEFAULT_PAGE_SIZE, AppConstants.DEFAULT_PAGE_OFFSET);
     }
 
     /**
-     * Loads next page of mails for infinite scroll, depending on current state.
+     * Loads next page of mails for infinite scroll: observes one more page of the list in Room
+     * (the pages already shown are not re-read) and fetches that page from the server.
      */
     public void loadMoreMails() {
-        currentOffset += AppConstants.DEFAULT_PAGE_SIZE;
-
-        if (isLabelMode && currentLabelId != null) {
-            scrollLoadMailsByLabel(currentLabelId, currentOffset, AppConstants.DEFAULT_PAGE_SIZE);
-        } else if (!isLabelMode && currentCategoryTitle != null) {
-            switch (currentCategoryTitle) {
-                case "Inbox":
-                    scrollLoadInboxMails(currentOffset, AppConstants.DEFAULT_PAGE_SIZE);
-                    break;
-                case "Starred":
-                    scrollLoadStarredMails(currentOffset, AppConstants.DEFAULT_PAGE_SIZE);
-                    break;
-                case "Sent":
-                    scrollLoadSentMails(currentOffset, AppConstants.DEFAULT_PAGE_SIZE);
-                    break;
-                case "Drafts":
-                    scrollLoadDraftMails(currentOffset, AppConstants.DEFAULT_PAGE_SIZE);
-                    break;
-                case "All Mail":
-                    scrollLoadAllMails(currentOffset, AppConstants.DEFAULT_PAGE_SIZE);
-                    break;
-                case "Spam":
-                    scrollLoadSpamMails(currentOffset, AppConstants.DEFAULT_PAGE_SIZE);
-                    break;
-                case "Search":
-                    scrollSearchMails(lastQuery, currentOffset, AppConstants.DEFAULT_PAGE_SIZE);
-                    break;
-            }
+        if (currentQuery == null) return;
+        int offset = requestedRows;
+        requestedRows += AppConstants.DEFAULT_PAGE_SIZE;
+        repository.loadNextPage();
+        refresh(currentQuery, AppConstants.DEFAULT_PAGE_SIZE, offset);
+    }
+
+    // Observes a new list from Room and refreshes its first page from the server,
+    // cancelling the loads of the list shown before
+    private void showList(MailListQuery query) {
+        List<ListLoad> superseded = new ArrayList<>(inFlight);
+        inFlight.clear();
+        pendingRefreshes = 0;
+        generation++;
+
+        currentQuery = query;
+        requestedRows = AppConstants.DEFAULT_PAGE_SIZE;
+        repository.setListQuery(query);
+        refresh(query, AppConstants.DEFAULT_PAGE_SIZE, AppConstants.DEFAULT_PAGE_OFFSET);
+
+        // After the new load joined the registry, so an identical request still running is reused
+        cancel(superseded);
+    }
+
+    private void refresh(MailListQuery query, int limit, int offset) {
+        pendingRefreshes++;
+        refreshing.setValue(true);
+
+        ListLoad load = new ListLoad(generation);
+        inFlight.add(load);
+        load.ticket = repository.refreshList(query, limit, offset, load);
+    }
+
+    // Stops waiting for the given server loads; loads no other list waits for are cancelled
+    // and no longer write to Room
+    private static void cancel(Collection<ListLoad> loads) {
+        for (ListLoad load : loads) {
+            if (load.ticket != null) load.ticket.cancel();
         }
     }
 
-    // --- Mail actions ---
+    @Override
+    protected void onCleared() {
+        cancel(inFlight);
+        inFlight.clear();
+    }
 
     /**
-     * Toggles star status of a mail.
+     * A server load of a list, tagged with the generation it was started in.
+     * Runs on the UI thread when the load finished, failed or was cancelled.
      */
-    public void toggleStar(String mailId, Consumer<String> onError) {
-        repository.toggleStar(mailId, onError);
+    private final class ListLoad implements Runnable {
+        private final int loadGeneration;
+        private SingleFlight.Ticket ticket;
+
+        ListLoad(int loadGeneration) {
+            this.loadGeneration = loadGeneration;
+        }
+
+        @Override
+        public void run() {
+            if (loadGeneration != generation) return; // superseded – result dropped
+            if (!inFlight.remove(this)) return;
+
+            pendingRefreshes--;
+            if (pendingRefreshes == 0) refreshing.setValue(false);
+        }
     }
 
+    // --- Mail actions ---
+
     /**
-     * Deletes a mail by ID.
+     * Toggles star status of a mail.
      */
-    public void deleteMail(String mailId, Consumer<String> onError) {
-        repository.deleteMail(mailId, onError);
+    public void toggleStar(String mailId, Consumer<String> onError) {
+        repository.toggleStar(mailId, onError);
     }
 
     /**
-     * Fetches updated data for a single mail from the local DB.
+     * Deletes the given mails.
      */
-    public void refreshSingleMail(String mailId) {
-        repository.refreshSingleMail(mailId);
+    public void deleteMails(Collection<String> mailIds) {
+        List<OutboxOperation> operations = new ArrayList<>();
+        for (String mailId : mailIds) {
+            operations.add(OutboxOperation.delete(mailId));
+        }
+        repository.applyMailChanges(operations, () -> { });
     }
 
     /**
@@ -226,111 +286,49 @@ public class MailViewModel extends ViewModel {
     }
 
     /**
-     * Adds a label to a mail.
-     */
-    public void addLabelToMail(String mailId, String labelId, Runnable onSuccess, Consumer<String> onError) {
-        Map<String, String> body = new HashMap<>();
-        body.put("labelId", labelId);
-        repository.addLabelToMail(mailId, body, onSuccess, onError);
-    }
-
-    /**
-     * Removes a label from a mail.
+     * Adds and removes labels on the given mails (mail ID → its current label IDs) in one batch.
+     * Only mails that lack an added label or have a removed one are changed.
      */
-    public void removeLabelFromMail(String mailId, String labelId, Runnable onSuccess, Consumer<String> onError) {
-        Map<String, String> body = new HashMap<>();
-        body.put("labelId", labelId);
-        repository.removeLabelFromMail(mailId, body, onSuccess, onError);
-    }
-
-    /**
-     * Marks or unmarks a mail as spam.
-     */
-    public void setSpam(String mailId, boolean isSpam, Runnable onSuccess, Consumer<String> onError) {
-        Map<String, Boolean> body = new HashMap<>();
-        body.put("isSpam", isSpam);
-        repository.setSpam(mailId, body, onSuccess, onError);
-    }
-
-    // --- Loaders for full refresh (reset offset)
-
-    public void loadInboxMails() {
-        repository.loadInboxMails();
-    }
-
-    public void loadAllMails() {
-        repository.loadAllMails();
-    }
-
-    public void loadSentMails() {
-        repository.loadSentMails();
-    }
-
-    public void loadDraftMails() {
-        repository.loadDraftMails();
-    }
-
-    public void loadSpamMails() {
-        repository.loadSpamMails();
-    }
-
-    public void loadStarredMails() {
-        repository.loadStarredMails();
-    }
-
-    public void loadMailsByLabel(String labelId, int limit, int offset) {
-        repository.loadMailsByLabel(labelId, limit, offset);
-    }
-
-    // --- Loaders for pagination (scroll)
-
-    public void scrollLoadInboxMails(int offset, int limit) {
-        repository.scrollLoadInboxMails(offset, limit);
-    }
-
-    public void scrollLoadSentMails(int offset, int limit) {
-        repository.scrollLoadSentMails(offset, limit);
-    }
-
-    public void scrollLoadDraftMails(int offset, int limit) {
-        repository.scrollLoadDraftMails(offset, limit);
-    }
-
-    public void scrollLoadSpamMails(int offset, int limit) {
-        repository.scrollLoadSpamMails(offset, limit);
-    }
-
-    public void scrollLoadStarredMails(int offset, int limit) {
-        repository.scrollLoadStarredMails(offset, limit);
-    }
-
-    public void scrollLoadAllMails(int offset, int limit) {
-        repository.scrollLoadAllMails(offset, limit);
-    }
-
-    public void scrollLoadMailsByLabel(String labelId, int offset, int limit) {
-        repository.scrollLoadMailsByLabel(labelId, offset, limit);
+    public void updateLabels(Map<String, ? extends Collection<String>> labelIdsByMail,
+                             Set<String> added, Set<String> removed, Runnable onSuccess) {
+        List<OutboxOperation> operations = new ArrayList<>();
+        for (Map.Entry<String, ? extends Collection<String>> mail : labelIdsByMail.entrySet()) {
+            for (String labelId : added) {
+                if (!mail.getValue().contains(labelId)) {
+                    operations.add(OutboxOperation.addLabel(mail.getKey(), labelId));
+                }
+            }
+            for (String labelId : removed) {
+                if (mail.getValue().contains(labelId)) {
+                    operations.add(OutboxOperation.removeLabel(mail.getKey(), labelId));
+                }
+            }
+        }
+        repository.applyMailChanges(operations, onSuccess);
     }
 
     /**
-     * Starts a search by query (first page).
+     * Marks or unmarks the given mails as spam.
      */
-    public void searchMails(String query, int limit, int offset) {
-        lastQuery = query;
-        repository.searchMails(query, limit, offset);
+    public void setSpam(Collection<String> mailIds, boolean isSpam, Runnable onSuccess) {
+        List<OutboxOperation> operations = new ArrayList<>();
+        for (String mailId : mailIds) {
+            operations.add(OutboxOperation.spam(mailId, isSpam));
+        }
+        repository.applyMailChanges(operations, onSuccess);
     }
 
     /**
-     * Loads next search page based on offset.
+     * Gets observable LiveData for a specific mail by ID.
      */
-    public void scrollSearchMails(String query, int offset, int limit) {
-        repository.scrollSearchMails(query, offset, limit);
+    public LiveData<FullMail> getLiveMailById(String mailId) {
+        return repository.getLiveMailById(mailId);
     }
 
     /**
-     * Gets observable LiveData for a specific mail by ID.
+     * Records that a mail was opened (keeps it in the local cache longer).
      */
-    public LiveData<FullMail> getLiveMailById(String mailId) {
-        return repository.getLiveMailById(mailId);
+    public void openMail(String mailId) {
+        repository.openMail(mailId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.example.mail_app.viewmodel;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Transformations;
+import androidx.lifecycle.ViewModel;
+import com.example.mail_app.data.entity.MailboxCounter;
+import com.example.mail_app.repository.MailboxCounterRepository;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ViewModel exposing the mailbox counters (keyed by mailbox) to the sidebar.
+ */
+public class MailboxCounterViewModel extends ViewModel {
+    private final LiveData<Map<String, MailboxCounter>> counters;
+
+    /**
+     * Initializes the repository and maps the counter rows by mailbox key.
+     */
+    public MailboxCounterViewModel() {
+        MailboxCounterRepository repository = new MailboxCounterRepository();
+        counters = Transformations.map(repository.getAll(), rows -> {
+            Map<String, MailboxCounter> byMailbox = new HashMap<>();
+            if (rows != null) {
+                for (MailboxCounter counter : rows) {
+                    byMailbox.put(counter.getMailbox(), counter);
+                }
+            }
+            return byMailbox;
+        });
+    }
+
+    /**
+     * Returns LiveData of the counters keyed by mailbox (see MailboxCounters for the keys).
+     */
+    public LiveData<Map<String, MailboxCounter>> getCounters() {
+        return counters;
+    }
+}
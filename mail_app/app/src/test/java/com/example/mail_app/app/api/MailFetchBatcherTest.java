@@ -0,0 +1,267 @@
+package com.example.mail_app.app.api;
+
+import com.example.mail_app.data.dto.MailFromServer;
+import com.example.mail_app.data.remote.MailWebService;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for MailFetchBatcher: IDs requested together share one GET mails?ids= request,
+ * a mail requested again joins its fetch, and every caller hears about its own mail.
+ */
+public class MailFetchBatcherTest {
+
+    private static final long TIMEOUT_S = 5;
+
+    // Requests the batcher sent, answered by the tests
+    private final BlockingQueue<FakeCall> requests = new LinkedBlockingQueue<>();
+    private MailFetchBatcher batcher;
+
+    @Before
+    public void setUp() {
+        MailWebService api = (MailWebService) Proxy.newProxyInstance(
+                MailWebService.class.getClassLoader(), new Class<?>[]{MailWebService.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("getMailsByIds")) throw new UnsupportedOperationException();
+                    FakeCall call = new FakeCall((String) args[0]);
+                    requests.add(call);
+                    return call;
+                });
+        batcher = new MailFetchBatcher(api);
+    }
+
+    @Test
+    public void burstIsSentAsOneRequest() throws Exception {
+        Results results = new Results(3);
+        batcher.fetch("a", results.listener("a"));
+        batcher.fetch("b", results.listener("b"));
+        batcher.fetch("a", results.listener("a"));
+
+        FakeCall call = nextRequest();
+        assertEquals(Arrays.asList("a", "b"), call.ids);
+
+        call.succeed(mail("a"));
+        results.await();
+        assertEquals(Arrays.asList("a", "a"), results.mailsFor("a"));
+        assertEquals(Collections.singletonList(null), results.mailsFor("b"));
+        assertNoRequest();
+    }
+
+    @Test
+    public void mailRequestedWhileInFlightJoinsTheFetch() throws Exception {
+        Results results = new Results(2);
+        batcher.fetch("a", results.listener("a"));
+        FakeCall call = nextRequest();
+
+        batcher.fetch("a", results.listener("a"));
+        call.succeed(mail("a"));
+
+        results.await();
+        assertEquals(Arrays.asList("a", "a"), results.mailsFor("a"));
+        assertNoRequest();
+    }
+
+    @Test
+    public void mailRequestedAfterItsFetchStartsANewOne() throws Exception {
+        Results first = new Results(1);
+        batcher.fetch("a", first.listener("a"));
+        nextRequest().succeed(mail("a"));
+        first.await();
+
+        Results second = new Results(1);
+        batcher.fetch("a", second.listener("a"));
+        nextRequest().succeed(mail("a"));
+        second.await();
+        assertEquals(Collections.singletonList("a"), second.mailsFor("a"));
+    }
+
+    @Test
+    public void largeBurstIsSplitIntoFullBatches() throws Exception {
+        int count = 120;
+        Results results = new Results(count);
+        for (int i = 0; i < count; i++) {
+            batcher.fetch("m" + i, results.listener("m" + i));
+        }
+
+        Set<String> sent = new HashSet<>();
+        while (sent.size() < count) {
+            FakeCall call = nextRequest();
+            assertTrue(call.ids.size() <= 50);
+            for (String id : call.ids) assertTrue(sent.add(id));
+
+            List<MailFromServer> mails = new ArrayList<>();
+            for (String id : call.ids) mails.add(mail(id));
+            call.succeed(mails.toArray(new MailFromServer[0]));
+        }
+
+        results.await();
+        for (int i = 0; i < count; i++) {
+            assertEquals(Collections.singletonList("m" + i), results.mailsFor("m" + i));
+        }
+    }
+
+    @Test
+    public void httpErrorFailsEveryWaitingCaller() throws Exception {
+        Results results = new Results(2);
+        batcher.fetch("a", results.listener("a"));
+        batcher.fetch("b", results.listener("b"));
+
+        nextRequest().respond(Response.error(500, ResponseBody.create(MediaType.get("application/json"), "{}")));
+
+        results.await();
+        assertEquals(2, results.failures.size());
+    }
+
+    @Test
+    public void networkErrorFailsEveryWaitingCaller() throws Exception {
+        Results results = new Results(2);
+        batcher.fetch("a", results.listener("a"));
+        FakeCall call = nextRequest();
+        batcher.fetch("a", results.listener("a"));
+
+        call.callback.onFailure(call, new IOException("offline"));
+
+        results.await();
+        assertEquals(Arrays.asList("offline", "offline"), results.failures);
+    }
+
+    private FakeCall nextRequest() throws InterruptedException {
+        FakeCall call = requests.poll(TIMEOUT_S, TimeUnit.SECONDS);
+        assertNotNull("no request sent", call);
+        assertNotNull(call.awaitEnqueued());
+        return call;
+    }
+
+    private void assertNoRequest() throws InterruptedException {
+        assertNull(requests.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    private static MailFromServer mail(String id) {
+        MailFromServer mail = new MailFromServer();
+        mail.setId(id);
+        return mail;
+    }
+
+    /**
+     * Collects what each listener received (the ID of the mail, or null if none was returned).
+     */
+    private static final class Results {
+        final Map<String, List<String>> mails = new ConcurrentHashMap<>();
+        final List<String> failures = new CopyOnWriteArrayList<>();
+        final CountDownLatch done;
+
+        Results(int expected) {
+            done = new CountDownLatch(expected);
+        }
+
+        MailFetchBatcher.Listener listener(String mailId) {
+            return new MailFetchBatcher.Listener() {
+                @Override
+                public void onMail(MailFromServer mail) {
+                    mails.computeIfAbsent(mailId, id -> new CopyOnWriteArrayList<>())
+                            .add(mail != null ? mail.getId() : null);
+                    done.countDown();
+                }
+
+                @Override
+                public void onFailure(String message) {
+                    failures.add(message);
+                    done.countDown();
+                }
+            };
+        }
+
+        List<String> mailsFor(String mailId) {
+            return mails.getOrDefault(mailId, Collections.emptyList());
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("listeners not called", done.await(TIMEOUT_S, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * GET mails?ids= call that is answered by the test.
+     */
+    private static final class FakeCall implements Call<List<MailFromServer>> {
+        final List<String> ids;
+        final CountDownLatch enqueued = new CountDownLatch(1);
+        volatile Callback<List<MailFromServer>> callback;
+
+        FakeCall(String ids) {
+            this.ids = Arrays.asList(ids.split(","));
+        }
+
+        Callback<List<MailFromServer>> awaitEnqueued() throws InterruptedException {
+            enqueued.await(TIMEOUT_S, TimeUnit.SECONDS);
+            return callback;
+        }
+
+        void succeed(MailFromServer... mails) {
+            respond(Response.success(Arrays.asList(mails)));
+        }
+
+        void respond(Response<List<MailFromServer>> response) {
+            callback.onResponse(this, response);
+        }
+
+        @Override
+        public Response<List<MailFromServer>> execute() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void enqueue(Callback<List<MailFromServer>> callback) {
+            this.callback = callback;
+            enqueued.countDown();
+        }
+
+        @Override
+        public boolean isExecuted() { return callback != null; }
+
+        @Override
+        public void cancel() { }
+
+        @Override
+        public boolean isCanceled() { return false; }
+
+        @Override
+        public Call<List<MailFromServer>> clone() { return new FakeCall(String.join(",", ids)); }
+
+        @Override
+        public Request request() { return new Request.Builder().url("https://mail.test/api/mails").build(); }
+
+        @Override
+        public Timeout timeout() { return Timeout.NONE; }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.mail_app.app.api;
+
+import com.example.mail_app.data.entity.FullMail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for MailListStreamReader: mails are converted in order and handed on in chunks
+ * of the given size, whatever else the page holds.
+ */
+public class MailListStreamReaderTest {
+
+    @Test
+    public void mailsArriveInChunksOfTheGivenSize() throws Exception {
+        List<List<String>> chunks = new ArrayList<>();
+
+        int count = MailListStreamReader.read(body("{\"total\":5,\"mails\":[" + mails("a", "b", "c", "d", "e") + "]}"),
+                2, chunk -> chunks.add(ids(chunk)));
+
+        assertEquals(5, count);
+        assertEquals(Arrays.asList(
+                Arrays.asList("a", "b"), Arrays.asList("c", "d"), Arrays.asList("e")), chunks);
+    }
+
+    @Test
+    public void fieldsAroundTheMailsAreSkipped() throws Exception {
+        List<List<String>> chunks = new ArrayList<>();
+
+        int count = MailListStreamReader.read(
+                body("{\"mails\":[" + mails("a", "b") + "],\"total\":2,\"page\":{\"next\":null,\"tags\":[1,2]}}"),
+                10, chunk -> chunks.add(ids(chunk)));
+
+        assertEquals(2, count);
+        assertEquals(Arrays.asList(Arrays.asList("a", "b")), chunks);
+    }
+
+    @Test
+    public void mailsAreConvertedForRoom() throws Exception {
+        List<FullMail> read = new ArrayList<>();
+
+        MailListStreamReader.read(body("{\"mails\":[{\"id\":\"a\",\"subject\":\"Hi\",\"body\":\"Hello there\","
+                + "\"from\":{\"userId\":\"bob\",\"name\":\"Bob\"},\"to\":[\"alice\"],"
+                + "\"labels\":[{\"id\":\"l1\",\"name\":\"Work\"}],\"isStar\":true,\"type\":\"received\"}]}"),
+                10, read::addAll);
+
+        FullMail mail = read.get(0);
+        assertEquals("a", mail.getMail().getId());
+        assertEquals("bob", mail.getMail().getFrom());
+        assertEquals("Hi", mail.getMail().getSubject());
+        assertTrue(mail.getMail().isStar());
+        assertEquals(Arrays.asList("alice"), mail.getToUserIds());
+        assertEquals("l1", mail.getLabels().get(0).getId());
+    }
+
+    @Test
+    public void emptyOrMissingListReadsNothing() throws Exception {
+        List<List<FullMail>> chunks = new ArrayList<>();
+
+        assertEquals(0, MailListStreamReader.read(body("{\"total\":0,\"mails\":[]}"), 10, chunks::add));
+        assertEquals(0, MailListStreamReader.read(body("{\"total\":0,\"mails\":null}"), 10, chunks::add));
+        assertEquals(0, MailListStreamReader.read(body("{\"total\":0}"), 10, chunks::add));
+        assertTrue(chunks.isEmpty());
+    }
+
+    private static ResponseBody body(String json) {
+        return ResponseBody.create(MediaType.get("application/json"), json);
+    }
+
+    private static String mails(String... ids) {
+        StringBuilder json = new StringBuilder();
+        for (String id : ids) {
+            if (json.length() > 0) json.append(',');
+            json.append("{\"id\":\"").append(id).append("\",\"from\":{\"userId\":\"bob\"}}");
+        }
+        return json.toString();
+    }
+
+    private static List<String> ids(List<FullMail> chunk) {
+        List<String> ids = new ArrayList<>();
+        for (FullMail mail : chunk) ids.add(mail.getMail().getId());
+        return ids;
+    }
+}
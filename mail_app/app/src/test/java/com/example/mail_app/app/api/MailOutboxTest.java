@@ -0,0 +1,112 @@
+package com.example.mail_app.app.api;
+
+import com.example.mail_app.data.entity.OutboxOperation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for MailOutbox's queue rules: which operations are sent next (per-mail order),
+ * when the next flush runs, and whether a result is retried or rolled back.
+ */
+public class MailOutboxTest {
+
+    private static final long NOW = 1_000_000L;
+
+    @Test
+    public void dueOperationsAreSentInQueueOrder() {
+        List<OutboxOperation> queue = Arrays.asList(
+                op(1, "a", OutboxOperation.STAR, 0),
+                op(2, "b", OutboxOperation.READ, 0),
+                op(3, "a", OutboxOperation.ADD_LABEL, 0));
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(MailOutbox.selectDue(queue, NOW, 50)));
+    }
+
+    @Test
+    public void mailWaitingForARetryHoldsBackItsLaterOperations() {
+        List<OutboxOperation> queue = Arrays.asList(
+                op(1, "a", OutboxOperation.STAR, NOW + 5_000),
+                op(2, "b", OutboxOperation.SPAM, 0),
+                op(3, "a", OutboxOperation.DELETE, 0),
+                op(4, "b", OutboxOperation.READ, 0));
+
+        assertEquals(Arrays.asList(2L, 4L), ids(MailOutbox.selectDue(queue, NOW, 50)));
+    }
+
+    @Test
+    public void batchIsLimited() {
+        List<OutboxOperation> queue = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) queue.add(op(i, "m" + i, OutboxOperation.READ, 0));
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(MailOutbox.selectDue(queue, NOW, 3)));
+    }
+
+    @Test
+    public void nextFlushWaitsForTheEarliestBlockingOperation() {
+        // b's second operation has no delay of its own, but waits for the first one
+        List<OutboxOperation> queue = Arrays.asList(
+                op(1, "a", OutboxOperation.STAR, NOW + 8_000),
+                op(2, "b", OutboxOperation.SPAM, NOW + 4_000),
+                op(3, "b", OutboxOperation.READ, 0));
+
+        assertEquals(Collections.emptyList(), MailOutbox.selectDue(queue, NOW, 50));
+        assertEquals(NOW + 4_000, MailOutbox.nextAttemptAt(queue));
+        assertEquals(Long.MAX_VALUE, MailOutbox.nextAttemptAt(Collections.emptyList()));
+    }
+
+    @Test
+    public void appliedOperationsAreDone() {
+        assertEquals(MailOutbox.Outcome.DONE, MailOutbox.outcomeOf(star("a"), 200));
+        assertEquals(MailOutbox.Outcome.DONE, MailOutbox.outcomeOf(star("a"), 204));
+    }
+
+    @Test
+    public void deletingAMailThatIsGoneIsDone() {
+        assertEquals(MailOutbox.Outcome.DONE, MailOutbox.outcomeOf(OutboxOperation.delete("a"), 404));
+        assertEquals(MailOutbox.Outcome.ROLLBACK, MailOutbox.outcomeOf(star("a"), 404));
+    }
+
+    @Test
+    public void transientFailuresAreRetried() {
+        for (int status : new int[]{401, 408, 424, 429, 500, 503}) {
+            assertEquals("HTTP " + status, MailOutbox.Outcome.RETRY, MailOutbox.outcomeOf(star("a"), status));
+        }
+    }
+
+    @Test
+    public void rejectedOperationsAreRolledBack() {
+        for (int status : new int[]{400, 403, 409, 422}) {
+            assertEquals("HTTP " + status, MailOutbox.Outcome.ROLLBACK, MailOutbox.outcomeOf(star("a"), status));
+        }
+    }
+
+    @Test
+    public void backoffDoublesUpToItsCap() {
+        assertEquals(2_000, MailOutbox.backoffMs(0));
+        assertEquals(4_000, MailOutbox.backoffMs(1));
+        assertEquals(64_000, MailOutbox.backoffMs(5));
+        assertEquals(5 * 60_000, MailOutbox.backoffMs(8));
+        assertEquals(5 * 60_000, MailOutbox.backoffMs(1_000));
+    }
+
+    private static OutboxOperation star(String mailId) {
+        return OutboxOperation.star(mailId, true);
+    }
+
+    private static OutboxOperation op(long id, String mailId, String type, long nextAttemptAt) {
+        return new OutboxOperation(id, mailId, type, null, 0, nextAttemptAt, 0);
+    }
+
+    private static List<Long> ids(List<OutboxOperation> operations) {
+        List<Long> ids = new ArrayList<>();
+        for (OutboxOperation operation : operations) ids.add(operation.getId());
+        return ids;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.mail_app.app.network;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for SingleFlight: identical requests share one call, and the call is cancelled
+ * only once nobody waits for it. Each test uses its own URLs, since the registry is process-wide.
+ */
+public class SingleFlightTest {
+
+    @Test
+    public void identicalRequestJoinsTheOneInFlight() {
+        FakeCall first = new FakeCall("https://mail.test/api/mails?label=join");
+        FakeCall second = new FakeCall("https://mail.test/api/mails?label=join");
+        List<Runnable> started = new ArrayList<>();
+        AtomicInteger done = new AtomicInteger();
+
+        SingleFlight.join(first, done::incrementAndGet, started::add);
+        SingleFlight.join(second, done::incrementAndGet, started::add);
+
+        assertEquals(1, started.size());
+        assertEquals(0, done.get());
+
+        started.get(0).run();
+        assertEquals(2, done.get());
+    }
+
+    @Test
+    public void differentParametersStartSeparateRequests() {
+        List<Runnable> started = new ArrayList<>();
+
+        SingleFlight.join(new FakeCall("https://mail.test/api/mails?label=a"), null, started::add);
+        SingleFlight.join(new FakeCall("https://mail.test/api/mails?label=b"), null, started::add);
+        SingleFlight.join(new FakeCall("POST", "https://mail.test/api/mails?label=a"), null, started::add);
+
+        assertEquals(3, started.size());
+        for (Runnable complete : started) complete.run();
+    }
+
+    @Test
+    public void completedRequestIsNotJoinedAgain() {
+        List<Runnable> started = new ArrayList<>();
+
+        SingleFlight.join(new FakeCall("https://mail.test/api/mails?label=again"), null, started::add);
+        started.get(0).run();
+        SingleFlight.join(new FakeCall("https://mail.test/api/mails?label=again"), null, started::add);
+
+        assertEquals(2, started.size());
+        started.get(1).run();
+    }
+
+    @Test
+    public void callIsCancelledOnlyWhenTheLastWaiterLeaves() {
+        FakeCall call = new FakeCall("https://mail.test/api/mails?label=cancel");
+        List<Runnable> started = new ArrayList<>();
+        AtomicInteger done = new AtomicInteger();
+
+        SingleFlight.Ticket first = SingleFlight.join(call, done::incrementAndGet, started::add);
+        SingleFlight.Ticket second = SingleFlight.join(
+                new FakeCall("https://mail.test/api/mails?label=cancel"), done::incrementAndGet, started::add);
+
+        first.cancel();
+        assertFalse(call.isCanceled());
+
+        second.cancel();
+        assertTrue(call.isCanceled());
+
+        // A cancelled waiter is not notified, and the next identical load starts a new request
+        started.get(0).run();
+        assertEquals(0, done.get());
+        SingleFlight.join(new FakeCall("https://mail.test/api/mails?label=cancel"), null, started::add);
+        assertEquals(2, started.size());
+        started.get(1).run();
+    }
+
+    @Test
+    public void cancelledWaiterIsNotNotified() {
+        List<Runnable> started = new ArrayList<>();
+        AtomicInteger done = new AtomicInteger();
+
+        SingleFlight.Ticket leaving = SingleFlight.join(
+                new FakeCall("https://mail.test/api/mails?label=leave"), done::incrementAndGet, started::add);
+        SingleFlight.join(new FakeCall("https://mail.test/api/mails?label=leave"), done::incrementAndGet, started::add);
+
+        leaving.cancel();
+        started.get(0).run();
+
+        assertEquals(1, done.get());
+    }
+
+    /**
+     * Call that only knows its request; SingleFlight never executes it itself.
+     */
+    private static final class FakeCall implements Call<Void> {
+        private final Request request;
+        private boolean canceled;
+
+        FakeCall(String url) {
+            this("GET", url);
+        }
+
+        FakeCall(String method, String url) {
+            Request.Builder builder = new Request.Builder().url(url);
+            this.request = "GET".equals(method) ? builder.build() : builder.post(emptyBody()).build();
+        }
+
+        private static okhttp3.RequestBody emptyBody() {
+            return okhttp3.RequestBody.create(null, new byte[0]);
+        }
+
+        @Override
+        public Response<Void> execute() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void enqueue(Callback<Void> callback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isExecuted() { return false; }
+
+        @Override
+        public void cancel() { canceled = true; }
+
+        @Override
+        public boolean isCanceled() { return canceled; }
+
+        @Override
+        public Call<Void> clone() { return new FakeCall(request.method(), request.url().toString()); }
+
+        @Override
+        public Request request() { return request; }
+
+        @Override
+        public Timeout timeout() { return Timeout.NONE; }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.mail_app.data.db;
+
+import com.example.mail_app.data.dao.MailDao;
+import com.example.mail_app.data.entity.MailSummary;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for MailListPage: category and label pages read keyset windows between their
+ * cursors, search pages read positional windows, and only the last page is size-limited.
+ */
+public class MailListPageTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final MailSummary LAST_OF_FIRST = mail("m20", 5_000);
+    private static final MailSummary LAST_OF_SECOND = mail("m40", 3_000);
+
+    @Test
+    public void firstPageReadsTheNewestMails() {
+        Object[] args = load(MailListPage.first(MailListQuery.category(MailListQuery.Source.INBOX), PAGE_SIZE),
+                "getInboxPage");
+
+        assertEquals(Arrays.asList(Long.MAX_VALUE, "", Long.MIN_VALUE, "", PAGE_SIZE), Arrays.asList(args));
+    }
+
+    @Test
+    public void closedPageEndsAtItsLastMailAndGrowsWithArrivals() {
+        MailListPage first = MailListPage.first(MailListQuery.category(MailListQuery.Source.INBOX), PAGE_SIZE);
+
+        Object[] args = load(first.closedAt(LAST_OF_FIRST), "getInboxPage");
+
+        assertEquals(Arrays.asList(Long.MAX_VALUE, "", 5_000L, "m20", Integer.MAX_VALUE), Arrays.asList(args));
+    }
+
+    @Test
+    public void nextPageStartsAfterTheLastMailShown() {
+        MailListPage second = MailListPage.first(MailListQuery.category(MailListQuery.Source.STARRED), PAGE_SIZE)
+                .next(LAST_OF_FIRST);
+
+        Object[] open = load(second, "getStarredPage");
+        Object[] closed = load(second.closedAt(LAST_OF_SECOND), "getStarredPage");
+
+        assertEquals(Arrays.asList(5_000L, "m20", Long.MIN_VALUE, "", PAGE_SIZE), Arrays.asList(open));
+        assertEquals(Arrays.asList(5_000L, "m20", 3_000L, "m40", Integer.MAX_VALUE), Arrays.asList(closed));
+    }
+
+    @Test
+    public void labelPageReadsItsLabel() {
+        MailListPage second = MailListPage.first(MailListQuery.label("work"), PAGE_SIZE).next(LAST_OF_FIRST);
+
+        Object[] args = load(second, "getMailsByLabelPage");
+
+        assertEquals(Arrays.asList("work", 5_000L, "m20", Long.MIN_VALUE, "", PAGE_SIZE), Arrays.asList(args));
+    }
+
+    @Test
+    public void eachCategoryReadsItsOwnQuery() {
+        String[][] expected = {
+                {"INBOX", "getInboxPage"}, {"STARRED", "getStarredPage"}, {"SENT", "getSentPage"},
+                {"DRAFTS", "getDraftPage"}, {"ALL", "getAllMailsPage"}, {"SPAM", "getSpamPage"}
+        };
+        for (String[] category : expected) {
+            MailListQuery query = MailListQuery.category(MailListQuery.Source.valueOf(category[0]));
+            load(MailListPage.first(query, PAGE_SIZE), category[1]);
+        }
+    }
+
+    @Test
+    public void searchPagesArePositional() {
+        MailListPage first = MailListPage.first(MailListQuery.search("invoice"), PAGE_SIZE);
+        MailListPage third = first.next(LAST_OF_FIRST).next(LAST_OF_SECOND);
+
+        assertSame(first, first.closedAt(LAST_OF_FIRST));
+        assertEquals(Arrays.asList("invoice", 0, PAGE_SIZE), Arrays.asList(load(first, "searchMails")));
+        assertEquals(Arrays.asList("invoice", 2 * PAGE_SIZE, PAGE_SIZE), Arrays.asList(load(third, "searchMails")));
+    }
+
+    @Test
+    public void pagesAreEqualByWindow() {
+        MailListPage page = MailListPage.first(MailListQuery.label("work"), PAGE_SIZE).next(LAST_OF_FIRST);
+
+        assertEquals(page, page.copy());
+        assertEquals(page.hashCode(), page.copy().hashCode());
+        assertEquals(page, MailListPage.first(MailListQuery.label("work"), PAGE_SIZE).next(mail("m20", 5_000)));
+        assertNotEquals(page, page.closedAt(LAST_OF_SECOND));
+        assertNotEquals(page, MailListPage.first(MailListQuery.label("home"), PAGE_SIZE).next(LAST_OF_FIRST));
+    }
+
+    // Loads the page from a DAO that only answers the expected query, and returns its arguments
+    private static Object[] load(MailListPage page, String expectedQuery) {
+        List<String> called = new ArrayList<>();
+        Object[][] arguments = new Object[1][];
+        MailDao dao = (MailDao) Proxy.newProxyInstance(MailDao.class.getClassLoader(),
+                new Class<?>[]{MailDao.class}, (proxy, method, args) -> {
+                    called.add(method.getName());
+                    arguments[0] = args;
+                    return Collections.emptyList();
+                });
+
+        page.load(dao);
+
+        assertEquals(Collections.singletonList(expectedQuery), called);
+        return arguments[0];
+    }
+
+    private static MailSummary mail(String id, long sentAt) {
+        return new MailSummary(id, "bob", "Bob", null, "Subject", "Snippet", new Date(sentAt),
+                "received", false, false, false, false, null);
+    }
+}
@@ -24,6 +24,9 @@ app.use(cors({
 
 app.set('json spaces', 2);
 
+// Strong ETags on GET responses; unchanged responses are answered with 304 Not Modified
+app.set('etag', 'strong');
+
 const usersRoutes = require('./routes/userRoute');
 const tokensRoutes = require('./routes/tokenRoute');
 const labelsRoutes = require('./routes/labelRoute');
@@ -1,3 +1,16 @@
 const MAIL_DOMAIN = "mailme.com";
 
-module.exports = { MAIL_DOMAIN };
+// How long deleted-mail tombstones are kept for delta sync.
+// Clients whose sync token is older than this must reload from scratch.
+const TOMBSTONE_RETENTION_DAYS = 30;
+
+// Maximum number of changed mails returned by one delta sync call
+const SYNC_MAX_LIMIT = 200;
+
+// Maximum number of operations accepted by one batch mutation request
+const BATCH_MAX_OPERATIONS = 100;
+
+// Maximum number of mails fetched by one GET /api/mails?ids= request
+const FETCH_MAX_IDS = 100;
+
+module.exports = { MAIL_DOMAIN, TOMBSTONE_RETENTION_DAYS, SYNC_MAX_LIMIT, BATCH_MAX_OPERATIONS, FETCH_MAX_IDS };
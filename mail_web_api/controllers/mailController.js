@@ -1,12 +1,28 @@
 const mailService = require('../services/mailService');
 const mailStatusService = require('../services/mailStatusService');
+const mailActionService = require('../services/mailActionService');
 const { labelExistsForUser } = require('../services/labelService');
-const { addUrlsToBlacklist, removeUrlsFromBlacklist } = require('../services/blackListService');
 const { processRecipients } = require('../utils/mailUtils');
+const { SYNC_MAX_LIMIT, BATCH_MAX_OPERATIONS, FETCH_MAX_IDS } = require('../config/mailConfig');
+
+/**
+ * Sends the { status, error, mail } result of a mail action.
+ * On success the updated mail is returned, so the client needs no follow-up GET.
+ */
+function sendResult(res, result) {
+  if (result.error) {
+    return res.status(result.status).json({ error: result.error });
+  }
+  if (result.mail) {
+    return res.status(200).json(result.mail);
+  }
+  res.status(result.status).end();
+}
 
 /**
  * POST /api/mails
  * Creates a new mail and sends it to recipients.
+ * Returns the created mail (same format as GET /api/mails/:id).
  */
 async function createMail(req, res) {
   try {
@@ -38,7 +54,8 @@ async function createMail(req, res) {
       return res.status(500).json({ error: 'Failed to create mail' });
     }
 
-    res.status(201).location(`/api/mails/${mail.id}`).json({ id: mail.id, ...responseMeta });
+    const created = await mailService.getMailById(mail.id, userId);
+    res.status(201).location(`/api/mails/${mail.id}`).json({ id: mail.id, ...created, ...responseMeta });
   } catch (err) {
     res.status(500).json({ error: 'Server error' });
   }
@@ -62,18 +79,42 @@ async function getMailById(req, res) {
   }
 }
 
+/**
+ * GET /api/mails?ids=<id>,<id>,...
+ * Returns the full content of several mails in one request (same format as
+ * GET /api/mails/:id) and, like that route, marks them as read.
+ * Mails that do not exist or are not visible to the user are left out of the list.
+ */
+async function getMailsByIds(req, res) {
+  try {
+    const raw = [].concat(req.query.ids).join(',');
+    const mailIds = [...new Set(raw.split(',').map(id => id.trim()).filter(Boolean))];
+
+    if (mailIds.length === 0) {
+      return res.status(400).json({ error: 'ids must list at least one mail ID' });
+    }
+    if (mailIds.length > FETCH_MAX_IDS) {
+      return res.status(400).json({ error: `At most ${FETCH_MAX_IDS} mails per request` });
+    }
+
+    const userId = req.user.userId.toLowerCase();
+    // Marked first, so the returned mails carry their new read state and change time
+    await mailStatusService.markManyAsRead(mailIds, userId);
+    const mails = await mailService.getMailsByIds(mailIds, userId);
+    res.status(200).json(mails);
+  } catch (err) {
+    res.status(500).json({ error: 'Server error' });
+  }
+}
+
 /**
  * DELETE /api/mails/:id
  * Removes the mail from the current user's status map.
  */
 async function deleteMail(req, res) {
   try {
-    const mailId = req.params.id;
-    const success = await mailService.deleteMail(mailId, req.user.userId.toLowerCase());
-    if (!success) {
-      return res.status(404).json({ error: 'Mail not found' });
-    }
-    res.status(204).end();
+    const result = await mailActionService.deleteMail(req.params.id, req.user.userId.toLowerCase());
+    sendResult(res, result);
   } catch (err) {
     res.status(500).json({ error: 'Server error' });
   }
@@ -81,7 +122,7 @@ async function deleteMail(req, res) {
 
 /**
  * PATCH /api/mails/:id
- * Updates the subject, body and recipients of a draft mail.
+ * Updates the subject, body and recipients of a draft mail and returns the updated draft.
  */
 async function updateMail(req, res) {
   try {
@@ -103,7 +144,8 @@ async function updateMail(req, res) {
       return res.status(400).json({ error: 'Only draft mails can be edited' });
     }
 
-    res.status(204).end();
+    const updated = await mailService.getMailById(mailId, req.user.userId.toLowerCase());
+    res.status(200).json(updated);
   } catch (err) {
     res.status(500).json({ error: 'Server error' });
   }
@@ -111,7 +153,7 @@ async function updateMail(req, res) {
 
 /**
  * PATCH /api/mails/:id/send
- * Sends an existing draft mail to updated recipients.
+ * Sends an existing draft mail to updated recipients and returns the sent mail.
  */
 async function sendDraftMail(req, res) {
   try {
@@ -128,7 +170,7 @@ async function sendDraftMail(req, res) {
       return res.status(400).json({ error: 'Recipients are required for sending mails' });
     }
 
-    const result = processRecipients(to, false, res, userId);
+    const result = await processRecipients(to, false, userId);
 
     if (result.error) {
       await mailService.deleteMail(mailId, userId);
@@ -146,7 +188,9 @@ async function sendDraftMail(req, res) {
       return res.status(400).json({ error: 'Only draft mails can be sent' });
     }
 
+    const sent = await mailService.getMailById(mailId, userId);
     return res.status(200).json({
+      ...sent,
       message: 'Mail sent successfully',
       mailId,
       ...responseMeta
@@ -182,31 +226,13 @@ async function searchMails(req, res) {
 /**
  * POST /api/mails/:id/labels
  * Adds a label to a mail for the current user.
+ * Returns the updated mail.
  */
 async function addLabelToMail(req, res) {
   try {
-    const mailId = req.params.id;
-    const labelId = req.body.labelId;
     const userId = req.user.userId.toLowerCase();
-
-    if (!labelId) {
-      return res.status(400).json({ error: 'labelId is required' });
-    }
-
-    if (!labelExistsForUser(userId, labelId)) {
-      return res.status(404).json({ error: 'Label not found' });
-    }
-
-    const result = await mailStatusService.addLabel(mailId, userId, labelId);
-
-    if (result === null) {
-      return res.status(404).json({ error: 'Mail not found' });
-    }
-    if (result === -1) {
-      return res.status(400).json({ error: 'Cannot add label to a spam mail' });
-    }
-
-    res.status(204).end();
+    const result = await mailActionService.addLabel(req.params.id, userId, req.body.labelId);
+    sendResult(res, await mailActionService.withMail(result, req.params.id, userId));
   } catch (err) {
     res.status(500).json({ error: 'Server error' });
   }
@@ -215,56 +241,29 @@ async function addLabelToMail(req, res) {
 /**
  * DELETE /api/mails/:id/labels
  * Removes a label from a mail for the current user.
+ * Returns the updated mail.
  */
 async function removeLabelFromMail(req, res) {
   try {
-    const mailId = req.params.id;
-    const labelId = req.body.labelId;
     const userId = req.user.userId.toLowerCase();
-
-    if (!labelId) {
-      return res.status(400).json({ error: 'labelId is required' });
-    }
-
-    if (!labelExistsForUser(userId, labelId)) {
-      return res.status(404).json({ error: 'Label not found' });
-    }
-
-    const result = await mailStatusService.removeLabel(mailId, userId, labelId);
-
-    if (result === null) {
-      return res.status(404).json({ error: 'Mail not found' });
-    }
-    if (result === -1) {
-      return res.status(400).json({ error: 'Cannot remove label from a spam mail' });
-    }
-
-    res.status(204).end();
+    const result = await mailActionService.removeLabel(req.params.id, userId, req.body.labelId);
+    sendResult(res, await mailActionService.withMail(result, req.params.id, userId));
   } catch (err) {
     res.status(500).json({ error: 'Server error' });
   }
 }
 
 /**
- * POST /api/mails/:id/star
- * Toggles the "starred" status of a mail.
+ * PATCH /api/mails/:id/star
+ * Toggles the "starred" status of a mail, or sets it when the body has a boolean `isStar`.
+ * Returns the updated mail.
  */
 async function toggleStar(req, res) {
   try {
-    const mailId = req.params.id;
     const userId = req.user.userId.toLowerCase();
-
-    const status = await mailStatusService.getMailStatus(mailId, userId);
-    if (!status) {
-      return res.status(404).json({ error: 'Mail not found' });
-    }
-
-    if (status.isSpam) {
-      return res.status(400).json({ error: 'Cannot star a spam mail' });
-    }
-
-    await mailStatusService.toggleStar(mailId, userId);
-    res.status(204).end();
+    const isStar = req.body ? req.body.isStar : undefined;
+    const result = await mailActionService.setStar(req.params.id, userId, isStar);
+    sendResult(res, await mailActionService.withMail(result, req.params.id, userId));
   } catch (err) {
     res.status(500).json({ error: 'Server error' });
   }
@@ -273,39 +272,58 @@ async function toggleStar(req, res) {
 /**
  * PATCH /api/mails/:id/spam
  * Updates the spam status of a mail for the current user.
+ * Returns the updated mail.
  */
 async function setSpamStatus(req, res) {
   try {
-    const mailId = req.params.id;
     const userId = req.user.userId.toLowerCase();
-    const { isSpam } = req.body;
-
-    if (typeof isSpam !== 'boolean') {
-      return res.status(400).json({ error: 'isSpam must be true or false' });
-    }
+    const result = await mailActionService.setSpam(req.params.id, userId, req.body.isSpam);
+    sendResult(res, await mailActionService.withMail(result, req.params.id, userId));
+  } catch (err) {
+    res.status(500).json({ error: 'Server error' });
+  }
+}
 
-    const mail = await mailService.getMailById(mailId, userId);
-    if (!mail) {
-      return res.status(404).json({ error: 'Mail not found' });
-    }
+/**
+ * POST /api/mails/batch
+ * Applies a list of changes ({ type, mailId, value?, labelId? }) across many mails in one
+ * request. Operations run in order and the response holds one { status, error } result per
+ * operation, plus the resulting state of every touched mail that still exists (`mails`).
+ * Once an operation of a mail failed on the server side (5xx), the later
+ * operations of that mail are skipped with 424, so the client can retry them in order.
+ */
+async function applyBatch(req, res) {
+  const operations = req.body ? req.body.operations : undefined;
+  if (!Array.isArray(operations) || operations.length === 0) {
+    return res.status(400).json({ error: 'operations must be a non-empty array' });
+  }
+  if (operations.length > BATCH_MAX_OPERATIONS) {
+    return res.status(400).json({ error: `At most ${BATCH_MAX_OPERATIONS} operations per batch` });
+  }
 
-    const result = await mailStatusService.setSpamStatus(mailId, userId, isSpam);
-    if (result === null) {
-      return res.status(404).json({ error: 'Mail not found' });
-    }
-    if (result === false) {
-      return res.status(403).json({ error: 'Only recipients can mark mail as spam' });
+  try {
+    const userId = req.user.userId.toLowerCase();
+    const failedMails = new Set();
+    const results = [];
+
+    for (const operation of operations) {
+      const mailId = operation && operation.mailId;
+      if (failedMails.has(mailId)) {
+        results.push({ status: 424, error: 'Skipped after an earlier failure' });
+        continue;
+      }
+
+      const result = await mailActionService.applyOperation(operation, userId);
+      if (result.status >= 500) failedMails.add(mailId);
+      results.push(result);
     }
 
-    const urls = (mail.subject + ' ' + mail.body).split(/\s+/);
+    const touched = [...new Set(operations.map(operation => operation && operation.mailId))]
+      .filter(mailId => typeof mailId === 'string' && mailId);
+    const mails = await Promise.all(touched.map(mailId =>
+      mailService.getMailById(mailId, userId).catch(() => null)));
 
-    if (isSpam) {
-      await addUrlsToBlacklist(urls);
-    } else {
-      await removeUrlsFromBlacklist(urls);
-    }
-
-    res.status(204).end();
+    res.status(200).json({ results, mails: mails.filter(Boolean) });
   } catch (err) {
     res.status(500).json({ error: 'Server error' });
   }
@@ -418,7 +436,7 @@ async function getMailsByLabel(req, res) {
       labelId = labelId.replace('labels-', '');
     }
 
-    if (!labelExistsForUser(userId, labelId)) {
+    if (!(await labelExistsForUser(userId, labelId))) {
       return res.status(404).json({ error: 'Label not found' });
     }
 
@@ -429,9 +447,27 @@ async function getMailsByLabel(req, res) {
   }
 }
 
+/**
+ * GET /api/mails/sync?since=<token>&limit=<n>
+ * Returns the mails created, changed or deleted since the given sync token.
+ * Without a (valid) token, responds with reset: true and a fresh token.
+ */
+async function getMailChanges(req, res) {
+  try {
+    const { since, limit = SYNC_MAX_LIMIT } = req.query;
+    const pageSize = Math.min(Math.max(+limit || SYNC_MAX_LIMIT, 1), SYNC_MAX_LIMIT);
+
+    const changes = await mailService.getMailChanges(req.user.userId.toLowerCase(), since, pageSize);
+    res.status(200).json(changes);
+  } catch (err) {
+    res.status(500).json({ error: 'Server error' });
+  }
+}
+
 module.exports = {
     createMail,
     getMailById,
+    getMailsByIds,
     updateMail,
     deleteMail,
     searchMails,
@@ -446,5 +482,7 @@ module.exports = {
     getMailsByLabel,
     addLabelToMail,
     removeLabelFromMail,
-    setSpamStatus
+    setSpamStatus,
+    applyBatch,
+    getMailChanges
 };
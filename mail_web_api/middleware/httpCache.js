@@ -0,0 +1,25 @@
+/**
+ * Express middleware for GET responses that clients may cache.
+ * The response may be stored, but must be revalidated before every use: the strong ETag
+ * set by Express (see app.js) lets the client send If-None-Match and get a 304 back
+ * when nothing changed. Responses differ per user, so they vary on the token.
+ */
+function revalidate(req, res, next) {
+    res.set('Cache-Control', 'private, no-cache');
+    res.vary('Authorization');
+    next();
+}
+
+/**
+ * Express middleware for GET responses that must never be cached or revalidated,
+ * e.g. because the request has side effects or its URL is unlikely to repeat.
+ */
+function noStore(req, res, next) {
+    res.set('Cache-Control', 'no-store');
+    next();
+}
+
+module.exports = {
+    revalidate,
+    noStore
+};
@@ -37,8 +37,12 @@ const mailStatusSchema = new mongoose.Schema({
       ref: 'Label'
     }
   ]
+}, {
+  // updatedAt is the change marker used by delta sync
+  timestamps: true
 });
 
 mailStatusSchema.index({ userId: 1, mailId: 1 }, { unique: true });
+mailStatusSchema.index({ userId: 1, updatedAt: 1, _id: 1 });
 
 module.exports = mongoose.model('MailStatus', mailStatusSchema);
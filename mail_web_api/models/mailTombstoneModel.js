@@ -0,0 +1,23 @@
+const mongoose = require('mongoose');
+const { TOMBSTONE_RETENTION_DAYS } = require('../config/mailConfig');
+
+// Records that a mail was removed from a user's mailbox, so delta sync can report the deletion
+const mailTombstoneSchema = new mongoose.Schema({
+  userId: {
+    type: String,
+    required: true
+  },
+  mailId: {
+    type: String,
+    required: true
+  },
+  deletedAt: {
+    type: Date,
+    default: Date.now,
+    expires: TOMBSTONE_RETENTION_DAYS * 24 * 60 * 60
+  }
+});
+
+mailTombstoneSchema.index({ userId: 1, deletedAt: 1 });
+
+module.exports = mongoose.model('MailTombstone', mailTombstoneSchema);
@@ -1,4 +1,5 @@
 const mongoose = require('mongoose');
+const { versionedImageUrl } = require('../utils/imageUtils');
 
 
 const userSchema = new mongoose.Schema({
@@ -33,12 +34,19 @@ const userSchema = new mongoose.Schema({
   hasCustomImage: {
     type: Boolean,
     default: false
+  },
+  // Changes whenever the profile image changes (epoch millis); sent as part of its URL
+  profileImageVersion: {
+    type: Number,
+    default: 0
   }
 }, {
   toJSON: {
     versionKey: false, 
     transform: function (doc, ret) {
       delete ret._id;  
+      ret.profileImage = versionedImageUrl(ret.profileImage, ret.profileImageVersion);
+      delete ret.profileImageVersion;
     }
   }
 });
@@ -3,14 +3,23 @@ const router = express.Router();
 
 const mailController = require('../controllers/mailController');
 const { isLoggedIn } = require('../middleware/auth');
+const { revalidate, noStore } = require('../middleware/httpCache');
 
 // Apply user validation middleware to all mails routes
 router.use(isLoggedIn);
 
+// Route: GET /api/mails?ids=a,b,c returns those full mails; without ids, the inbox.
+// The ids batch marks mails as read and its URL rarely repeats, so it is never cached:
+// clients compare each mail's updatedAt instead.
 router.route('/')
-    .get(mailController.getInboxMails)
+    .get((req, res, next) => req.query.ids !== undefined
+        ? noStore(req, res, () => mailController.getMailsByIds(req, res))
+        : revalidate(req, res, () => mailController.getInboxMails(req, res)))
     .post(mailController.createMail);
 
+// Route: Many changes across many mails in one request
+router.post('/batch', mailController.applyBatch);
+
 router.patch('/:id/send', mailController.sendDraftMail);
 router.patch('/:id/star', mailController.toggleStar);
 router.patch('/:id/spam', mailController.setSpamStatus);
@@ -19,18 +28,22 @@ router.post('/:id/labels', mailController.addLabelToMail);
 router.delete('/:id/labels', mailController.removeLabelFromMail);
 
 // Route: Filtered mail views
-router.get('/allmails', mailController.getAllMails);
-router.get('/inbox', mailController.getInboxMails);
-router.get('/sent', mailController.getSentMails);
-router.get('/drafts', mailController.getDraftMails);
-router.get('/spam', mailController.getSpamMails);
-router.get('/starred', mailController.getStarredMails);
-router.get('/labels-:labelId', mailController.getMailsByLabel);
+// (cacheable: revalidated with ETag / If-None-Match)
+router.get('/allmails', revalidate, mailController.getAllMails);
+router.get('/inbox', revalidate, mailController.getInboxMails);
+router.get('/sent', revalidate, mailController.getSentMails);
+router.get('/drafts', revalidate, mailController.getDraftMails);
+router.get('/spam', revalidate, mailController.getSpamMails);
+router.get('/starred', revalidate, mailController.getStarredMails);
+router.get('/labels-:labelId', revalidate, mailController.getMailsByLabel);
+
+router.get('/search-:query', revalidate, mailController.searchMails);
 
-router.get('/search-:query', mailController.searchMails);
+// Route: Delta sync since a sync token
+router.get('/sync', mailController.getMailChanges);
 
 router.route('/:id')
-    .get(mailController.getMailById)
+    .get(revalidate, mailController.getMailById)
     .patch(mailController.updateMail)
     .delete(mailController.deleteMail);
 
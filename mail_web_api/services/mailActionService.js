@@ -0,0 +1,142 @@
+const mailService = require('./mailService');
+const mailStatusService = require('./mailStatusService');
+const { labelExistsForUser } = require('./labelService');
+const { addUrlsToBlacklist, removeUrlsFromBlacklist } = require('./blackListService');
+
+/**
+ * Changes a user makes to a single mail (star, spam, read, labels, delete).
+ * Every action resolves to an HTTP-like result { status, error }, so the same code
+ * answers the single-mail routes and each operation of a batch.
+ */
+
+const OK = { status: 204 };
+const MAIL_NOT_FOUND = { status: 404, error: 'Mail not found' };
+
+/**
+ * Sets the star status of a mail, or toggles it when `isStar` is not a boolean.
+ */
+async function setStar(mailId, userId, isStar) {
+  const status = await mailStatusService.getMailStatus(mailId, userId);
+  if (!status) return MAIL_NOT_FOUND;
+  if (status.isSpam) return { status: 400, error: 'Cannot star a spam mail' };
+
+  await mailStatusService.toggleStar(mailId, userId, isStar);
+  return OK;
+}
+
+/**
+ * Sets or clears the spam status of a received mail and updates the URL blacklist.
+ */
+async function setSpam(mailId, userId, isSpam) {
+  if (typeof isSpam !== 'boolean') {
+    return { status: 400, error: 'isSpam must be true or false' };
+  }
+
+  const mail = await mailService.getMailById(mailId, userId);
+  if (!mail) return MAIL_NOT_FOUND;
+
+  const result = await mailStatusService.setSpamStatus(mailId, userId, isSpam);
+  if (result === null) return MAIL_NOT_FOUND;
+  if (result === false) return { status: 403, error: 'Only recipients can mark mail as spam' };
+
+  const urls = (mail.subject + ' ' + mail.body).split(/\s+/);
+  if (isSpam) {
+    await addUrlsToBlacklist(urls);
+  } else {
+    await removeUrlsFromBlacklist(urls);
+  }
+  return OK;
+}
+
+/**
+ * Marks a received mail as read.
+ */
+async function markAsRead(mailId, userId) {
+  const status = await mailStatusService.getMailStatus(mailId, userId);
+  if (!status) return MAIL_NOT_FOUND;
+
+  await mailStatusService.markAsRead(mailId, userId);
+  return OK;
+}
+
+/**
+ * Adds a label to a mail (not allowed for spam).
+ */
+async function addLabel(mailId, userId, labelId) {
+  if (!labelId) return { status: 400, error: 'labelId is required' };
+  if (!(await labelExistsForUser(userId, labelId))) return { status: 404, error: 'Label not found' };
+
+  const result = await mailStatusService.addLabel(mailId, userId, labelId);
+  if (result === null) return MAIL_NOT_FOUND;
+  if (result === -1) return { status: 400, error: 'Cannot add label to a spam mail' };
+  return OK;
+}
+
+/**
+ * Removes a label from a mail (not allowed for spam).
+ */
+async function removeLabel(mailId, userId, labelId) {
+  if (!labelId) return { status: 400, error: 'labelId is required' };
+  if (!(await labelExistsForUser(userId, labelId))) return { status: 404, error: 'Label not found' };
+
+  const result = await mailStatusService.removeLabel(mailId, userId, labelId);
+  if (result === null) return MAIL_NOT_FOUND;
+  if (result === -1) return { status: 400, error: 'Cannot remove label from a spam mail' };
+  return OK;
+}
+
+/**
+ * Removes a mail from the user's mailbox.
+ */
+async function deleteMail(mailId, userId) {
+  const success = await mailService.deleteMail(mailId, userId);
+  return success ? OK : MAIL_NOT_FOUND;
+}
+
+/**
+ * Applies one batch operation: { type, mailId, value?, labelId? } with type one of
+ * star, spam, read, addLabel, removeLabel, delete. Never throws: failures become results.
+ */
+async function applyOperation(operation, userId) {
+  const { type, mailId, value, labelId } = operation || {};
+  if (typeof mailId !== 'string' || !mailId) {
+    return { status: 400, error: 'mailId is required' };
+  }
+
+  try {
+    switch (type) {
+      case 'star': return await setStar(mailId, userId, value);
+      case 'spam': return await setSpam(mailId, userId, value);
+      case 'read': return await markAsRead(mailId, userId);
+      case 'addLabel': return await addLabel(mailId, userId, labelId);
+      case 'removeLabel': return await removeLabel(mailId, userId, labelId);
+      case 'delete': return await deleteMail(mailId, userId);
+      default: return { status: 400, error: `Unknown operation type: ${type}` };
+    }
+  } catch (err) {
+    // Malformed IDs are the client's fault; anything else may succeed on retry
+    return err.name === 'CastError'
+      ? { status: 400, error: 'Invalid ID' }
+      : { status: 500, error: 'Server error' };
+  }
+}
+
+/**
+ * Adds the updated mail to a successful result, so the route can return it.
+ */
+async function withMail(result, mailId, userId) {
+  if (result.error) return result;
+  const mail = await mailService.getMailById(mailId, userId);
+  return mail ? { status: 200, mail } : result;
+}
+
+module.exports = {
+  setStar,
+  setSpam,
+  markAsRead,
+  addLabel,
+  removeLabel,
+  deleteMail,
+  applyOperation,
+  withMail,
+};
@@ -1,4 +1,6 @@
+const mongoose = require('mongoose');
 const Mail = require('../models/mailModel');
+const { TOMBSTONE_RETENTION_DAYS } = require('../config/mailConfig');
 const { isContentBlacklisted } = require('../utils/mailUtils');
 const { getPublicUserById } = require('./userService');
 const { getLabelsByIdsForUser } = require('./labelMailUtils');
@@ -6,10 +8,14 @@ const {
   initializeSenderStatus,
   initializeRecipientStatus,
   getMailStatus,
+  getMailStatuses,
   formatMailSummary,
   deleteMailStatus,
   markDraftAsSent,
-  getAllStatusesForUser 
+  getAllStatusesForUser,
+  touchMailStatus,
+  getStatusesChangedSince,
+  getTombstonesSince
 } = require('./mailStatusService.js');
 
 /**
@@ -52,6 +58,29 @@ async function getMailById(mailId, userId) {
   return await formatFullMail(mail, userId, status);
 }
 
+/**
+ * Retrieves several full mails by ID for a specific user, with two queries instead of two
+ * per mail. Mails that do not exist or are not visible to the user (and malformed IDs)
+ * are left out; the rest keep the order of `mailIds`.
+ */
+async function getMailsByIds(mailIds, userId) {
+  const validIds = mailIds.filter(id => mongoose.isValidObjectId(id));
+  if (validIds.length === 0) return [];
+
+  const [mails, statuses] = await Promise.all([
+    Mail.find({ _id: { $in: validIds } }).lean(),
+    getMailStatuses(validIds, userId)
+  ]);
+
+  const mailsById = new Map(mails.map(mail => [mail._id.toString(), mail]));
+  const visible = statuses
+    .filter(status => mailsById.has(status.mailId.toString()))
+    .sort((a, b) => validIds.indexOf(a.mailId.toString()) - validIds.indexOf(b.mailId.toString()));
+
+  return await Promise.all(visible.map(status =>
+    formatFullMail(mailsById.get(status.mailId.toString()), userId, status)));
+}
+
 /**
  * Deletes a mail for a specific user.
  * If it's a draft, deletes the mail from the database.
@@ -84,6 +113,7 @@ async function updateMail(mailId, userId, updatedFields) {
   mail.to = Array.isArray(updatedFields.to) ? updatedFields.to : [];
 
   await mail.save();
+  await touchMailStatus(mailId, userId);
   return true;
 }
 
@@ -139,7 +169,9 @@ async function formatFullMail(mail, userId, status) {
     isStar: status?.isStar || false,
     isDraft: status?.isDraft || false,
     isSpam: status?.isSpam || false,
-    type: status?.type || 'sent'
+    isRead: status?.isRead || false,
+    type: status?.type || 'sent',
+    updatedAt: status?.updatedAt
   };
 }
 
@@ -190,11 +222,99 @@ async function searchMails(userId, query, limit = 5, offset = 0) {
   };
 }
 
+/**
+ * Parses a sync token "<epoch millis>:<status id>[:<deletions epoch millis>]".
+ *   - time, id: the (updatedAt, _id) position of the last status returned. A token without
+ *     the id part (as issued on reset) covers everything changed at that time
+ *   - deletedSince: the time from which deletions have not been reported yet. It stays behind
+ *     while a multi-page sync catches up on mail changes; without it, it equals time
+ * Returns null if the token is malformed.
+ */
+function parseSyncToken(token) {
+  const [time, id = '', deleted = ''] = String(token).split(':');
+  const millis = Number(time);
+  const deletedMillis = deleted === '' ? millis : Number(deleted);
+  if (time === '' || !Number.isFinite(millis) || !Number.isFinite(deletedMillis)) return null;
+  if (id && !mongoose.Types.ObjectId.isValid(id)) return null;
+  return {
+    time: new Date(millis),
+    id: id ? new mongoose.Types.ObjectId(id) : null,
+    deletedSince: new Date(Math.min(millis, deletedMillis))
+  };
+}
+
+function formatSyncToken(time, id, deletedSince) {
+  const position = id ? `${time.getTime()}:${id}` : `${time.getTime()}`;
+  if (!deletedSince || deletedSince.getTime() >= time.getTime()) return position;
+  return `${id ? position : `${position}:`}:${deletedSince.getTime()}`;
+}
+
+/**
+ * Returns the changes to a user's mailbox since a sync token (see parseSyncToken).
+ * Returns:
+ *   - { reset: true, token } if there is no valid token or it is older than the tombstone
+ *     retention; the client must reload from scratch, then sync from the returned token
+ *   - { reset: false, token, hasMore, mails, deleted } otherwise, where mails are the changed
+ *     or new mail summaries and deleted are the IDs of removed mails
+ * The token is the (updatedAt, _id) of the last status returned, so a page always ends past
+ * the previous one, even when many statuses share a timestamp.
+ * Deletions are only reported by the last page (hasMore: false), so until then the token keeps
+ * the deletion watermark of the sync's first page, and none made meanwhile are skipped.
+ * Deletions at exactly the watermark may be returned again, so applying them must be idempotent.
+ */
+async function getMailChanges(userId, since, limit) {
+  const now = new Date();
+  const retentionStart = now.getTime() - TOMBSTONE_RETENTION_DAYS * 24 * 60 * 60 * 1000;
+
+  const after = since === undefined ? null : parseSyncToken(since);
+  if (!after || after.deletedSince.getTime() < retentionStart) {
+    return { reset: true, token: formatSyncToken(now), hasMore: false, mails: [], deleted: [] };
+  }
+
+  const statuses = await getStatusesChangedSince(userId, after, limit + 1);
+  const hasMore = statuses.length > limit;
+  const changed = statuses.slice(0, limit);
+
+  // With more pages pending, deletions are reported once the mail changes are caught up
+  const tombstones = hasMore ? [] : await getTombstonesSince(userId, after.deletedSince);
+
+  let time = after.time;
+  let id = after.id;
+  if (changed.length > 0) {
+    const last = changed[changed.length - 1];
+    time = last.updatedAt;
+    id = last._id;
+  }
+
+  let token;
+  if (hasMore) {
+    token = formatSyncToken(time, id, after.deletedSince);
+  } else {
+    const lastDeletedAt = Math.max(0, ...tombstones.map(t => t.deletedAt.getTime()));
+    token = lastDeletedAt > time.getTime()
+      ? formatSyncToken(new Date(lastDeletedAt))
+      : formatSyncToken(time, id);
+  }
+
+  const mails = await Mail.find({ _id: { $in: changed.map(s => s.mailId) } }).lean();
+  const formatted = await Promise.all(mails.map(mail => formatMailSummary(mail, userId)));
+
+  return {
+    reset: false,
+    token,
+    hasMore,
+    mails: formatted,
+    deleted: tombstones.map(t => t.mailId)
+  };
+}
+
 module.exports = {
   createMail,
   getMailById,
+  getMailsByIds,
   deleteMail,
   updateMail,
   sendDraft,
-  searchMails
+  searchMails,
+  getMailChanges
 };
\ No newline at end of file
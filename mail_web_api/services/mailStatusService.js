@@ -1,4 +1,6 @@
+const mongoose = require('mongoose');
 const MailStatus = require('../models/mailStatusModel');
+const MailTombstone = require('../models/mailTombstoneModel');
 const { getPublicUserById } = require('./userService');
 const { getLabelsByIdsForUser } = require('./labelMailUtils');
 const Mail = require('../models/mailModel');
@@ -41,6 +43,14 @@ async function getMailStatus(mailId, userId) {
   return await MailStatus.findOne({ mailId, userId }).lean();
 }
 
+/**
+ * Retrieves the user's mail statuses of several mails at once.
+ * Returns plain JS objects; mails without a status are missing from the result.
+ */
+async function getMailStatuses(mailIds, userId) {
+  return await MailStatus.find({ userId, mailId: { $in: mailIds } }).lean();
+}
+
 /**
  * Returns all mail status entries for a given user.
  * Used to fetch all visible mail IDs.
@@ -51,9 +61,45 @@ async function getAllStatusesForUser(userId) {
 
 /**
  * Deletes a specific mail status entry from the database.
+ * Leaves a tombstone so delta sync can report the deletion.
  */
 async function deleteMailStatus(mailId, userId) {
-  return await MailStatus.deleteOne({ mailId, userId });
+  const result = await MailStatus.deleteOne({ mailId, userId });
+  if (result.deletedCount > 0) {
+    await MailTombstone.create({ mailId: mailId.toString(), userId });
+  }
+  return result;
+}
+
+/**
+ * Bumps the change marker of a mail status (used when the mail content itself changed).
+ */
+async function touchMailStatus(mailId, userId) {
+  await MailStatus.updateOne({ mailId, userId }, { $set: { updatedAt: new Date() } });
+}
+
+/**
+ * Returns the user's mail statuses changed after the (updatedAt, _id) position `after`,
+ * oldest change first. Without `after.id`, every status changed at `after.time` is included.
+ */
+async function getStatusesChangedSince(userId, after, limit) {
+  const later = after.id
+    ? [{ updatedAt: { $gt: after.time } }, { updatedAt: after.time, _id: { $gt: after.id } }]
+    : [{ updatedAt: { $gte: after.time } }];
+
+  return await MailStatus.find({ userId, $or: later })
+    .sort({ updatedAt: 1, _id: 1 })
+    .limit(limit)
+    .lean();
+}
+
+/**
+ * Returns the tombstones of mails the user deleted at or after `since`.
+ */
+async function getTombstonesSince(userId, since) {
+  return await MailTombstone.find({ userId, deletedAt: { $gte: since } })
+    .sort({ deletedAt: 1 })
+    .lean();
 }
 
 /**
@@ -111,14 +157,30 @@ async function markAsRead(mailId, userId) {
 }
 
 /**
- * Toggles the 'starred' status of a mail.
+ * Marks several received mails as read in one update.
+ * Has no effect on mails sent by the user; invalid IDs are ignored.
+ */
+async function markManyAsRead(mailIds, userId) {
+  const validIds = mailIds.filter(id => mongoose.isValidObjectId(id));
+  if (validIds.length === 0) return;
+
+  // Only unread statuses are updated, so fetching a read mail does not change its updatedAt
+  await MailStatus.updateMany(
+    { mailId: { $in: validIds }, userId, type: 'received', isRead: false },
+    { $set: { isRead: true } }
+  );
+}
+
+/**
+ * Toggles the 'starred' status of a mail, or sets it to `isStar` when given
+ * (setting is idempotent, so a client may safely retry it).
  * Has no effect if the mail is marked as spam.
  */
-async function toggleStar(mailId, userId) {
+async function toggleStar(mailId, userId, isStar) {
   const status = await MailStatus.findOne({ mailId, userId });
   if (!status || status.isSpam) return;
 
-  status.isStar = !status.isStar;
+  status.isStar = typeof isStar === 'boolean' ? isStar : !status.isStar;
   await status.save();
 }
 
@@ -172,6 +234,7 @@ async function formatMailSummary(mail, userId) {
     isDraft: status?.isDraft || false,
     isSpam: status?.isSpam || false,
     type: status?.type || 'sent',
+    updatedAt: status?.updatedAt
   };
 
   if (status?.type === 'received') {
@@ -285,10 +348,12 @@ module.exports = {
   initializeSenderStatus,
   initializeRecipientStatus,
   getMailStatus,
+  getMailStatuses,
   deleteMailStatus,
   addLabel,
   removeLabel,
   markAsRead,
+  markManyAsRead,
   toggleStar,
   setSpamStatus,
   formatMailSummary,
@@ -300,5 +365,8 @@ module.exports = {
   getDraftMails,
   getMailsByLabel,
   markDraftAsSent,
-  getAllStatusesForUser
+  getAllStatusesForUser,
+  touchMailStatus,
+  getStatusesChangedSince,
+  getTombstonesSince
 };
@@ -1,6 +1,7 @@
 const fs = require('fs');
 const path = require('path');
 const User = require('../models/userModel');
+const { versionedImageUrl, stripImageVersion } = require('../utils/imageUtils');
 
 /**
  * Saves a new base64-encoded profile image for the given user.
@@ -26,8 +27,9 @@ async function saveProfileImage(user, image) {
     const buffer = Buffer.from(base64Data, 'base64');
 
     // delete old image from disk if exists
-    if (user.profileImage && user.profileImage.startsWith('/profilePics/uploads/')) {
-        const oldPath = path.join(__dirname, '..', user.profileImage);
+    const oldImage = stripImageVersion(user.profileImage);
+    if (oldImage && oldImage.startsWith('/profilePics/uploads/')) {
+        const oldPath = path.join(__dirname, '..', oldImage);
         if (fs.existsSync(oldPath)) {
             fs.unlinkSync(oldPath);
         }
@@ -39,17 +41,19 @@ async function saveProfileImage(user, image) {
     fs.writeFileSync(filePath, buffer);
 
     const newImagePath = `/profilePics/uploads/${fileName}`;
+    const version = Date.now(); // same path as the old image, so clients need the new version
 
     // update user in database
     await User.findOneAndUpdate(
         { userId: user.userId },
         {
             profileImage: newImagePath,
+            profileImageVersion: version,
             hasCustomImage: true
         }
     );
 
-    return { success: true };
+    return { success: true, imageUrl: versionedImageUrl(newImagePath, version) };
 }
 
 /**
@@ -57,8 +61,9 @@ async function saveProfileImage(user, image) {
  * and resets it to a default avatar based on userId.
  */
 async function removeProfileImage(user) {
-    if (user.profileImage && user.profileImage.startsWith('/profilePics/uploads/')) {
-        const imagePath = path.join(__dirname, '..', user.profileImage);
+    const oldImage = stripImageVersion(user.profileImage);
+    if (oldImage && oldImage.startsWith('/profilePics/uploads/')) {
+        const imagePath = path.join(__dirname, '..', oldImage);
         if (fs.existsSync(imagePath)) {
             fs.unlinkSync(imagePath);
         }
@@ -70,6 +75,7 @@ async function removeProfileImage(user) {
         { userId: user.userId },
         {
             profileImage: defaultImage,
+            profileImageVersion: 0,
             hasCustomImage: false
         }
     );
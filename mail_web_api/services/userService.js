@@ -1,4 +1,5 @@
 const User = require('../models/userModel');
+const { versionedImageUrl } = require('../utils/imageUtils');
 
 /**
  * Create a new user in the database.
@@ -30,7 +31,7 @@ async function getPublicUserById(userId) {
   return {
     userId: user.userId,
     name: user.name,
-    profileImage: user.profileImage
+    profileImage: versionedImageUrl(user.profileImage, user.profileImageVersion)
   };
 }
 
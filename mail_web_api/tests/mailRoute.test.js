@@ -0,0 +1,174 @@
+const express = require('express');
+const request = require('supertest');
+
+// Every request is made by the same logged-in user
+jest.mock('../middleware/auth', () => ({
+  isLoggedIn: (req, res, next) => {
+    req.user = { userId: 'Alice' };
+    next();
+  }
+}));
+
+jest.mock('../services/mailService', () => ({ getMailChanges: jest.fn(), getMailsByIds: jest.fn(), getMailById: jest.fn() }));
+jest.mock('../services/mailStatusService', () => ({ markManyAsRead: jest.fn() }));
+jest.mock('../services/mailActionService', () => ({ applyOperation: jest.fn() }));
+jest.mock('../services/labelService', () => ({ labelExistsForUser: jest.fn() }));
+jest.mock('../utils/mailUtils', () => ({ processRecipients: jest.fn() }));
+
+const mailService = require('../services/mailService');
+const mailStatusService = require('../services/mailStatusService');
+const mailActionService = require('../services/mailActionService');
+const { SYNC_MAX_LIMIT, FETCH_MAX_IDS, BATCH_MAX_OPERATIONS } = require('../config/mailConfig');
+
+const app = express();
+app.use(express.json());
+app.use('/api/mails', require('../routes/mailRoute'));
+
+beforeEach(() => {
+  jest.clearAllMocks();
+});
+
+describe('GET /api/mails/sync', () => {
+  test('returns the changes since the token, passed through as is', async () => {
+    const changes = { reset: false, token: '2000:abc', hasMore: false, mails: [], deleted: ['m1'] };
+    mailService.getMailChanges.mockResolvedValue(changes);
+
+    const res = await request(app).get('/api/mails/sync?since=1000:abc:500&limit=20');
+
+    expect(res.status).toBe(200);
+    expect(res.body).toEqual(changes);
+    expect(mailService.getMailChanges).toHaveBeenCalledWith('alice', '1000:abc:500', 20);
+  });
+
+  test('caps the page size', async () => {
+    mailService.getMailChanges.mockResolvedValue({ reset: true, token: '1', mails: [], deleted: [] });
+
+    await request(app).get('/api/mails/sync?since=1&limit=100000');
+
+    expect(mailService.getMailChanges).toHaveBeenCalledWith('alice', '1', SYNC_MAX_LIMIT);
+  });
+
+  test('reports a server error when the sync fails', async () => {
+    mailService.getMailChanges.mockRejectedValue(new Error('database down'));
+
+    const res = await request(app).get('/api/mails/sync?since=1');
+
+    expect(res.status).toBe(500);
+  });
+});
+
+describe('GET /api/mails?ids=', () => {
+  test('returns the listed mails, marked as read first, and is never cached', async () => {
+    const mails = [{ id: 'm1' }, { id: 'm2' }];
+    mailStatusService.markManyAsRead.mockResolvedValue();
+    mailService.getMailsByIds.mockResolvedValue(mails);
+
+    const res = await request(app).get('/api/mails?ids=m1,%20m2,m1,');
+
+    expect(res.status).toBe(200);
+    expect(res.body).toEqual(mails);
+    expect(res.headers['cache-control']).toBe('no-store');
+    expect(mailStatusService.markManyAsRead).toHaveBeenCalledWith(['m1', 'm2'], 'alice');
+    expect(mailService.getMailsByIds).toHaveBeenCalledWith(['m1', 'm2'], 'alice');
+    expect(mailStatusService.markManyAsRead.mock.invocationCallOrder[0])
+      .toBeLessThan(mailService.getMailsByIds.mock.invocationCallOrder[0]);
+  });
+
+  test('accepts the ids parameter repeated', async () => {
+    mailService.getMailsByIds.mockResolvedValue([]);
+
+    await request(app).get('/api/mails?ids=m1&ids=m2');
+
+    expect(mailService.getMailsByIds).toHaveBeenCalledWith(['m1', 'm2'], 'alice');
+  });
+
+  test('rejects an empty list', async () => {
+    const res = await request(app).get('/api/mails?ids=,');
+
+    expect(res.status).toBe(400);
+    expect(mailService.getMailsByIds).not.toHaveBeenCalled();
+  });
+
+  test('rejects more than FETCH_MAX_IDS mails', async () => {
+    const ids = Array.from({ length: FETCH_MAX_IDS + 1 }, (_, i) => `m${i}`).join(',');
+
+    const res = await request(app).get(`/api/mails?ids=${ids}`);
+
+    expect(res.status).toBe(400);
+    expect(mailStatusService.markManyAsRead).not.toHaveBeenCalled();
+  });
+
+  test('reports a server error when the lookup fails', async () => {
+    mailService.getMailsByIds.mockRejectedValue(new Error('database down'));
+
+    const res = await request(app).get('/api/mails?ids=m1');
+
+    expect(res.status).toBe(500);
+  });
+});
+
+describe('POST /api/mails/batch', () => {
+  test('applies the operations in order and returns the touched mails', async () => {
+    const operations = [
+      { type: 'star', mailId: 'm1', value: true },
+      { type: 'addLabel', mailId: 'm2', labelId: 'l1' },
+      { type: 'read', mailId: 'm1' }
+    ];
+    mailActionService.applyOperation.mockResolvedValue({ status: 200 });
+    mailService.getMailById.mockImplementation(async mailId => ({ id: mailId }));
+
+    const res = await request(app).post('/api/mails/batch').send({ operations });
+
+    expect(res.status).toBe(200);
+    expect(res.body).toEqual({
+      results: [{ status: 200 }, { status: 200 }, { status: 200 }],
+      mails: [{ id: 'm1' }, { id: 'm2' }]
+    });
+    expect(mailActionService.applyOperation.mock.calls).toEqual(
+      operations.map(operation => [operation, 'alice']));
+  });
+
+  test('skips the later operations of a mail after a server failure', async () => {
+    mailActionService.applyOperation
+      .mockResolvedValueOnce({ status: 500, error: 'Server error' })
+      .mockResolvedValueOnce({ status: 200 })
+      .mockResolvedValueOnce({ status: 200 });
+    mailService.getMailById.mockImplementation(async mailId => ({ id: mailId }));
+
+    const res = await request(app).post('/api/mails/batch').send({ operations: [
+      { type: 'star', mailId: 'm1', value: true },
+      { type: 'spam', mailId: 'm2', value: true },
+      { type: 'read', mailId: 'm1' },
+      { type: 'read', mailId: 'm2' }
+    ] });
+
+    expect(res.status).toBe(200);
+    expect(res.body.results.map(result => result.status)).toEqual([500, 200, 424, 200]);
+    expect(mailActionService.applyOperation).toHaveBeenCalledTimes(3);
+  });
+
+  test('keeps going after a rejected operation, and leaves out mails that are gone', async () => {
+    mailActionService.applyOperation
+      .mockResolvedValueOnce({ status: 404, error: 'Mail not found' })
+      .mockResolvedValueOnce({ status: 200 });
+    mailService.getMailById.mockImplementation(async mailId => (mailId === 'gone' ? null : { id: mailId }));
+
+    const res = await request(app).post('/api/mails/batch').send({ operations: [
+      { type: 'delete', mailId: 'gone' },
+      { type: 'read', mailId: 'm1' }
+    ] });
+
+    expect(res.body.results.map(result => result.status)).toEqual([404, 200]);
+    expect(res.body.mails).toEqual([{ id: 'm1' }]);
+  });
+
+  test('rejects a missing, empty or oversized list', async () => {
+    const tooMany = Array.from({ length: BATCH_MAX_OPERATIONS + 1 }, () => ({ type: 'read', mailId: 'm1' }));
+
+    for (const body of [{}, { operations: [] }, { operations: 'read' }, { operations: tooMany }]) {
+      const res = await request(app).post('/api/mails/batch').send(body);
+      expect(res.status).toBe(400);
+    }
+    expect(mailActionService.applyOperation).not.toHaveBeenCalled();
+  });
+});
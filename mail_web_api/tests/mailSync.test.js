@@ -0,0 +1,134 @@
+const mongoose = require('mongoose');
+
+// In-memory mail statuses and tombstones behind the sync service
+const mockStore = { statuses: [], tombstones: [], mails: [] };
+
+jest.mock('../models/mailModel', () => ({
+  find: jest.fn(query => ({
+    lean: async () => mockStore.mails.filter(mail =>
+      query._id.$in.some(id => String(id) === String(mail._id)))
+  }))
+}));
+
+jest.mock('../services/userService', () => ({ getPublicUserById: jest.fn() }));
+jest.mock('../services/labelMailUtils', () => ({ getLabelsByIdsForUser: jest.fn() }));
+jest.mock('../utils/mailUtils', () => ({ isContentBlacklisted: jest.fn() }));
+
+jest.mock('../services/mailStatusService.js', () => {
+  const isAfter = (status, after) => {
+    const time = status.updatedAt.getTime();
+    if (!after.id) return time >= after.time.getTime();
+    return time > after.time.getTime()
+      || (time === after.time.getTime() && String(status._id) > String(after.id));
+  };
+  return {
+    formatMailSummary: jest.fn(async mail => ({ id: String(mail._id) })),
+    getStatusesChangedSince: jest.fn(async (userId, after, limit) => mockStore.statuses
+      .filter(status => status.userId === userId && isAfter(status, after))
+      .sort((a, b) => a.updatedAt - b.updatedAt || String(a._id).localeCompare(String(b._id)))
+      .slice(0, limit)),
+    getTombstonesSince: jest.fn(async (userId, since) => mockStore.tombstones
+      .filter(t => t.userId === userId && t.deletedAt.getTime() >= since.getTime())
+      .sort((a, b) => a.deletedAt - b.deletedAt))
+  };
+});
+
+const { getMailChanges } = require('../services/mailService');
+
+const USER = 'alice';
+const T0 = Date.now() - 60 * 60 * 1000;
+
+function addChange(offset) {
+  const mailId = new mongoose.Types.ObjectId();
+  mockStore.mails.push({ _id: mailId });
+  mockStore.statuses.push({
+    _id: new mongoose.Types.ObjectId(),
+    userId: USER,
+    mailId,
+    updatedAt: new Date(T0 + offset)
+  });
+  return String(mailId);
+}
+
+function addDeletion(offset) {
+  const mailId = String(new mongoose.Types.ObjectId());
+  mockStore.tombstones.push({ userId: USER, mailId, deletedAt: new Date(T0 + offset) });
+  return mailId;
+}
+
+// Follows hasMore like the client does, returning every page
+async function syncAll(since, limit) {
+  const pages = [];
+  let token = since;
+  for (;;) {
+    const page = await getMailChanges(USER, token, limit);
+    pages.push(page);
+    token = page.token;
+    if (!page.hasMore) return pages;
+  }
+}
+
+beforeEach(() => {
+  mockStore.statuses = [];
+  mockStore.tombstones = [];
+  mockStore.mails = [];
+});
+
+describe('getMailChanges', () => {
+  test('reports deletions made anywhere in a sync spanning several pages', async () => {
+    const changed = [1, 2, 3, 4, 5].map(i => addChange(i * 1000));
+    const deletedEarly = addDeletion(1500);  // inside the first page's window
+    const deletedLater = addDeletion(3500);  // inside the second page's window
+
+    const pages = await syncAll(String(T0), 2);
+
+    expect(pages).toHaveLength(3);
+    expect(pages.slice(0, 2).every(page => page.deleted.length === 0)).toBe(true);
+    expect(pages.flatMap(page => page.mails.map(mail => mail.id))).toEqual(changed);
+    expect(pages[2].deleted).toEqual([deletedEarly, deletedLater]);
+  });
+
+  test('reports a deletion made while a multi-page sync is in progress', async () => {
+    [1, 2, 3].map(i => addChange(i * 1000));
+
+    const first = await getMailChanges(USER, String(T0), 2);
+    expect(first.hasMore).toBe(true);
+
+    const deletedMeanwhile = addDeletion(500);
+    const last = await getMailChanges(USER, first.token, 2);
+
+    expect(last.hasMore).toBe(false);
+    expect(last.deleted).toEqual([deletedMeanwhile]);
+  });
+
+  test('does not report the same changes again from the final token', async () => {
+    [1, 2, 3].map(i => addChange(i * 1000));
+    addDeletion(1500);
+
+    const pages = await syncAll(String(T0), 2);
+    const again = await getMailChanges(USER, pages[pages.length - 1].token, 2);
+
+    expect(again).toMatchObject({ reset: false, hasMore: false, mails: [], deleted: [] });
+  });
+
+  test('pages past many changes sharing one timestamp', async () => {
+    const changed = [1, 1, 1, 1, 1].map(() => addChange(1000));
+
+    const pages = await syncAll(String(T0), 2);
+
+    expect(pages.flatMap(page => page.mails.map(mail => mail.id)).sort()).toEqual([...changed].sort());
+  });
+
+  test('asks for a reset without a token or past the tombstone retention', async () => {
+    expect((await getMailChanges(USER, undefined, 2)).reset).toBe(true);
+    expect((await getMailChanges(USER, 'not-a-token', 2)).reset).toBe(true);
+    expect((await getMailChanges(USER, '0', 2)).reset).toBe(true);
+  });
+
+  test('asks for a reset when only the deletion watermark is past the retention', async () => {
+    const status = new mongoose.Types.ObjectId();
+    const token = `${T0}:${status}:0`;
+
+    expect((await getMailChanges(USER, token, 2)).reset).toBe(true);
+  });
+});
@@ -0,0 +1,27 @@
+/**
+ * Adds the image version to a profile image path ("/profilePics/uploads/alice.png?v=1712345678").
+ * An uploaded image keeps its path when it is replaced, so the version is what tells clients
+ * (and their caches) that the picture changed. Paths without a version are returned as is.
+ * @param {string} imagePath
+ * @param {number} version
+ * @returns {string}
+ */
+function versionedImageUrl(imagePath, version) {
+    if (!imagePath || !version) return imagePath;
+    return `${imagePath}?v=${version}`;
+}
+
+/**
+ * Returns the file path of a (possibly versioned) profile image URL.
+ * Example: "/profilePics/uploads/alice.png?v=1712345678" ➝ "/profilePics/uploads/alice.png"
+ * @param {string} imageUrl
+ * @returns {string}
+ */
+function stripImageVersion(imageUrl) {
+    return imageUrl ? imageUrl.split('?')[0] : imageUrl;
+}
+
+module.exports = {
+    versionedImageUrl,
+    stripImageVersion
+};